@@ -0,0 +1,113 @@
+package util;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A table for drawing indices with probability proportional to fixed weights in constant time, built with Vose's alias method in linear
+ * time. Tables are immutable, so one table can be shared by any number of threads as long as each thread uses its own
+ * {@link RandomGenerator}.
+ */
+public final class AliasTable {
+    private final double[] probability; // The chance of keeping each column instead of taking its alias
+    private final int[] alias;
+
+    /**
+     * @param weights the relative weights of the indices. Must be non-negative and finite with a positive sum
+     * @throws IllegalArgumentException if weights is empty or contains a negative, infinite or NaN weight, or if all weights are 0
+     */
+    public AliasTable(final double... weights) {
+        final int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("Expected at least one weight, found none"); //$NON-NLS-1$
+        }
+        double sum = 0;
+        for (final double weight : weights) {
+            if (!(0 <= weight && weight < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Expected non-negative finite weight, found " + weight); //$NON-NLS-1$
+            }
+            sum += weight;
+        }
+        if (!(0 < sum && sum < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("Expected positive finite total weight, found " + sum); //$NON-NLS-1$
+        }
+        this.probability = new double[n];
+        this.alias = new int[n];
+        final double[] scaled = new double[n];
+        final int[] small = new int[n];
+        final int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            final int less = small[--smallCount];
+            final int more = large[--largeCount];
+            this.probability[less] = scaled[less];
+            this.alias[less] = more;
+            scaled[more] += scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is within rounding error of 1
+        while (largeCount > 0) {
+            this.probability[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            this.probability[small[--smallCount]] = 1;
+        }
+    }
+
+    /**
+     * @return the number of indices that this table draws from
+     */
+    public int size() {
+        return this.probability.length;
+    }
+
+    /**
+     * @param rng the random number generator to use
+     * @return an index in [0, {@link #size()}), drawn with probability proportional to its weight
+     */
+    public int nextIndex(final RandomGenerator rng) {
+        final int column = rng.nextInt(this.probability.length);
+        final double p = this.probability[column];
+        return p >= 1 || rng.nextDouble() < p ? column : this.alias[column];
+    }
+
+    /**
+     * @param count the number of indices to draw
+     * @param rng the random number generator to use
+     * @return an array of independently drawn indices, as if by <tt>count</tt> calls to {@link #nextIndex(RandomGenerator)}
+     */
+    public int[] nextIndices(final int count, final RandomGenerator rng) {
+        final int[] ret = new int[count];
+        for (int i = 0; i < count; i++) {
+            ret[i] = this.nextIndex(rng);
+        }
+        return ret;
+    }
+
+    /**
+     * @param items the items to draw from, in the same order as the weights that this table was built from
+     * @param rng the random number generator to use
+     * @return the item at an index drawn by {@link #nextIndex(RandomGenerator)}
+     * @throws IllegalArgumentException if the number of items doesn't match the number of weights
+     */
+    public <T> T sample(final List<T> items, final RandomGenerator rng) {
+        if (items.size() != this.probability.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + this.probability.length + " items, found " + items.size()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return items.get(this.nextIndex(rng));
+    }
+}
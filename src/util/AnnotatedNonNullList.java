@@ -1,11 +1,15 @@
 package util;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
+
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -61,6 +65,258 @@ public interface AnnotatedNonNullList<C extends AnnotatedNonNullList<C, T>, T> /
      */
     Maybe<T> get(UInt32 index);
 
+    /**
+     * Like {@link #get(UInt32)} except that the index is an int and nothing is allocated. Random access implementations should override
+     * this method.
+     * @param index the index of this list to access
+     * @return the object at the given index in this list if 0 &lt;= index &lt; {@link #size()}, null otherwise
+     */
+    default @Nullable T getOrNull(final int index) {
+        if (index < 0) {
+            return null;
+        }
+        return this.get(UInt32.asUnsigned(index)).fromMaybeNullable(null);
+    }
+
+    /**
+     * Like {@link #set(UInt32, Object)} except that the index is an int and nothing is allocated. Random access implementations should
+     * override this method.
+     * @param index the index to modify
+     * @param value the value to set at the specified index
+     * @return the old value at the given index if 0 &lt;= index &lt; {@link #size()}, null otherwise
+     * @throws UnsupportedOperationException if the implementation does not permit replacing elements of the list
+     */
+    default @Nullable T setOrNull(final int index, final T value) {
+        if (index < 0) {
+            return null;
+        }
+        return this.set(UInt32.asUnsigned(index), value).snd().fromMaybeNullable(null);
+    }
+
+    /**
+     * Like {@link #indexOf(Object)} except that the index is returned as an int and nothing is allocated.
+     * @param o the object to find
+     * @return the least x such that <tt>this.getOrNull(x).equals(o)</tt> if such an x exists, -1 otherwise
+     */
+    default int intIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        final ListIterator<T> liter = this.listIterator();
+        while (liter.hasNext()) {
+            if (o.equals(liter.next())) {
+                return liter.previousIndex();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Like {@link #lastIndexOf(Object)} except that the index is returned as an int and nothing is allocated.
+     * @param o the object to find
+     * @return the greatest x such that <tt>this.getOrNull(x).equals(o)</tt> if such an x exists, -1 otherwise
+     */
+    default int intLastIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        final ListIterator<T> liter = this.listIterator(this.size());
+        while (liter.hasPrevious()) {
+            if (o.equals(liter.previous())) {
+                return liter.nextIndex();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Like {@link #indexOf(Object)} except that the index isn't boxed.
+     * @param value the object to find
+     * @return the least x such that <tt>this.getOrNull(x).equals(value)</tt> if such an x exists, nothing otherwise
+     */
+    default MaybeUInt32 maybeIndexOf(final T value) {
+        return MaybeUInt32.ofIndex(this.intIndexOf(value));
+    }
+
+    /**
+     * Like {@link #lastIndexOf(Object)} except that the index isn't boxed.
+     * @param value the object to find
+     * @return the greatest x such that <tt>this.getOrNull(x).equals(value)</tt> if such an x exists, nothing otherwise
+     */
+    default MaybeUInt32 maybeLastIndexOf(final T value) {
+        return MaybeUInt32.ofIndex(this.intLastIndexOf(value));
+    }
+
+    /**
+     * Copy the elements of this list into the start of the given array. Implementations that keep their elements in arrays should
+     * override this method to copy in bulk.
+     * @param dest the array to copy into. Must be at least as long as this list
+     * @return the number of elements copied
+     * @throws ArrayStoreException if an element of this list can't be stored in dest
+     */
+    default int copyInto(final Object[] dest) {
+        int i = 0;
+        final Iterator<T> iter = this.iterator();
+        while (iter.hasNext()) {
+            dest[i++] = iter.next();
+        }
+        return i;
+    }
+
+    /**
+     * Copy this list into a new array-backed list in one bulk pass over {@link #copyInto(Object[])}. Views that are read repeatedly can be
+     * materialized to stop paying for the indirection of the view on every access.
+     * @return a new list containing the elements of this list in order, which doesn't reflect later changes to this list
+     */
+    default NonNullArrayList<T> materialize() {
+        return NonNullArrayList.adopt(this.toArray());
+    }
+
+    /**
+     * Wrap this list so that it is {@link #materialize() materialized} after it has been read through the wrapper readThreshold times.
+     * @param readThreshold the number of reads to serve from this list before materializing it
+     * @return a list that reads from this list and then from a materialized copy of it
+     * @see CompactingList
+     */
+    default CompactingList<T> autoCompacting(final int readThreshold) {
+        return new CompactingList<>(this, readThreshold);
+    }
+
+    /**
+     * Pass the elements of this list to the given action in order, in chunks of up to chunkSize elements. Each chunk is only valid for the
+     * duration of the call that it is passed to and must not be modified or retained. Implementations may reuse chunks and may pass views
+     * of their internal storage.
+     * @param chunkSize the maximum number of elements in each chunk. Every chunk other than the last has exactly this many elements
+     * @param action the action to perform on each chunk
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    default void forEachChunk(final int chunkSize, final Consumer<? super List<T>> action) {
+        this.forEachChunk(UInt32.ZERO, this.size(), chunkSize, action);
+    }
+
+    /**
+     * Like {@link #forEachChunk(int, Consumer)} except that only the elements from fromIdx, inclusive, to toIdx, exclusive, are passed.
+     * Views of other lists should override this method to delegate to the lists that they are views of.
+     * @param fromIdx the first index of this list to pass
+     * @param toIdx the first index of this list after fromIdx not to pass. Values greater than the size of this list act as the size
+     * @param chunkSize the maximum number of elements in each chunk
+     * @param action the action to perform on each chunk
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    default void forEachChunk(final UInt32 fromIdx, final UInt32 toIdx, final int chunkSize, final Consumer<? super List<T>> action) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Expected positive chunk size, found " + chunkSize); //$NON-NLS-1$
+        }
+        final UInt32 size = this.size();
+        final UInt32 to = size.lessThan(toIdx) ? size : toIdx;
+        if (!fromIdx.lessThan(to)) {
+            return;
+        }
+        final long count = Integer.toUnsignedLong(to.intValue()) - Integer.toUnsignedLong(fromIdx.intValue());
+        final Iterator<List<T>> chunks = Iterators.chunked(this.listIterator(fromIdx), chunkSize, count);
+        while (chunks.hasNext()) {
+            action.accept(chunks.next());
+        }
+    }
+
+    /**
+     * Like {@link #binarySearch(Object, Comparator)} except that the index is returned as an int and nothing is allocated.
+     * @param key the value to search for
+     * @param comparator the order that this list is sorted by
+     * @return the index of an element of this list that compares equal to key if there is one, <tt>-(insertion point) - 1</tt> otherwise,
+     *         where the insertion point is {@link #intLowerBound(Object, Comparator)}
+     */
+    default int intBinarySearch(final T key, final Comparator<? super T> comparator) {
+        final int ret = this.intLowerBound(key, comparator);
+        final T found = this.getOrNull(ret);
+        return found != null && comparator.compare(found, key) == 0 ? ret : -ret - 1;
+    }
+
+    /**
+     * Like {@link #lowerBound(Object, Comparator)} except that the index is returned as an int.
+     * @param key the value to search for
+     * @param comparator the order that this list is sorted by
+     * @return the least index of this list whose element is not less than key, or the size of this list if there is no such index
+     */
+    default int intLowerBound(final T key, final Comparator<? super T> comparator) {
+        return Sorting.bound(this, key, comparator, false);
+    }
+
+    /**
+     * Like {@link #upperBound(Object, Comparator)} except that the index is returned as an int.
+     * @param key the value to search for
+     * @param comparator the order that this list is sorted by
+     * @return the least index of this list whose element is greater than key, or the size of this list if there is no such index
+     */
+    default int intUpperBound(final T key, final Comparator<? super T> comparator) {
+        return Sorting.bound(this, key, comparator, true);
+    }
+
+    /**
+     * Find an element of this list in O(log n) calls to {@link #getOrNull(int)}. This list must be sorted by the given comparator.
+     * @param key the value to search for
+     * @param comparator the order that this list is sorted by
+     * @return the index of an element of this list that compares equal to key if there is one, nothing otherwise. If there are several, the
+     *         least of their indices
+     */
+    default Maybe<UInt32> binarySearch(final T key, final Comparator<? super T> comparator) {
+        final int ret = this.intBinarySearch(key, comparator);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    /**
+     * This list must be sorted by the given comparator.
+     * @param key the value to search for
+     * @param comparator the order that this list is sorted by
+     * @return the index that key would be inserted at to keep this list sorted if it went before the elements equal to it
+     */
+    default UInt32 lowerBound(final T key, final Comparator<? super T> comparator) {
+        return UInt32.asUnsigned(this.intLowerBound(key, comparator));
+    }
+
+    /**
+     * This list must be sorted by the given comparator.
+     * @param key the value to search for
+     * @param comparator the order that this list is sorted by
+     * @return the index that key would be inserted at to keep this list sorted if it went after the elements equal to it
+     */
+    default UInt32 upperBound(final T key, final Comparator<? super T> comparator) {
+        return UInt32.asUnsigned(this.intUpperBound(key, comparator));
+    }
+
+    /**
+     * Stably sort this list in place. Lists of more than a few thousand elements are sorted in parallel on the common fork-join pool. This
+     * function must return this. The default implementation sorts an array of the elements and writes them back through
+     * {@link ListIterator#set(Object)}, so implementations that are backed by arrays should override it to sort their arrays directly.
+     * @param comparator the order to sort this list by
+     * @return this
+     * @throws UnsupportedOperationException if this list doesn't support replacing its elements
+     */
+    @SuppressWarnings("unchecked")
+    default C sort(final Comparator<? super T> comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("Expected Comparator, found null"); //$NON-NLS-1$
+        }
+        final T[] sorted = (T[]) this.toArray();
+        Sorting.parallelSort(sorted, 0, sorted.length, comparator);
+        final ListIterator<T> liter = this.listIterator();
+        for (final T value : sorted) {
+            liter.next();
+            liter.set(value);
+        }
+        return (C) this;
+    }
+
+    /**
+     * Wrap a copy of this list that is sorted by the given comparator and stays sorted as elements are added.
+     * @param comparator the order to keep the returned list in
+     * @return a new sorted list containing the elements of this list
+     * @see SortedList
+     */
+    default SortedList<T> toSorted(final Comparator<? super T> comparator) {
+        return SortedList.adopt(this.materialize().sort(comparator), comparator);
+    }
+
     /**
      * Tries to add the specified value to the end of the list represented by this object. Implementations are required to return this.
      * @param value the value to add to the end of the list
@@ -160,7 +416,8 @@ public interface AnnotatedNonNullList<C extends AnnotatedNonNullList<C, T>, T> /
 
     /**
      * Remove each element x of this list such that p.test(x). This function must return this. For a version of this function that does not
-     * modify this list, see {@link #pureRemoveIf(Predicate)}.
+     * modify this list, see {@link #pureRemoveIf(Predicate)}. Implementations may test the elements of large lists on several threads at
+     * once and in any order, so p must not depend on the order in which it is called.
      * @param p the predicate to use in filtering this list
      * @return this
      */
@@ -199,7 +456,8 @@ public interface AnnotatedNonNullList<C extends AnnotatedNonNullList<C, T>, T> /
 
     /**
      * Remove each element x of this list such that !p.test(x). This function must return this. For a version of this function that does not
-     * modify this list, see {@link #pureRetainIf(Predicate)}.
+     * modify this list, see {@link #pureRetainIf(Predicate)}. As with {@link #removeIf(Predicate)}, p may be tested on several threads at
+     * once.
      * @param p the predicate to use in filtering this list
      * @return this
      */
@@ -219,7 +477,7 @@ public interface AnnotatedNonNullList<C extends AnnotatedNonNullList<C, T>, T> /
      * @return a view of a segment of this list that writes through
      */
     default List<T> subList(final UInt32 fromIdx, final UInt32 toIdx) {
-        return new WrappedAnnotatedNonNullList<>(this.slice(fromIdx, toIdx));
+        return WrappedAnnotatedNonNullList.wrap(this.slice(fromIdx, toIdx));
     }
 
     /**
@@ -238,7 +496,9 @@ public interface AnnotatedNonNullList<C extends AnnotatedNonNullList<C, T>, T> /
      * @return an object array that is identical to the current state of this list
      */
     default Object[] toArray() {
-        return this.stream().toArray();
+        final Object[] ret = new Object[this.size().intValue()];
+        this.copyInto(ret);
+        return ret;
     }
 
     /**
@@ -247,7 +507,9 @@ public interface AnnotatedNonNullList<C extends AnnotatedNonNullList<C, T>, T> /
      * @return a new array representing this list
      */
     default <A> A[] toArray(final IntFunction<A[]> arrayGenerator) {
-        return this.stream().toArray(arrayGenerator);
+        final A[] ret = arrayGenerator.apply(this.size().intValue());
+        this.copyInto(ret);
+        return ret;
     }
 
     /**
@@ -288,6 +550,6 @@ public interface AnnotatedNonNullList<C extends AnnotatedNonNullList<C, T>, T> /
      * @return a {@link java.util.List} which represents the same sequence of objects
      */
     default List<T> asUnannotatedList() {
-        return new WrappedAnnotatedNonNullList<>(this);
+        return WrappedAnnotatedNonNullList.wrap(this);
     }
 }
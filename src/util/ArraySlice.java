@@ -0,0 +1,464 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import util.number.UInt32;
+
+/**
+ * A fixed size view of a range of an array. Like {@link Slice}, non-structural mutations write through to the array and structural
+ * mutations fail unless they would leave the size unchanged. Element access goes straight to the array and {@link #slice(int, int)} shares
+ * the array instead of nesting views. The <tt>pure*</tt> methods return slices of new arrays. The viewed range of the array must not
+ * contain null.
+ * @param <T> the type of the elements of the array
+ */
+public final class ArraySlice<T> implements AnnotatedNonNullList<ArraySlice<T>, T>, RandomAccess {
+    private final T[] array;
+    private final int offset;
+    private final int length;
+
+    private ArraySlice(final T[] array, final int offset, final int length) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @param array the array to view. Must not contain null
+     * @return a slice of the whole array
+     */
+    public static <T> ArraySlice<T> of(final T[] array) {
+        if (array == null) {
+            throw new IllegalArgumentException("Expected array, found null"); //$NON-NLS-1$
+        }
+        return new ArraySlice<>(array, 0, array.length);
+    }
+
+    /**
+     * @param array the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive. The range must not contain null
+     * @return a slice of the given range of the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static <T> ArraySlice<T> of(final T[] array, final int from, final int to) {
+        if (array == null) {
+            throw new IllegalArgumentException("Expected array, found null"); //$NON-NLS-1$
+        }
+        Objects.checkFromToIndex(from, to, array.length);
+        return new ArraySlice<>(array, from, to - from);
+    }
+
+    private static <T> T checked(final T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected element, found null"); //$NON-NLS-1$
+        }
+        return value;
+    }
+
+    /**
+     * @return the array that this slice is a view of
+     */
+    public T[] array() {
+        return this.array;
+    }
+
+    /**
+     * @return the index of {@link #array()} that index 0 of this slice refers to
+     */
+    public int offset() {
+        return this.offset;
+    }
+
+    /**
+     * @return the number of elements in this slice
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * @param from the first index of this slice in the returned slice, inclusive
+     * @param to the last index of this slice in the returned slice, exclusive
+     * @return a slice of the same array that covers the given range of this slice
+     * @throws IndexOutOfBoundsException if the range is not within this slice
+     */
+    public ArraySlice<T> slice(final int from, final int to) {
+        Objects.checkFromToIndex(from, to, this.length);
+        return new ArraySlice<>(this.array, this.offset + from, to - from);
+    }
+
+    // Fails unless p matches no element, in which case removing the matching elements doesn't change the size of this slice
+    private boolean anyMatch(final Predicate<? super T> p) {
+        for (int i = 0; i < this.length; i++) {
+            if (p.test(this.array[this.offset + i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ArraySlice<T> removeNone(final Predicate<? super T> p) {
+        if (this.anyMatch(p)) {
+            throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+        }
+        return this;
+    }
+
+    private ArraySlice<T> withoutIndex(final int index) {
+        final T[] ret = Arrays.copyOfRange(this.array, this.offset, this.offset + this.length - 1);
+        System.arraycopy(this.array, this.offset + index + 1, ret, index, this.length - index - 1);
+        return new ArraySlice<>(ret, 0, this.length - 1);
+    }
+
+    @Override
+    public UInt32 size() {
+        return UInt32.asUnsigned(this.length);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return this.intIndexOf(object) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        final Map<Object, Integer> counts = new HashMap<>();
+        for (final Object o : c) {
+            counts.merge(o, 1, Integer::sum);
+        }
+        for (int i = 0; i < this.length && !counts.isEmpty(); i++) {
+            counts.computeIfPresent(this.array[this.offset + i], (none, count) -> count == 1 ? null : count - 1);
+        }
+        return counts.isEmpty();
+    }
+
+    @Override
+    public int intIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        for (int i = 0; i < this.length; i++) {
+            if (o.equals(this.array[this.offset + i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int intLastIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        for (int i = this.length - 1; i >= 0; i--) {
+            if (o.equals(this.array[this.offset + i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Maybe<UInt32> indexOf(final T value) {
+        final int ret = this.intIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<UInt32> lastIndexOf(final T value) {
+        final int ret = this.intLastIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<T> get(final UInt32 index) {
+        return Maybe.maybe(this.getOrNull(index.intValue()));
+    }
+
+    @Override
+    public @Nullable T getOrNull(final int index) {
+        if (index < 0 || index >= this.length) {
+            return null;
+        }
+        return this.array[this.offset + index];
+    }
+
+    @Override
+    public @Nullable T setOrNull(final int index, final T value) {
+        if (index < 0 || index >= this.length) {
+            return null;
+        }
+        final T ret = this.array[this.offset + index];
+        this.array[this.offset + index] = ArraySlice.checked(value);
+        return ret;
+    }
+
+    @Override
+    public int copyInto(final Object[] dest) {
+        System.arraycopy(this.array, this.offset, dest, 0, this.length);
+        return this.length;
+    }
+
+    /**
+     * Sorts the range of the backing array that this slice covers.
+     */
+    @Override
+    public ArraySlice<T> sort(final Comparator<? super T> comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("Expected Comparator, found null"); //$NON-NLS-1$
+        }
+        Sorting.parallelSort(this.array, this.offset, this.offset + this.length, comparator);
+        return this;
+    }
+
+    @Override
+    public ArraySlice<T> add(final T value) {
+        throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+    }
+
+    @Override
+    public ArraySlice<T> insert(final UInt32 index, final T value) {
+        throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+    }
+
+    @Override
+    public ArraySlice<T> addAll(final Collection<? extends T> c) {
+        if (c.size() == 0) {
+            return this;
+        }
+        throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+    }
+
+    @Override
+    public ArraySlice<T> addAll(final UInt32 index, final Collection<? extends T> c) {
+        if (c.size() == 0) {
+            return this;
+        }
+        throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+    }
+
+    @Override
+    public Pair<ArraySlice<T>, Maybe<T>> set(final UInt32 index, final T value) {
+        return new Pair<>(this, Maybe.maybe(this.setOrNull(index.intValue(), value)));
+    }
+
+    @Override
+    public Pair<ArraySlice<T>, Maybe<T>> remove(final UInt32 index) {
+        throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+    }
+
+    @Override
+    public Pair<ArraySlice<T>, Maybe<T>> remove(final Object o) {
+        throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+    }
+
+    @Override
+    public Pair<ArraySlice<T>, Maybe<T>> pureRemove(final UInt32 index) {
+        final int i = index.intValue();
+        if (i < 0 || i >= this.length) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        return new Pair<>(this.withoutIndex(i), Maybe.just(this.array[this.offset + i]));
+    }
+
+    @Override
+    public Pair<ArraySlice<T>, Maybe<T>> pureRemove(final Object o) {
+        final int i = this.intIndexOf(o);
+        if (i < 0) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        return new Pair<>(this.withoutIndex(i), Maybe.just(this.array[this.offset + i]));
+    }
+
+    @Override
+    public ArraySlice<T> removeAll(final Collection<?> c) {
+        return this.removeNone(BulkRemoval.membership(c));
+    }
+
+    @Override
+    public ArraySlice<T> pureRemoveAll(final Collection<?> c) {
+        return this.pureRemoveIf(BulkRemoval.membership(c));
+    }
+
+    @Override
+    public ArraySlice<T> removeIf(final Predicate<? super T> p) {
+        return this.removeNone(p);
+    }
+
+    @Override
+    public ArraySlice<T> clear() {
+        return this.removeNone(none -> true);
+    }
+
+    @Override
+    public ArraySlice<T> pureRemoveIf(final Predicate<? super T> p) {
+        final T[] kept = Arrays.copyOfRange(this.array, this.offset, this.offset + this.length);
+        final long[] marks = BulkRemoval.mark(0, this.length, i -> p.test(kept[i]));
+        return new ArraySlice<>(kept, 0, marks == null ? this.length : BulkRemoval.compact(kept, 0, this.length, marks));
+    }
+
+    @Override
+    public ArraySlice<T> pureClear() {
+        return new ArraySlice<>(Arrays.copyOf(this.array, 0), 0, 0);
+    }
+
+    @Override
+    public ArraySlice<T> retainAll(final Collection<?> c) {
+        return this.removeNone(BulkRemoval.membership(c).negate());
+    }
+
+    @Override
+    public ArraySlice<T> retainIf(final Predicate<? super T> p) {
+        return this.removeNone(p.negate());
+    }
+
+    @Override
+    public ArraySlice<T> pureRetainIf(final Predicate<? super T> p) {
+        return this.pureRemoveIf(p.negate());
+    }
+
+    @Override
+    public List<T> subList(final UInt32 fromIdx, final UInt32 toIdx) {
+        final int to = toIdx.intValue() < 0 || toIdx.intValue() > this.length ? this.length : toIdx.intValue();
+        final int from = fromIdx.intValue() < 0 || fromIdx.intValue() > to ? to : fromIdx.intValue();
+        return WrappedAnnotatedNonNullList.wrap(this.slice(from, to));
+    }
+
+    /**
+     * Chunks are {@link Arrays#asList(Object...) list views} of ranges of the array, so nothing is copied.
+     */
+    @Override
+    public void forEachChunk(final UInt32 fromIdx, final UInt32 toIdx, final int chunkSize, final Consumer<? super List<T>> action) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Expected positive chunk size, found " + chunkSize); //$NON-NLS-1$
+        }
+        final int to = toIdx.intValue() < 0 || toIdx.intValue() > this.length ? this.length : toIdx.intValue();
+        final int from = fromIdx.intValue() < 0 || fromIdx.intValue() > to ? to : fromIdx.intValue();
+        final List<T> all = Arrays.asList(this.array);
+        for (int start = from; start < to; start += chunkSize) {
+            final int end = (int) Math.min(to, (long) start + chunkSize);
+            action.accept(all.subList(this.offset + start, this.offset + end));
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.listIterator(UInt32.ZERO);
+    }
+
+    @Override
+    public ListIterator<T> listIterator(final UInt32 startIndex) {
+        final int start = startIndex.intValue();
+        return new ListIterator<>() {
+            private int cursor = start < 0 || start > ArraySlice.this.length ? ArraySlice.this.length : start;
+            private int lastReturned = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < ArraySlice.this.length;
+            }
+
+            @Override
+            public @NonNull T next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = this.cursor++;
+                return ArraySlice.this.array[ArraySlice.this.offset + this.lastReturned];
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return this.cursor > 0;
+            }
+
+            @Override
+            public @NonNull T previous() {
+                if (!this.hasPrevious()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = --this.cursor;
+                return ArraySlice.this.array[ArraySlice.this.offset + this.lastReturned];
+            }
+
+            @Override
+            public int nextIndex() {
+                return this.cursor;
+            }
+
+            @Override
+            public int previousIndex() {
+                return this.cursor - 1;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+            }
+
+            @Override
+            public void set(@NonNull final T e) {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                ArraySlice.this.setOrNull(this.lastReturned, e);
+            }
+
+            @Override
+            public void add(@NonNull final T e) {
+                throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ArraySlice)) {
+            return false;
+        }
+        final ArraySlice<?> other = (ArraySlice<?>) o;
+        return Arrays.equals(this.array, this.offset, this.offset + this.length, other.array, other.offset, other.offset + other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int ret = 1;
+        for (int i = this.offset; i < this.offset + this.length; i++) {
+            ret = 31 * ret + this.array[i].hashCode();
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner ret = new StringJoiner(", ", "[", "]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (int i = this.offset; i < this.offset + this.length; i++) {
+            ret.add(this.array[i].toString());
+        }
+        return ret.toString();
+    }
+}
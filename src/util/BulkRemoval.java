@@ -0,0 +1,233 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * The bulk removal shared by the list implementations. The elements to remove are first marked in a bitset, bit i of word i / 64 for the
+ * element at offset i of the range, and the survivors are then moved in one pass of {@link System#arraycopy(Object, int, Object, int, int)}
+ * calls, one per run of survivors. Since nothing is moved until every element has been tested, a predicate that throws leaves the list
+ * unchanged.
+ */
+final class BulkRemoval {
+    // Ranges at least this long are tested on the common fork-join pool
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    // Collections larger than this are hashed once instead of being searched for every element
+    private static final int HASH_THRESHOLD = 16;
+
+    private BulkRemoval() {
+        throw new UnsupportedOperationException("Can't instantiate utility class"); //$NON-NLS-1$
+    }
+
+    /**
+     * Tests the indices of a range of words of the bitset, splitting it in half until it is short enough to test sequentially.
+     */
+    private static final class Mark extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] marks;
+        private final int from; // The index that bit 0 of marks corresponds to
+        private final int to;
+        private final int fromWord;
+        private final int toWord;
+        private final IntPredicate removeAt;
+
+        Mark(final long[] marks, final int from, final int to, final int fromWord, final int toWord, final IntPredicate removeAt) {
+            this.marks = marks;
+            this.from = from;
+            this.to = to;
+            this.fromWord = fromWord;
+            this.toWord = toWord;
+            this.removeAt = removeAt;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.toWord - this.fromWord <= BulkRemoval.PARALLEL_THRESHOLD >>> 6) {
+                BulkRemoval.markWords(this.marks, this.from, this.to, this.fromWord, this.toWord, this.removeAt);
+                return;
+            }
+            final int mid = this.fromWord + this.toWord >>> 1;
+            RecursiveAction.invokeAll(new Mark(this.marks, this.from, this.to, this.fromWord, mid, this.removeAt),
+                    new Mark(this.marks, this.from, this.to, mid, this.toWord, this.removeAt));
+        }
+    }
+
+    // Each word is written by exactly one thread
+    private static void markWords(final long[] marks, final int from, final int to, final int fromWord, final int toWord,
+            final IntPredicate removeAt) {
+        for (int word = fromWord; word < toWord; word++) {
+            final int start = from + (word << 6);
+            final int end = Math.min(start + 64, to);
+            long bits = 0;
+            for (int i = start; i < end; i++) {
+                if (removeAt.test(i)) {
+                    bits |= 1L << i - start;
+                }
+            }
+            marks[word] = bits;
+        }
+    }
+
+    /**
+     * Test every index of a range. Ranges of more than tens of thousands of indices are tested on the common fork-join pool, so removeAt
+     * may be called on several threads at once and in any order.
+     * @param from the first index to test, inclusive
+     * @param to the last index to test, exclusive
+     * @param removeAt whether to remove the element at an index
+     * @return a bitset whose bit i is set iff <tt>removeAt.test(from + i)</tt>, or null if no bit is set
+     */
+    static @Nullable long[] mark(final int from, final int to, final IntPredicate removeAt) {
+        if (from >= to) {
+            return null;
+        }
+        final long[] marks = new long[to - from + 63 >>> 6];
+        if (to - from < BulkRemoval.PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            BulkRemoval.markWords(marks, from, to, 0, marks.length, removeAt);
+        } else {
+            ForkJoinPool.commonPool().invoke(new Mark(marks, from, to, 0, marks.length, removeAt));
+        }
+        for (final long word : marks) {
+            if (word != 0) {
+                return marks;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param marks a bitset
+     * @return the number of bits set in marks
+     */
+    static int count(final long[] marks) {
+        int ret = 0;
+        for (final long word : marks) {
+            ret += Long.bitCount(word);
+        }
+        return ret;
+    }
+
+    /**
+     * @param marks a bitset
+     * @param from the first bit to check, inclusive
+     * @param to the last bit to check, exclusive
+     * @return whether any bit in the range is set
+     */
+    static boolean anyMarked(final long[] marks, final int from, final int to) {
+        if (from >= to) {
+            return false;
+        }
+        final int lastWord = to - 1 >>> 6;
+        for (int word = from >>> 6; word <= lastWord; word++) {
+            long bits = marks[word];
+            if (word == from >>> 6) {
+                bits &= -1L << from;
+            }
+            if (word == lastWord) {
+                bits &= -1L >>> -to;
+            }
+            if (bits != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy the elements of an array whose bits in a range of a bitset are clear to another array, or to the same array if the destination
+     * is not after the source.
+     * @param src the array to copy from
+     * @param srcPos the index of src that bit 0 of marks corresponds to
+     * @param marks the elements to skip
+     * @param fromBit the first bit of the range, inclusive
+     * @param toBit the last bit of the range, exclusive
+     * @param dest the array to copy to. May be of any array type that src can be copied to
+     * @param destPos the index of dest to copy the first survivor to
+     * @return the index of dest after the last survivor
+     */
+    static int copySurvivors(final Object src, final int srcPos, final long[] marks, final int fromBit, final int toBit, final Object dest,
+            final int destPos) {
+        int pos = destPos;
+        int start = BulkRemoval.nextClear(marks, fromBit, toBit);
+        while (start < toBit) {
+            final int end = BulkRemoval.nextSet(marks, start, toBit);
+            System.arraycopy(src, srcPos + start, dest, pos, end - start);
+            pos += end - start;
+            start = BulkRemoval.nextClear(marks, end, toBit);
+        }
+        return pos;
+    }
+
+    /**
+     * Move the elements of a range of an array whose bits are clear to the start of the range.
+     * @param array the array to compact
+     * @param from the first index of the range, which corresponds to bit 0 of marks
+     * @param to the last index of the range, exclusive
+     * @param marks the elements to remove
+     * @return the index of the array after the last survivor
+     */
+    static int compact(final Object array, final int from, final int to, final long[] marks) {
+        return BulkRemoval.copySurvivors(array, from, marks, 0, to - from, array, from);
+    }
+
+    /**
+     * @param marks a bitset
+     * @param from the first bit to check
+     * @param limit the bit to stop at
+     * @return the least set bit of marks at or after from, or limit if there is none before it
+     */
+    static int nextSet(final long[] marks, final int from, final int limit) {
+        int word = from >>> 6;
+        long bits = marks[word] & -1L << from;
+        while (bits == 0) {
+            if (++word == marks.length) {
+                return limit;
+            }
+            bits = marks[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(bits), limit);
+    }
+
+    /**
+     * @param marks a bitset
+     * @param from the first bit to check
+     * @param limit the bit to stop at
+     * @return the least clear bit of marks at or after from, or limit if there is none before it
+     */
+    static int nextClear(final long[] marks, final int from, final int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        int word = from >>> 6;
+        long bits = ~marks[word] & -1L << from;
+        while (bits == 0) {
+            if (++word == marks.length) {
+                return limit;
+            }
+            bits = ~marks[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(bits), limit);
+    }
+
+    /**
+     * @param c a collection
+     * @return a predicate that tests whether c contains its argument. If c is a large collection other than a set, it is copied into a
+     *         hash set once so that each test takes constant time
+     */
+    static Predicate<Object> membership(final Collection<?> c) {
+        if (c == null) {
+            throw new IllegalArgumentException("Expected Collection, found null"); //$NON-NLS-1$
+        }
+        if (c instanceof Set || c.size() <= BulkRemoval.HASH_THRESHOLD) {
+            return c::contains;
+        }
+        return new HashSet<>(c)::contains;
+    }
+}
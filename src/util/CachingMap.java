@@ -0,0 +1,1024 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A thread-safe map that evicts mappings to keep the total weight of its mappings under a bound, and optionally expires mappings a fixed
+ * time after they were written or last read. Instances are created by a {@link Builder}.
+ * <p>
+ * Mappings are held in a {@link ConcurrentHashMap}, so reads never lock. Each read is recorded in one of several small buffers, chosen by
+ * the reading thread, and the buffers are replayed against the eviction policy by whichever thread next holds the lock that guards it; when
+ * a buffer is full, further reads aren't recorded until it has been replayed. Writes update the policy immediately. Expired mappings are
+ * never returned, but they are only removed when they are read or reach the front of the policy's queues, so {@link #size()} may count
+ * them.
+ * <p>
+ * {@link #computeIfAbsent(Object, Function)} computes the value of each key at most once however many threads ask for it at once, the other
+ * threads waiting for the value. If the builder was given a loader, {@link #get(Object)} loads absent keys the same way, which makes this
+ * map suitable as the backing map of a {@link WrapperMap} that reads through to an expensive lookup.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class CachingMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    // The queues that a node can be in
+    private static final int NONE = 0;
+    private static final int WINDOW = 1;
+    private static final int PROBATION = 2;
+    private static final int PROTECTED = 3;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final Policy policy;
+    private final long maximumWeight;
+    private final long windowMaximum; // The greatest total weight of the window before its oldest nodes move to probation
+    private final long protectedMaximum; // The greatest total weight of the protected queue before its oldest nodes are demoted
+    @Nullable
+    private final ToIntBiFunction<? super K, ? super V> weigher; // Null if every mapping weighs 1
+    private final long expireAfterWrite; // In nanoseconds, or 0 for never
+    private final long expireAfterAccess; // In nanoseconds, or 0 for never
+    @Nullable
+    private final Function<? super K, ? extends V> loader;
+    private final LongSupplier ticker;
+
+    private final ReentrantLock lock = new ReentrantLock(); // Guards everything below, apart from the statistics
+    private final ReadBuffer<K, V> readBuffer = new ReadBuffer<>();
+    private final LinkedDeque<K, V> window = new LinkedDeque<>(false);
+    private final LinkedDeque<K, V> probation = new LinkedDeque<>(false); // Every node when the policy is LRU
+    private final LinkedDeque<K, V> protectedQueue = new LinkedDeque<>(false);
+    private final LinkedDeque<K, V> writeOrder = new LinkedDeque<>(true); // Only used when mappings expire after write
+    @Nullable
+    private final FrequencySketch sketch; // Null unless the policy is W-TinyLFU
+    private long totalWeight = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * The ways of choosing which mapping to evict.
+     */
+    public enum Policy {
+        /**
+         * Evict the least recently used mapping.
+         */
+        LRU,
+        /**
+         * Window TinyLFU: new mappings enter a small LRU window, and a mapping leaving the window only displaces the least recently used
+         * mapping of the main space if its key has been used more often recently, as estimated by a compact frequency sketch. The main
+         * space is split into a probation segment and a protected segment for mappings that have been read since entering it. This
+         * resists scans and one-off lookups far better than LRU.
+         */
+        W_TINY_LFU
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long writeTime;
+        volatile long accessTime;
+        // The rest is guarded by the lock
+        int queue = CachingMap.NONE;
+        @Nullable
+        Node<K, V> prev = null;
+        @Nullable
+        Node<K, V> next = null;
+        @Nullable
+        Node<K, V> writePrev = null;
+        @Nullable
+        Node<K, V> writeNext = null;
+
+        Node(final K key, final V value, final int weight, final long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes through either their access links or their write links.
+     */
+    private static final class LinkedDeque<K, V> {
+        private final boolean byWrite;
+        @Nullable
+        Node<K, V> head = null;
+        @Nullable
+        Node<K, V> tail = null;
+        long weight = 0;
+
+        LinkedDeque(final boolean byWrite) {
+            this.byWrite = byWrite;
+        }
+
+        private @Nullable Node<K, V> prev(final Node<K, V> node) {
+            return this.byWrite ? node.writePrev : node.prev;
+        }
+
+        private @Nullable Node<K, V> next(final Node<K, V> node) {
+            return this.byWrite ? node.writeNext : node.next;
+        }
+
+        private void link(@Nullable final Node<K, V> prev, @Nullable final Node<K, V> next) {
+            if (prev == null) {
+                this.head = next;
+            } else if (this.byWrite) {
+                prev.writeNext = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                this.tail = prev;
+            } else if (this.byWrite) {
+                next.writePrev = prev;
+            } else {
+                next.prev = prev;
+            }
+        }
+
+        void addLast(final Node<K, V> node) {
+            this.link(this.tail, node);
+            this.link(node, null);
+            this.weight += node.weight;
+        }
+
+        void remove(final Node<K, V> node) {
+            final Node<K, V> prev = this.prev(node);
+            final Node<K, V> next = this.next(node);
+            this.link(prev, next);
+            if (this.byWrite) {
+                node.writePrev = null;
+                node.writeNext = null;
+            } else {
+                node.prev = null;
+                node.next = null;
+            }
+            this.weight -= node.weight;
+        }
+
+        void moveToLast(final Node<K, V> node) {
+            if (this.tail != node) {
+                this.remove(node);
+                this.addLast(node);
+            }
+        }
+
+        void clear() {
+            this.head = null;
+            this.tail = null;
+            this.weight = 0;
+        }
+    }
+
+    /**
+     * Striped lossy ring buffers of nodes that have been read. Each stripe is written by any thread that hashes to it and read only by the
+     * holder of the lock.
+     */
+    private static final class ReadBuffer<K, V> {
+        private static final int STRIPE_SIZE = 16;
+        private static final int STRIPE_MASK = ReadBuffer.STRIPE_SIZE - 1;
+        private static final int PAD = 8; // The spacing of the counters of different stripes, to keep them on different cache lines
+
+        private final int stripes;
+        private final AtomicReferenceArray<Node<K, V>> slots;
+        private final AtomicLongArray writes;
+        private final AtomicLongArray reads;
+
+        ReadBuffer() {
+            final int cpus = Runtime.getRuntime().availableProcessors();
+            this.stripes = Math.min(64, Integer.highestOneBit(4 * cpus - 1) << 1);
+            this.slots = new AtomicReferenceArray<>(this.stripes * ReadBuffer.STRIPE_SIZE);
+            this.writes = new AtomicLongArray(this.stripes * ReadBuffer.PAD);
+            this.reads = new AtomicLongArray(this.stripes * ReadBuffer.PAD);
+        }
+
+        /**
+         * @return whether the stripe that the node was offered to is full and should be drained
+         */
+        boolean offer(final Node<K, V> node) {
+            int h = System.identityHashCode(Thread.currentThread());
+            h ^= h >>> 16;
+            final int stripe = h & this.stripes - 1;
+            final int counter = stripe * ReadBuffer.PAD;
+            final long written = this.writes.get(counter);
+            final long pending = written - this.reads.get(counter);
+            if (pending >= ReadBuffer.STRIPE_SIZE) {
+                return true;
+            }
+            if (!this.writes.compareAndSet(counter, written, written + 1)) {
+                // Another thread is writing to this stripe, so this read goes unrecorded rather than waiting
+                return false;
+            }
+            this.slots.lazySet(stripe * ReadBuffer.STRIPE_SIZE + (int) (written & ReadBuffer.STRIPE_MASK), node);
+            return pending + 1 >= ReadBuffer.STRIPE_SIZE;
+        }
+
+        void drain(final CachingMap<K, V> map) {
+            for (int stripe = 0; stripe < this.stripes; stripe++) {
+                final int counter = stripe * ReadBuffer.PAD;
+                final long written = this.writes.get(counter);
+                long read = this.reads.get(counter);
+                for (; read < written; read++) {
+                    final int index = stripe * ReadBuffer.STRIPE_SIZE + (int) (read & ReadBuffer.STRIPE_MASK);
+                    final Node<K, V> node = this.slots.get(index);
+                    if (node == null) {
+                        // The writer has claimed the slot but not filled it yet
+                        break;
+                    }
+                    this.slots.lazySet(index, null);
+                    map.onAccess(node);
+                }
+                this.reads.lazySet(counter, read);
+            }
+        }
+    }
+
+    /**
+     * A count-min sketch of the popularity of keys, with four 4-bit counters per key in a table of longs. Every counter is halved once
+     * enough keys have been counted, so the sketch favours recent popularity.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+        private static final int MAX_LENGTH = 1 << 20;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions = 0;
+
+        FrequencySketch(final long expectedSize) {
+            final int size = (int) Math.max(16, Math.min(expectedSize, FrequencySketch.MAX_LENGTH));
+            this.table = new long[Integer.highestOneBit(size - 1) << 1];
+            this.sampleSize = 10 * size;
+        }
+
+        private static int spread(final int hash) {
+            int x = (hash >>> 16 ^ hash) * 0x45d9f3b;
+            x = (x >>> 16 ^ x) * 0x45d9f3b;
+            return x >>> 16 ^ x;
+        }
+
+        private int indexOf(final int hash, final int i) {
+            long h = (hash + FrequencySketch.SEEDS[i]) * FrequencySketch.SEEDS[i];
+            h += h >>> 32;
+            return (int) h & this.table.length - 1;
+        }
+
+        int frequency(final Object key) {
+            final int hash = FrequencySketch.spread(key.hashCode());
+            final int start = (hash & 3) << 2;
+            int ret = 15;
+            for (int i = 0; i < 4; i++) {
+                final int count = (int) (this.table[this.indexOf(hash, i)] >>> (start + i << 2) & 0xfL);
+                ret = Math.min(ret, count);
+            }
+            return ret;
+        }
+
+        void increment(final Object key) {
+            final int hash = FrequencySketch.spread(key.hashCode());
+            final int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                final int index = this.indexOf(hash, i);
+                final int offset = start + i << 2;
+                final long mask = 0xfL << offset;
+                if ((this.table[index] & mask) != mask) {
+                    this.table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++this.additions == this.sampleSize) {
+                int odd = 0;
+                for (int i = 0; i < this.table.length; i++) {
+                    odd += Long.bitCount(this.table[i] & FrequencySketch.ONE_MASK);
+                    this.table[i] = this.table[i] >>> 1 & FrequencySketch.RESET_MASK;
+                }
+                this.additions = this.additions - (odd >>> 2) >>> 1;
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of a {@link CachingMap}.
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long loadCount;
+        private final long evictionCount;
+
+        Stats(final long hitCount, final long missCount, final long loadCount, final long evictionCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadCount = loadCount;
+            this.evictionCount = evictionCount;
+        }
+
+        /**
+         * @return the number of lookups that found a value
+         */
+        public long hitCount() {
+            return this.hitCount;
+        }
+
+        /**
+         * @return the number of lookups that found no value, including those that then loaded one
+         */
+        public long missCount() {
+            return this.missCount;
+        }
+
+        /**
+         * @return the number of values computed by {@link CachingMap#computeIfAbsent(Object, Function)} or the loader
+         */
+        public long loadCount() {
+            return this.loadCount;
+        }
+
+        /**
+         * @return the number of mappings removed because of the weight bound or because they expired
+         */
+        public long evictionCount() {
+            return this.evictionCount;
+        }
+
+        /**
+         * @return the proportion of lookups that found a value, or 1 if there have been no lookups
+         */
+        public double hitRate() {
+            final long requests = this.hitCount + this.missCount;
+            return requests == 0 ? 1.0 : (double) this.hitCount / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats[hits=" + this.hitCount + ", misses=" + this.missCount //$NON-NLS-1$ //$NON-NLS-2$
+                    + ", loads=" + this.loadCount + ", evictions=" + this.evictionCount + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+
+    /**
+     * A builder for {@link CachingMap}s. By default a map is unbounded, never expires mappings and uses {@link Policy#W_TINY_LFU}.
+     * @param <K> the key type of the map to build
+     * @param <V> the value type of the map to build
+     */
+    public static final class Builder<K, V> {
+        long maximumWeight = Long.MAX_VALUE;
+        @Nullable
+        ToIntBiFunction<? super K, ? super V> weigher = null;
+        Policy policy = Policy.W_TINY_LFU;
+        long expireAfterWrite = 0;
+        long expireAfterAccess = 0;
+        @Nullable
+        Function<? super K, ? extends V> loader = null;
+        LongSupplier ticker = System::nanoTime;
+
+        /**
+         * Create a builder with the default settings.
+         */
+        public Builder() {
+            // Nothing to do
+        }
+
+        /**
+         * @param size the greatest number of mappings that the map may hold
+         * @return this
+         * @throws IllegalArgumentException if size is negative
+         */
+        public Builder<K, V> maximumSize(final long size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Expected non-negative size, found " + size); //$NON-NLS-1$
+            }
+            this.maximumWeight = size;
+            this.weigher = null;
+            return this;
+        }
+
+        /**
+         * @param weight the greatest total weight of the mappings that the map may hold
+         * @param weigherFunc the weight of a mapping, which must not be negative. It is computed once, when the mapping is written
+         * @return this
+         * @throws IllegalArgumentException if weight is negative or weigherFunc is null
+         */
+        public Builder<K, V> maximumWeight(final long weight, final ToIntBiFunction<? super K, ? super V> weigherFunc) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Expected non-negative weight, found " + weight); //$NON-NLS-1$
+            }
+            if (weigherFunc == null) {
+                throw new IllegalArgumentException("Expected ToIntBiFunction, found null"); //$NON-NLS-1$
+            }
+            this.maximumWeight = weight;
+            this.weigher = weigherFunc;
+            return this;
+        }
+
+        /**
+         * @param evictionPolicy the way of choosing which mapping to evict
+         * @return this
+         * @throws IllegalArgumentException if evictionPolicy is null
+         */
+        public Builder<K, V> policy(final Policy evictionPolicy) {
+            if (evictionPolicy == null) {
+                throw new IllegalArgumentException("Expected Policy, found null"); //$NON-NLS-1$
+            }
+            this.policy = evictionPolicy;
+            return this;
+        }
+
+        /**
+         * @param duration how long after a mapping is written it expires, or zero for never
+         * @return this
+         * @throws IllegalArgumentException if duration is null or negative
+         */
+        public Builder<K, V> expireAfterWrite(final Duration duration) {
+            this.expireAfterWrite = Builder.nanos(duration);
+            return this;
+        }
+
+        /**
+         * @param duration how long after a mapping is last read or written it expires, or zero for never
+         * @return this
+         * @throws IllegalArgumentException if duration is null or negative
+         */
+        public Builder<K, V> expireAfterAccess(final Duration duration) {
+            this.expireAfterAccess = Builder.nanos(duration);
+            return this;
+        }
+
+        private static long nanos(final Duration duration) {
+            if (duration == null) {
+                throw new IllegalArgumentException("Expected Duration, found null"); //$NON-NLS-1$
+            }
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException("Expected non-negative duration, found " + duration); //$NON-NLS-1$
+            }
+            return duration.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : duration.toNanos();
+        }
+
+        /**
+         * @param func the function that {@link CachingMap#get(Object)} computes the values of absent keys with. Returning null leaves the
+         *            key absent
+         * @return this
+         * @throws IllegalArgumentException if func is null
+         */
+        public Builder<K, V> loader(final Function<? super K, ? extends V> func) {
+            if (func == null) {
+                throw new IllegalArgumentException("Expected Function, found null"); //$NON-NLS-1$
+            }
+            this.loader = func;
+            return this;
+        }
+
+        /**
+         * @param source the source of the current time in nanoseconds, which is {@link System#nanoTime()} by default
+         * @return this
+         * @throws IllegalArgumentException if source is null
+         */
+        public Builder<K, V> ticker(final LongSupplier source) {
+            if (source == null) {
+                throw new IllegalArgumentException("Expected LongSupplier, found null"); //$NON-NLS-1$
+            }
+            this.ticker = source;
+            return this;
+        }
+
+        /**
+         * @return a new empty map with the settings of this builder
+         */
+        public CachingMap<K, V> build() {
+            return new CachingMap<>(this);
+        }
+    }
+
+    CachingMap(final Builder<K, V> builder) {
+        this.policy = builder.policy;
+        this.maximumWeight = builder.maximumWeight;
+        final long mainMaximum = this.maximumWeight - this.maximumWeight / 100;
+        this.windowMaximum = this.maximumWeight - mainMaximum;
+        this.protectedMaximum = mainMaximum - mainMaximum / 5;
+        this.weigher = builder.weigher;
+        this.expireAfterWrite = builder.expireAfterWrite;
+        this.expireAfterAccess = builder.expireAfterAccess;
+        this.loader = builder.loader;
+        this.ticker = builder.ticker;
+        final boolean bounded = this.maximumWeight != Long.MAX_VALUE;
+        this.sketch = this.policy == Policy.W_TINY_LFU && bounded ? new FrequencySketch(this.maximumWeight) : null;
+    }
+
+    /**
+     * @param <K> the key type of the map to build
+     * @param <V> the value type of the map to build
+     * @return a new builder with the default settings
+     */
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    private static <T> T checked(@Nullable final T value, final String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected " + name + ", found null"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return value;
+    }
+
+    private boolean expires() {
+        return this.expireAfterWrite != 0 || this.expireAfterAccess != 0;
+    }
+
+    private long now() {
+        return this.expires() ? this.ticker.getAsLong() : 0;
+    }
+
+    private boolean isExpired(final Node<K, V> node, final long now) {
+        return this.expireAfterWrite != 0 && now - node.writeTime >= this.expireAfterWrite
+                || this.expireAfterAccess != 0 && now - node.accessTime >= this.expireAfterAccess;
+    }
+
+    private Node<K, V> newNode(final K key, final V value, final long now) {
+        final int weight = this.weigher == null ? 1 : this.weigher.applyAsInt(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Expected non-negative weight, found " + weight); //$NON-NLS-1$
+        }
+        return new Node<>(key, value, weight, now);
+    }
+
+    // Policy maintenance, which must only be called while holding the lock
+
+    void onAccess(final Node<K, V> node) {
+        if (node.queue == CachingMap.NONE) {
+            return;
+        }
+        if (this.sketch != null) {
+            this.sketch.increment(node.key);
+        }
+        switch (node.queue) {
+        case CachingMap.WINDOW:
+            this.window.moveToLast(node);
+            break;
+        case CachingMap.PROBATION:
+            if (this.policy == Policy.LRU) {
+                this.probation.moveToLast(node);
+                break;
+            }
+            this.probation.remove(node);
+            this.protectedQueue.addLast(node);
+            node.queue = CachingMap.PROTECTED;
+            while (this.protectedQueue.weight > this.protectedMaximum && this.protectedQueue.head != node) {
+                final Node<K, V> demoted = this.protectedQueue.head;
+                this.protectedQueue.remove(demoted);
+                this.probation.addLast(demoted);
+                demoted.queue = CachingMap.PROBATION;
+            }
+            break;
+        default:
+            this.protectedQueue.moveToLast(node);
+            break;
+        }
+    }
+
+    private void onAdd(final Node<K, V> node) {
+        // A removal that overtook this addition has already taken the node out of the map
+        if (this.data.get(node.key) != node) {
+            return;
+        }
+        this.totalWeight += node.weight;
+        if (this.policy == Policy.LRU) {
+            this.probation.addLast(node);
+            node.queue = CachingMap.PROBATION;
+        } else {
+            if (this.sketch != null) {
+                this.sketch.increment(node.key);
+            }
+            this.window.addLast(node);
+            node.queue = CachingMap.WINDOW;
+        }
+        if (this.expireAfterWrite != 0) {
+            this.writeOrder.addLast(node);
+        }
+    }
+
+    private void onRemove(final Node<K, V> node) {
+        switch (node.queue) {
+        case CachingMap.NONE:
+            return;
+        case CachingMap.WINDOW:
+            this.window.remove(node);
+            break;
+        case CachingMap.PROBATION:
+            this.probation.remove(node);
+            break;
+        default:
+            this.protectedQueue.remove(node);
+            break;
+        }
+        if (this.expireAfterWrite != 0) {
+            this.writeOrder.remove(node);
+        }
+        node.queue = CachingMap.NONE;
+        this.totalWeight -= node.weight;
+    }
+
+    private void evict(final Node<K, V> node) {
+        this.onRemove(node);
+        this.data.remove(node.key, node);
+        this.evictions.increment();
+    }
+
+    private void expire(final long now) {
+        if (this.expireAfterWrite != 0) {
+            while (this.writeOrder.head != null && this.isExpired(this.writeOrder.head, now)) {
+                this.evict(this.writeOrder.head);
+            }
+        }
+        if (this.expireAfterAccess != 0) {
+            this.expire(this.window, now);
+            this.expire(this.probation, now);
+            this.expire(this.protectedQueue, now);
+        }
+    }
+
+    // The queue is only roughly in order of access, since reads may go unrecorded, so this stops at the first mapping that hasn't expired
+    private void expire(final LinkedDeque<K, V> queue, final long now) {
+        while (queue.head != null && this.isExpired(queue.head, now)) {
+            this.evict(queue.head);
+        }
+    }
+
+    private void evictToBound() {
+        if (this.policy == Policy.W_TINY_LFU) {
+            while (this.window.weight > this.windowMaximum) {
+                final Node<K, V> candidate = this.window.head;
+                this.window.remove(candidate);
+                this.probation.addLast(candidate);
+                candidate.queue = CachingMap.PROBATION;
+            }
+        }
+        while (this.totalWeight > this.maximumWeight) {
+            final Node<K, V> victim = this.probation.head;
+            if (victim == null) {
+                this.evict(this.protectedQueue.head != null ? this.protectedQueue.head : this.window.head);
+                continue;
+            }
+            // The entry that most recently left the window competes with the least recently used entry of the main space
+            final Node<K, V> candidate = this.probation.tail;
+            if (this.sketch == null || candidate == victim || this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key)) {
+                this.evict(victim);
+            } else {
+                this.evict(candidate);
+            }
+        }
+    }
+
+    private void maintain(@Nullable final Node<K, V> removed, @Nullable final Node<K, V> added) {
+        this.lock.lock();
+        try {
+            this.readBuffer.drain(this);
+            if (removed != null) {
+                this.onRemove(removed);
+            }
+            if (added != null) {
+                this.onAdd(added);
+            }
+            if (this.expires()) {
+                this.expire(this.ticker.getAsLong());
+            }
+            this.evictToBound();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void recordRead(final Node<K, V> node, final long now) {
+        if (this.expireAfterAccess != 0) {
+            node.accessTime = now;
+        }
+        if (this.readBuffer.offer(node) && this.lock.tryLock()) {
+            try {
+                this.readBuffer.drain(this);
+                if (this.expires()) {
+                    this.expire(now);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Atomically replace the value of a key, or its absence, with the result of a function.
+     * @param key the key to update
+     * @param remap the function to call on the key and its value, or null if it is absent. Returning null removes the key
+     * @param result the array to store the value returned by remap in, at index 0, or null if it isn't needed
+     * @return the value of the key before this call, or null if it was absent
+     */
+    private @Nullable V update(final K key, final BiFunction<? super K, ? super V, ? extends V> remap, @Nullable final Object[] result) {
+        final long now = this.now();
+        final Object[] nodes = new Object[3]; // The previous value, the node removed and the node added
+        this.data.compute(CachingMap.checked(key, "Key"), (k, node) -> { //$NON-NLS-1$
+            final V prev = node == null || this.isExpired(node, now) ? null : node.value;
+            nodes[0] = prev;
+            final V next = remap.apply(k, prev);
+            if (result != null) {
+                result[0] = next;
+            }
+            if (next != null && next == prev) {
+                return node;
+            }
+            nodes[1] = node;
+            if (next == null) {
+                return null;
+            }
+            final Node<K, V> ret = this.newNode(k, next, now);
+            nodes[2] = ret;
+            return ret;
+        });
+        @SuppressWarnings("unchecked")
+        final Node<K, V> removed = (Node<K, V>) nodes[1];
+        @SuppressWarnings("unchecked")
+        final Node<K, V> added = (Node<K, V>) nodes[2];
+        if (removed != null || added != null) {
+            this.maintain(removed, added);
+        }
+        @SuppressWarnings("unchecked")
+        final V ret = (V) nodes[0];
+        return ret;
+    }
+
+    /**
+     * @return the statistics of this map so far
+     */
+    public Stats stats() {
+        return new Stats(this.hits.sum(), this.misses.sum(), this.loads.sum(), this.evictions.sum());
+    }
+
+    /**
+     * Remove every expired mapping and replay every recorded read now instead of waiting for later reads and writes to do so.
+     */
+    public void cleanUp() {
+        this.maintain(null, null);
+    }
+
+    /**
+     * May count mappings that have expired but not been removed yet.
+     */
+    @Override
+    public int size() {
+        return this.data.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.data.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(@Nullable final Object key) {
+        final Node<K, V> node = this.data.get(CachingMap.checked(key, "Key")); //$NON-NLS-1$
+        return node != null && !this.isExpired(node, this.now());
+    }
+
+    /**
+     * Looks up key, loading its value if it is absent and this map has a loader. Counts as a hit or a miss.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V get(@Nullable final Object key) {
+        final Node<K, V> node = this.data.get(CachingMap.checked(key, "Key")); //$NON-NLS-1$
+        if (node != null) {
+            final long now = this.now();
+            if (!this.isExpired(node, now)) {
+                this.hits.increment();
+                this.recordRead(node, now);
+                return node.value;
+            }
+        }
+        if (this.loader == null) {
+            this.misses.increment();
+            return null;
+        }
+        return this.computeIfAbsent((K) key, this.loader);
+    }
+
+    @Override
+    public @Nullable V put(@Nullable final K key, @Nullable final V value) {
+        CachingMap.checked(value, "Value"); //$NON-NLS-1$
+        return this.update(key, (k, prev) -> value, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V remove(@Nullable final Object key) {
+        return this.update((K) key, (k, prev) -> null, null);
+    }
+
+    @Override
+    public void clear() {
+        this.lock.lock();
+        try {
+            this.readBuffer.drain(this);
+            this.clear(this.window);
+            this.clear(this.probation);
+            this.clear(this.protectedQueue);
+            this.writeOrder.clear();
+            this.totalWeight = 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // Nodes that are still being added are left alone, since they are added to the queues after they are put in the map
+    private void clear(final LinkedDeque<K, V> queue) {
+        for (Node<K, V> node = queue.head; node != null; node = node.next) {
+            node.queue = CachingMap.NONE;
+            node.writePrev = null;
+            node.writeNext = null;
+            this.data.remove(node.key, node);
+        }
+        // Nothing refers to the links between the nodes any more, so they needn't be cleared one by one
+        queue.clear();
+    }
+
+    @Override
+    public @Nullable V putIfAbsent(@Nullable final K key, @Nullable final V value) {
+        CachingMap.checked(value, "Value"); //$NON-NLS-1$
+        return this.update(key, (k, prev) -> prev == null ? value : prev, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(@Nullable final Object key, @Nullable final Object value) {
+        return value != null && value.equals(this.update((K) key, (k, prev) -> value.equals(prev) ? null : prev, null));
+    }
+
+    @Override
+    public boolean replace(@Nullable final K key, @Nullable final V oldValue, @Nullable final V newValue) {
+        CachingMap.checked(oldValue, "Value"); //$NON-NLS-1$
+        CachingMap.checked(newValue, "Value"); //$NON-NLS-1$
+        return oldValue.equals(this.update(key, (k, prev) -> oldValue.equals(prev) ? newValue : prev, null));
+    }
+
+    @Override
+    public @Nullable V replace(@Nullable final K key, @Nullable final V value) {
+        CachingMap.checked(value, "Value"); //$NON-NLS-1$
+        return this.update(key, (k, prev) -> prev == null ? null : value, null);
+    }
+
+    /**
+     * Counts as a hit or a miss, and as a load if mappingFunction is called. Concurrent calls for the same key wait for the first one to
+     * compute the value, so mappingFunction is called once.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V computeIfAbsent(@Nullable final K key, final Function<? super K, ? extends V> mappingFunction) {
+        final Node<K, V> node = this.data.get(CachingMap.checked(key, "Key")); //$NON-NLS-1$
+        if (node != null) {
+            final long now = this.now();
+            if (!this.isExpired(node, now)) {
+                this.hits.increment();
+                this.recordRead(node, now);
+                return node.value;
+            }
+        }
+        final Object[] result = new Object[1];
+        final V prev = this.update(key, (k, old) -> {
+            if (old != null) {
+                return old;
+            }
+            this.loads.increment();
+            return mappingFunction.apply(k);
+        }, result);
+        if (prev != null) {
+            this.hits.increment();
+            return prev;
+        }
+        this.misses.increment();
+        return (V) result[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V computeIfPresent(@Nullable final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        final Object[] result = new Object[1];
+        this.update(key, (k, old) -> old == null ? null : remappingFunction.apply(k, old), result);
+        return (V) result[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V compute(@Nullable final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        final Object[] result = new Object[1];
+        this.update(key, remappingFunction, result);
+        return (V) result[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V merge(@Nullable final K key, @Nullable final V value,
+            final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        CachingMap.checked(value, "Value"); //$NON-NLS-1$
+        final Object[] result = new Object[1];
+        this.update(key, (k, old) -> old == null ? value : remappingFunction.apply(old, value), result);
+        return (V) result[0];
+    }
+
+    /**
+     * The returned set is weakly consistent, skips expired mappings and doesn't count as reading the mappings. Removing a mapping through
+     * its iterator has the same effect as {@link #remove(Object, Object)}, and setting the value of an entry has the same effect as
+     * {@link #put(Object, Object)}.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return CachingMap.this.new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return CachingMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return CachingMap.this.isEmpty();
+            }
+
+            @Override
+            public void clear() {
+                CachingMap.this.clear();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Iterator<Node<K, V>> nodes = CachingMap.this.data.values().iterator();
+        private final long now = CachingMap.this.now();
+        @Nullable
+        private Node<K, V> next = null;
+        @Nullable
+        private Node<K, V> last = null;
+
+        EntryIterator() {
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && this.nodes.hasNext()) {
+                final Node<K, V> node = this.nodes.next();
+                if (!CachingMap.this.isExpired(node, this.now)) {
+                    this.next = node;
+                }
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Node<K, V> node = this.next;
+            this.next = null;
+            this.last = node;
+            return new SimpleEntry<>(node.key, node.value) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public V setValue(final V value) {
+                    CachingMap.this.put(node.key, value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (this.last == null) {
+                throw new IllegalStateException();
+            }
+            CachingMap.this.remove(this.last.key, this.last.value);
+            this.last = null;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import util.number.UInt32;
+
+/**
+ * A list that reads through to another list, typically a view such as a {@link ConcatenatedList} or a {@link Slice}, until it has been
+ * read a given number of times, and from then on reads from a {@link AnnotatedNonNullList#materialize() materialized} copy of it.
+ * <p>
+ * Replacing an element through this list updates both the underlying list and the copy. Every other mutation made through this list is
+ * applied to the underlying list and discards the copy, after which reads are counted again. Changes made to the underlying list by other
+ * means are not seen once the copy exists, so {@link #invalidate()} must be called after them. Instances are created by
+ * {@link AnnotatedNonNullList#autoCompacting(int)}.
+ * @param <T> the type of the elements of this list
+ */
+public final class CompactingList<T> implements AnnotatedNonNullList<CompactingList<T>, T> {
+    private final AnnotatedNonNullList<?, T> base;
+    private final int readThreshold;
+    private int reads = 0;
+    @Nullable
+    private NonNullArrayList<T> compacted;
+
+    CompactingList(final AnnotatedNonNullList<?, T> base, final int readThreshold) {
+        if (readThreshold < 0) {
+            throw new IllegalArgumentException("Expected non-negative read threshold, found " + readThreshold); //$NON-NLS-1$
+        }
+        this.base = base;
+        this.readThreshold = readThreshold;
+    }
+
+    /**
+     * Materialize the underlying list now, regardless of the number of reads so far. Has no effect if it is already materialized.
+     * @return this
+     */
+    public CompactingList<T> compact() {
+        if (this.compacted == null) {
+            this.compacted = this.base.materialize();
+        }
+        return this;
+    }
+
+    /**
+     * Discard the materialized copy, if any, and start counting reads again.
+     * @return this
+     */
+    public CompactingList<T> invalidate() {
+        this.compacted = null;
+        this.reads = 0;
+        return this;
+    }
+
+    /**
+     * @return whether reads are currently served from a materialized copy
+     */
+    public boolean isCompacted() {
+        return this.compacted != null;
+    }
+
+    // Count a read and return the list to serve it from
+    private AnnotatedNonNullList<?, T> reader() {
+        if (this.compacted == null && this.reads++ >= this.readThreshold) {
+            this.compact();
+        }
+        return this.compacted != null ? this.compacted : this.base;
+    }
+
+    // Discard the copy before a structural mutation of the base
+    private AnnotatedNonNullList<?, T> writer() {
+        this.invalidate();
+        return this.base;
+    }
+
+    private CompactingList<T> wrap(final AnnotatedNonNullList<?, T> list) {
+        return new CompactingList<>(list, this.readThreshold);
+    }
+
+    @Override
+    public NonNullArrayList<T> materialize() {
+        return this.compacted != null ? this.compacted.copy() : this.base.materialize();
+    }
+
+    @Override
+    public UInt32 size() {
+        return this.reader().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.reader().isEmpty();
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return this.reader().contains(object);
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        return this.reader().containsAll(c);
+    }
+
+    @Override
+    public Maybe<UInt32> indexOf(final T value) {
+        return this.reader().indexOf(value);
+    }
+
+    @Override
+    public Maybe<UInt32> lastIndexOf(final T value) {
+        return this.reader().lastIndexOf(value);
+    }
+
+    @Override
+    public Maybe<T> get(final UInt32 index) {
+        return this.reader().get(index);
+    }
+
+    @Override
+    public @Nullable T getOrNull(final int index) {
+        return this.reader().getOrNull(index);
+    }
+
+    @Override
+    public int intIndexOf(@Nullable final Object o) {
+        return this.reader().intIndexOf(o);
+    }
+
+    @Override
+    public int intLastIndexOf(@Nullable final Object o) {
+        return this.reader().intLastIndexOf(o);
+    }
+
+    @Override
+    public int copyInto(final Object[] dest) {
+        return this.reader().copyInto(dest);
+    }
+
+    @Override
+    public void forEachChunk(final UInt32 fromIdx, final UInt32 toIdx, final int chunkSize, final Consumer<? super List<T>> action) {
+        this.reader().forEachChunk(fromIdx, toIdx, chunkSize, action);
+    }
+
+    @Override
+    public @Nullable T setOrNull(final int index, final T value) {
+        final T ret = this.base.setOrNull(index, value);
+        if (ret != null && this.compacted != null) {
+            this.compacted.setOrNull(index, value);
+        }
+        return ret;
+    }
+
+    @Override
+    public Pair<CompactingList<T>, Maybe<T>> set(final UInt32 index, final T value) {
+        return new Pair<>(this, Maybe.maybe(this.setOrNull(index.intValue(), value)));
+    }
+
+    @Override
+    public CompactingList<T> add(final T value) {
+        this.writer().add(value);
+        return this;
+    }
+
+    @Override
+    public CompactingList<T> insert(final UInt32 index, final T value) {
+        this.writer().insert(index, value);
+        return this;
+    }
+
+    @Override
+    public CompactingList<T> addAll(final Collection<? extends T> c) {
+        this.writer().addAll(c);
+        return this;
+    }
+
+    @Override
+    public CompactingList<T> addAll(final UInt32 index, final Collection<? extends T> c) {
+        this.writer().addAll(index, c);
+        return this;
+    }
+
+    @Override
+    public Pair<CompactingList<T>, Maybe<T>> remove(final UInt32 index) {
+        return new Pair<>(this, this.writer().remove(index).snd());
+    }
+
+    @Override
+    public Pair<CompactingList<T>, Maybe<T>> remove(final Object o) {
+        return new Pair<>(this, this.writer().remove(o).snd());
+    }
+
+    @Override
+    public CompactingList<T> removeAll(final Collection<?> c) {
+        this.writer().removeAll(c);
+        return this;
+    }
+
+    @Override
+    public CompactingList<T> removeIf(final Predicate<? super T> p) {
+        this.writer().removeIf(p);
+        return this;
+    }
+
+    @Override
+    public CompactingList<T> clear() {
+        this.writer().clear();
+        return this;
+    }
+
+    @Override
+    public CompactingList<T> retainAll(final Collection<?> c) {
+        this.writer().retainAll(c);
+        return this;
+    }
+
+    @Override
+    public CompactingList<T> retainIf(final Predicate<? super T> p) {
+        this.writer().retainIf(p);
+        return this;
+    }
+
+    /**
+     * The <tt>pure*</tt> methods read from the materialized copy if there is one and wrap their results with the same read threshold.
+     */
+    @Override
+    public Pair<CompactingList<T>, Maybe<T>> pureRemove(final UInt32 index) {
+        final Pair<? extends AnnotatedNonNullList<?, T>, Maybe<T>> ret = this.reader().pureRemove(index);
+        return new Pair<>(this.wrap(ret.fst()), ret.snd());
+    }
+
+    @Override
+    public Pair<CompactingList<T>, Maybe<T>> pureRemove(final Object o) {
+        final Pair<? extends AnnotatedNonNullList<?, T>, Maybe<T>> ret = this.reader().pureRemove(o);
+        return new Pair<>(this.wrap(ret.fst()), ret.snd());
+    }
+
+    @Override
+    public CompactingList<T> pureRemoveAll(final Collection<?> c) {
+        return this.wrap(this.reader().pureRemoveAll(c));
+    }
+
+    @Override
+    public CompactingList<T> pureRemoveIf(final Predicate<? super T> p) {
+        return this.wrap(this.reader().pureRemoveIf(p));
+    }
+
+    @Override
+    public CompactingList<T> pureRetainIf(final Predicate<? super T> p) {
+        return this.wrap(this.reader().pureRetainIf(p));
+    }
+
+    @Override
+    public CompactingList<T> pureClear() {
+        return this.wrap(this.reader().pureClear());
+    }
+
+    /**
+     * The returned iterator doesn't support {@link Iterator#remove()}.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return Iterators.map(Function.identity(), this.reader().iterator());
+    }
+
+    /**
+     * The returned iterator supports {@link ListIterator#set(Object)}, which writes through as {@link #set(UInt32, Object)} does, but no
+     * structural modification.
+     */
+    @Override
+    public ListIterator<T> listIterator(final UInt32 startIndex) {
+        final ListIterator<T> liter = this.reader().listIterator(startIndex);
+        return new ListIterator<>() {
+            private int lastReturned = -1;
+
+            @Override
+            public boolean hasNext() {
+                return liter.hasNext();
+            }
+
+            @Override
+            public @NonNull T next() {
+                this.lastReturned = liter.nextIndex();
+                return liter.next();
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return liter.hasPrevious();
+            }
+
+            @Override
+            public @NonNull T previous() {
+                this.lastReturned = liter.previousIndex();
+                return liter.previous();
+            }
+
+            @Override
+            public int nextIndex() {
+                return liter.nextIndex();
+            }
+
+            @Override
+            public int previousIndex() {
+                return liter.previousIndex();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Can't structurally modify list through iterator"); //$NON-NLS-1$
+            }
+
+            @Override
+            public void set(@NonNull final T e) {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                CompactingList.this.setOrNull(this.lastReturned, e);
+            }
+
+            @Override
+            public void add(@NonNull final T e) {
+                throw new UnsupportedOperationException("Can't structurally modify list through iterator"); //$NON-NLS-1$
+            }
+        };
+    }
+}
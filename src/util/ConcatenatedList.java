@@ -3,12 +3,15 @@ package util;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
@@ -57,6 +60,17 @@ public final class ConcatenatedList<E> implements AnnotatedNonNullList<Concatena
         return this.subListStream().map(List::iterator).reduce(Iterators.empty(), Iterators::concat);
     }
 
+    @Override
+    public int copyInto(final Object[] dest) {
+        int offset = 0;
+        for (final List<?> list : this.lists) {
+            final Object[] elements = list.toArray();
+            System.arraycopy(elements, 0, dest, offset, elements.length);
+            offset += elements.length;
+        }
+        return offset;
+    }
+
     @Override
     public ConcatenatedList<E> add(final E e) {
         throw new UnsupportedOperationException();
@@ -105,7 +119,7 @@ public final class ConcatenatedList<E> implements AnnotatedNonNullList<Concatena
 
     @Override
     public ConcatenatedList<E> pureRemoveAll(final Collection<?> c) {
-        throw new UnsupportedOperationException();
+        return this.pureRemoveIf(BulkRemoval.membership(c));
     }
 
     @Override
@@ -118,9 +132,27 @@ public final class ConcatenatedList<E> implements AnnotatedNonNullList<Concatena
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Lists that lose no elements are shared with the returned list, which concatenates the same number of lists as this one.
+     */
+    @SuppressWarnings("unchecked")
     @Override
     public ConcatenatedList<E> pureRemoveIf(final Predicate<? super E> p) {
-        throw new UnsupportedOperationException();
+        final Object[] values = this.toArray();
+        final long[] marks = BulkRemoval.mark(0, values.length, i -> p.test((E) values[i]));
+        final List<?>[] ret = this.lists.clone();
+        if (marks != null) {
+            int from = 0;
+            for (int i = 0; i < ret.length; i++) {
+                final int to = from + ret[i].size();
+                if (BulkRemoval.anyMarked(marks, from, to)) {
+                    final Object[] kept = new Object[to - from];
+                    ret[i] = Arrays.asList(kept).subList(0, BulkRemoval.copySurvivors(values, 0, marks, from, to, kept, 0));
+                }
+                from = to;
+            }
+        }
+        return new ConcatenatedList<>((List<E>[]) ret);
     }
 
     @Override
@@ -135,13 +167,29 @@ public final class ConcatenatedList<E> implements AnnotatedNonNullList<Concatena
 
     @Override
     public ConcatenatedList<E> pureRetainIf(final Predicate<? super E> p) {
-        throw new UnsupportedOperationException();
+        return this.pureRemoveIf(p.negate());
     }
 
     @Override
     public Maybe<E> get(final UInt32 index) {
-        return Maybe
-                .just(this.stream().sequential().skip(index.intValue() - 1).findFirst().orElseThrow(() -> new IndexOutOfBoundsException()));
+        return Maybe.maybe(this.getOrNull(index.intValue()));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable E getOrNull(final int index) {
+        if (index < 0) {
+            return null;
+        }
+        int i = index;
+        for (final List<?> list : this.lists) {
+            final int size = list.size();
+            if (i < size) {
+                return (E) list.get(i);
+            }
+            i -= size;
+        }
+        return null;
     }
 
     @Override
@@ -286,6 +334,62 @@ public final class ConcatenatedList<E> implements AnnotatedNonNullList<Concatena
         };
     }
 
+    /**
+     * Lazily merge the concatenated lists, each of which must be sorted by the given comparator. This takes O(n log k) time for n elements
+     * in k lists, instead of the O(n log n) time that it would take to sort the concatenation.
+     * @param comparator the order that each concatenated list is sorted by
+     * @return an iterator over the elements of this list, stably sorted by the comparator
+     * @see Iterators#mergeSorted(Comparator, List)
+     */
+    public Iterator<E> mergeSorted(final Comparator<? super E> comparator) {
+        return Iterators.mergeSorted(comparator, this.subListStream().map(List::iterator).collect(Collectors.toList()));
+    }
+
+    /**
+     * Chunks that lie within a single concatenated list are passed as {@link List#subList(int, int) sublists} of that list, so only chunks
+     * that span the boundary between two lists are copied.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEachChunk(final UInt32 fromIdx, final UInt32 toIdx, final int chunkSize, final Consumer<? super List<E>> action) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Expected positive chunk size, found " + chunkSize); //$NON-NLS-1$
+        }
+        long skip = Integer.toUnsignedLong(fromIdx.intValue());
+        long remaining = Integer.toUnsignedLong(toIdx.intValue()) - skip;
+        final List<E> carry = new ArrayList<>();
+        for (int i = 0; i < this.lists.length && remaining > 0; i++) {
+            final List<E> list = (List<E>) this.lists[i];
+            final int size = list.size();
+            if (skip >= size) {
+                skip -= size;
+                continue;
+            }
+            int start = (int) skip;
+            skip = 0;
+            final int end = (int) Math.min(size, start + remaining);
+            remaining -= end - start;
+            if (!carry.isEmpty()) {
+                final int take = Math.min(chunkSize - carry.size(), end - start);
+                carry.addAll(list.subList(start, start + take));
+                start += take;
+                if (carry.size() == chunkSize) {
+                    action.accept(carry);
+                    carry.clear();
+                }
+            }
+            for (; end - start >= chunkSize; start += chunkSize) {
+                action.accept(list.subList(start, start + chunkSize));
+            }
+            if (start < end) {
+                carry.addAll(list.subList(start, end));
+            }
+        }
+        if (!carry.isEmpty()) {
+            action.accept(carry);
+        }
+    }
+
     @Override
     public Stream<E> stream() {
         return this.subListStream().flatMap(List::stream);
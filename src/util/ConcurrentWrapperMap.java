@@ -0,0 +1,321 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A thread-safe counterpart of {@link WrapperMap}. Mappings put into this map hide the mappings of a base map, and unlike in a
+ * {@link WrapperMap}, removing a key that the base map maps hides it too, by recording a tombstone for it. {@link #revert(Object)} removes
+ * both kinds of change for a key.
+ * <p>
+ * The changes are held by a {@link ConcurrentHashMap}, so {@link #get(Object)} never locks, and every method that changes the value of a
+ * key, including {@link #putIfAbsent(Object, Object)}, {@link #compute(Object, BiFunction)} and {@link #merge(Object, Object, BiFunction)},
+ * does so atomically and calls the function that it is given at most once. Iterators and views are weakly consistent in the way that those
+ * of {@link ConcurrentHashMap} are. {@link #size()} is maintained as changes are made, so it doesn't iterate over either map.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class ConcurrentWrapperMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    // The value of a removed key in others
+    private static final Object TOMBSTONE = new Object();
+
+    private final Map<K, V> back;
+    private final ConcurrentHashMap<K, Object> others = new ConcurrentHashMap<>(); // Values are either of type V or TOMBSTONE
+    private final LongAdder sizeDelta = new LongAdder(); // The size of this map minus the size of back
+
+    /**
+     * @param back the mappings that this map starts with. They are copied, so later changes to back are not reflected in this map
+     * @throws IllegalArgumentException if back is null
+     * @throws NullPointerException if back contains a null key or value
+     */
+    public ConcurrentWrapperMap(final Map<? extends K, ? extends V> back) {
+        if (back == null) {
+            throw new IllegalArgumentException("Expected Map, found null"); //$NON-NLS-1$
+        }
+        this.back = Map.copyOf(back);
+    }
+
+    @SuppressWarnings("unchecked")
+    private @Nullable V visible(final Object key, @Nullable final Object change) {
+        if (change == null) {
+            return this.back.get(key);
+        }
+        return change == ConcurrentWrapperMap.TOMBSTONE ? null : (V) change;
+    }
+
+    private static <T> T checked(@Nullable final T value, final String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected " + name + ", found null"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return value;
+    }
+
+    /**
+     * Atomically replace the value of a key, or its absence, with the result of a function. The change is stored in {@link #others} only if
+     * the value is different from the value in {@link #back}.
+     * @param key the key to update
+     * @param remap the function to call on the key and its value, or null if it is absent. Returning null removes the key
+     * @param result the array to store the value returned by remap in, at index 0, or null if it isn't needed
+     * @return the value of the key before this call, or null if it was absent
+     */
+    private @Nullable V update(final K key, final BiFunction<? super K, ? super V, ? extends V> remap, @Nullable final Object[] result) {
+        final Object[] old = new Object[1];
+        this.others.compute(ConcurrentWrapperMap.checked(key, "Key"), (k, change) -> { //$NON-NLS-1$
+            final V prev = this.visible(k, change);
+            old[0] = prev;
+            final V next = remap.apply(k, prev);
+            if (result != null) {
+                result[0] = next;
+            }
+            if (next == prev) {
+                return change;
+            }
+            if (prev == null) {
+                this.sizeDelta.increment();
+            } else if (next == null) {
+                this.sizeDelta.decrement();
+            }
+            final V base = this.back.get(k);
+            if (next == null) {
+                return base == null ? null : ConcurrentWrapperMap.TOMBSTONE;
+            }
+            return next.equals(base) ? null : next;
+        });
+        @SuppressWarnings("unchecked")
+        final V ret = (V) old[0];
+        return ret;
+    }
+
+    /**
+     * Discard any value put into this map for key and any tombstone recorded for it, so that key has its value in the base map again.
+     * @param key the key to revert
+     * @return the value of key before this call, or null if it was absent
+     */
+    public @Nullable V revert(final K key) {
+        return this.update(key, (k, prev) -> this.back.get(k), null);
+    }
+
+    @Override
+    public int size() {
+        final long ret = this.back.size() + this.sizeDelta.sum();
+        return ret < 0 ? 0 : ret > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) ret;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable final Object key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public @Nullable V get(@Nullable final Object key) {
+        return this.visible(key, this.others.get(ConcurrentWrapperMap.checked(key, "Key"))); //$NON-NLS-1$
+    }
+
+    @Override
+    public @Nullable V put(@Nullable final K key, @Nullable final V value) {
+        ConcurrentWrapperMap.checked(value, "Value"); //$NON-NLS-1$
+        return this.update(key, (k, prev) -> value, null);
+    }
+
+    /**
+     * Hides any value that the base map has for key.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V remove(@Nullable final Object key) {
+        return this.update((K) key, (k, prev) -> null, null);
+    }
+
+    /**
+     * Removes every key, recording a tombstone for each key of the base map, like {@link WrapperMap#clear()}. Takes time proportional to
+     * the size of the base map. Keys put concurrently with this method may or may not be removed.
+     */
+    @Override
+    public void clear() {
+        for (final K key : this.back.keySet()) {
+            this.remove(key);
+        }
+        for (final K key : this.others.keySet()) {
+            this.remove(key);
+        }
+    }
+
+    @Override
+    public @Nullable V putIfAbsent(@Nullable final K key, @Nullable final V value) {
+        ConcurrentWrapperMap.checked(value, "Value"); //$NON-NLS-1$
+        return this.update(key, (k, prev) -> prev == null ? value : prev, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(@Nullable final Object key, @Nullable final Object value) {
+        return value != null && value.equals(this.update((K) key, (k, prev) -> value.equals(prev) ? null : prev, null));
+    }
+
+    @Override
+    public boolean replace(@Nullable final K key, @Nullable final V oldValue, @Nullable final V newValue) {
+        ConcurrentWrapperMap.checked(oldValue, "Value"); //$NON-NLS-1$
+        ConcurrentWrapperMap.checked(newValue, "Value"); //$NON-NLS-1$
+        return oldValue.equals(this.update(key, (k, prev) -> oldValue.equals(prev) ? newValue : prev, null));
+    }
+
+    @Override
+    public @Nullable V replace(@Nullable final K key, @Nullable final V value) {
+        ConcurrentWrapperMap.checked(value, "Value"); //$NON-NLS-1$
+        return this.update(key, (k, prev) -> prev == null ? null : value, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V computeIfAbsent(@Nullable final K key, final Function<? super K, ? extends V> mappingFunction) {
+        final V present = this.get(key);
+        if (present != null) {
+            return present;
+        }
+        final Object[] result = new Object[1];
+        final V prev = this.update(key, (k, old) -> old == null ? mappingFunction.apply(k) : old, result);
+        return prev != null ? prev : (V) result[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V computeIfPresent(@Nullable final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        final Object[] result = new Object[1];
+        this.update(key, (k, old) -> old == null ? null : remappingFunction.apply(k, old), result);
+        return (V) result[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V compute(@Nullable final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        final Object[] result = new Object[1];
+        this.update(key, remappingFunction, result);
+        return (V) result[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V merge(@Nullable final K key, @Nullable final V value,
+            final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        ConcurrentWrapperMap.checked(value, "Value"); //$NON-NLS-1$
+        final Object[] result = new Object[1];
+        this.update(key, (k, old) -> old == null ? value : remappingFunction.apply(old, value), result);
+        return (V) result[0];
+    }
+
+    /**
+     * The returned set's iterator visits the keys of the base map in its order, skipping the removed ones and with the values put into this
+     * map in place of the values that they hide, and then visits the keys that only this map maps. Removing a mapping through the iterator
+     * has the same effect as {@link #remove(Object)}, and setting the value of an entry has the same effect as
+     * {@link #put(Object, Object)}.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return ConcurrentWrapperMap.this.new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentWrapperMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return ConcurrentWrapperMap.this.isEmpty();
+            }
+
+            @Override
+            public void clear() {
+                ConcurrentWrapperMap.this.clear();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Iterator<Entry<K, V>> backIter = ConcurrentWrapperMap.this.back.entrySet().iterator();
+        @Nullable
+        private Iterator<Entry<K, Object>> othersIter = null; // Created once backIter is exhausted
+        @Nullable
+        private Entry<K, V> next = null;
+        @Nullable
+        private K lastKey = null;
+
+        EntryIterator() {
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean hasNext() {
+            while (this.next == null) {
+                if (this.othersIter == null) {
+                    if (!this.backIter.hasNext()) {
+                        this.othersIter = ConcurrentWrapperMap.this.others.entrySet().iterator();
+                        continue;
+                    }
+                    final Entry<K, V> entry = this.backIter.next();
+                    final V value = ConcurrentWrapperMap.this.get(entry.getKey());
+                    if (value != null) {
+                        this.next = new SimpleEntry<>(entry.getKey(), value);
+                    }
+                } else {
+                    if (!this.othersIter.hasNext()) {
+                        return false;
+                    }
+                    final Entry<K, Object> entry = this.othersIter.next();
+                    final Object value = entry.getValue();
+                    if (value != ConcurrentWrapperMap.TOMBSTONE && !ConcurrentWrapperMap.this.back.containsKey(entry.getKey())) {
+                        this.next = new SimpleEntry<>(entry.getKey(), (V) value);
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Entry<K, V> entry = this.next;
+            this.next = null;
+            this.lastKey = entry.getKey();
+            return new SimpleEntry<>(entry) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public V setValue(final V value) {
+                    ConcurrentWrapperMap.this.put(entry.getKey(), value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastKey == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentWrapperMap.this.remove(this.lastKey);
+            this.lastKey = null;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+import util.number.UInt32;
+
+/**
+ * A fixed size view of a range of a <tt>float[]</tt>. Reads and writes go straight to the array, and slicing a slice shares the array,
+ * so no method copies elements except {@link #copyInto(float[], int)}, {@link #toArray()} and {@link #toList()}. No method boxes the
+ * elements of this slice.
+ */
+public final class FloatArraySlice {
+    private final float[] array;
+    private final int offset;
+    private final int length;
+
+    private FloatArraySlice(final float[] array, final int offset, final int length) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @param array the array to view
+     * @return a slice of the whole array
+     */
+    public static FloatArraySlice of(final float[] array) {
+        if (array == null) {
+            throw new IllegalArgumentException("Expected array, found null"); //$NON-NLS-1$
+        }
+        return new FloatArraySlice(array, 0, array.length);
+    }
+
+    /**
+     * @param array the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive
+     * @return a slice of the given range of the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static FloatArraySlice of(final float[] array, final int from, final int to) {
+        if (array == null) {
+            throw new IllegalArgumentException("Expected array, found null"); //$NON-NLS-1$
+        }
+        Objects.checkFromToIndex(from, to, array.length);
+        return new FloatArraySlice(array, from, to - from);
+    }
+
+    private static boolean same(final float x, final float y) {
+        return Float.floatToIntBits(x) == Float.floatToIntBits(y);
+    }
+
+    /**
+     * @return the array that this slice is a view of
+     */
+    public float[] array() {
+        return this.array;
+    }
+
+    /**
+     * @return the index of {@link #array()} that index 0 of this slice refers to
+     */
+    public int offset() {
+        return this.offset;
+    }
+
+    /**
+     * @return the number of elements in this slice
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * @return the number of elements in this slice
+     */
+    public UInt32 size() {
+        return UInt32.asUnsigned(this.length);
+    }
+
+    /**
+     * @return whether this slice has no elements
+     */
+    public boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    /**
+     * @param index the index of this slice to access
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if index is negative or not less than {@link #length()}
+     */
+    public float get(final int index) {
+        return this.array[this.offset + Objects.checkIndex(index, this.length)];
+    }
+
+    /**
+     * @param index the index of this slice to access
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if index is not less than {@link #size()}
+     */
+    public float get(final UInt32 index) {
+        return this.get(index.intValue());
+    }
+
+    /**
+     * @param index the index of this slice to modify
+     * @param value the value to write to the array
+     * @return the element that was at the given index
+     * @throws IndexOutOfBoundsException if index is negative or not less than {@link #length()}
+     */
+    public float set(final int index, final float value) {
+        final int i = this.offset + Objects.checkIndex(index, this.length);
+        final float ret = this.array[i];
+        this.array[i] = value;
+        return ret;
+    }
+
+    /**
+     * @param index the index of this slice to modify
+     * @param value the value to write to the array
+     * @return the element that was at the given index
+     * @throws IndexOutOfBoundsException if index is not less than {@link #size()}
+     */
+    public float set(final UInt32 index, final float value) {
+        return this.set(index.intValue(), value);
+    }
+
+    /**
+     * @param from the first index of this slice in the returned slice, inclusive
+     * @param to the last index of this slice in the returned slice, exclusive
+     * @return a slice of the same array that covers the given range of this slice
+     * @throws IndexOutOfBoundsException if the range is not within this slice
+     */
+    public FloatArraySlice slice(final int from, final int to) {
+        Objects.checkFromToIndex(from, to, this.length);
+        return new FloatArraySlice(this.array, this.offset + from, to - from);
+    }
+
+    /**
+     * @param value the value to find
+     * @return whether this slice contains the given value
+     */
+    public boolean contains(final float value) {
+        return this.indexOfPrimitive(value) >= 0;
+    }
+
+    private int indexOfPrimitive(final float value) {
+        for (int i = 0; i < this.length; i++) {
+            if (FloatArraySlice.same(this.array[this.offset + i], value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param value the value to find
+     * @return Just x for the least x such that <tt>this.get(x)</tt> has the bits of value if such an x exists, Nothing otherwise
+     */
+    public Maybe<UInt32> indexOf(final float value) {
+        final int ret = this.indexOfPrimitive(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    /**
+     * @param value the value to find
+     * @return Just x for the greatest x such that <tt>this.get(x)</tt> has the bits of value if such an x exists, Nothing otherwise
+     */
+    public Maybe<UInt32> lastIndexOf(final float value) {
+        final int ret = this.lastIndexOfPrimitive(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    private int lastIndexOfPrimitive(final float value) {
+        for (int i = this.length - 1; i >= 0; i--) {
+            if (FloatArraySlice.same(this.array[this.offset + i], value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Like {@link #indexOf(float)} except that the index isn't boxed.
+     * @param value the value to find
+     * @return the least index of value in this slice, or nothing if value isn't in this slice
+     */
+    public MaybeUInt32 maybeIndexOf(final float value) {
+        return MaybeUInt32.ofIndex(this.indexOfPrimitive(value));
+    }
+
+    /**
+     * Like {@link #lastIndexOf(float)} except that the index isn't boxed.
+     * @param value the value to find
+     * @return the greatest index of value in this slice, or nothing if value isn't in this slice
+     */
+    public MaybeUInt32 maybeLastIndexOf(final float value) {
+        return MaybeUInt32.ofIndex(this.lastIndexOfPrimitive(value));
+    }
+
+    /**
+     * @param value the value to write to every element of this slice
+     * @return this
+     */
+    public FloatArraySlice fill(final float value) {
+        Arrays.fill(this.array, this.offset, this.offset + this.length, value);
+        return this;
+    }
+
+    /**
+     * @param dest the array to copy this slice into
+     * @param destPos the index of dest to copy the first element of this slice to
+     * @throws IndexOutOfBoundsException if dest doesn't have room for this slice at destPos
+     */
+    public void copyInto(final float[] dest, final int destPos) {
+        System.arraycopy(this.array, this.offset, dest, destPos, this.length);
+    }
+
+    /**
+     * @return a new array containing the elements of this slice in order
+     */
+    public float[] toArray() {
+        return Arrays.copyOfRange(this.array, this.offset, this.offset + this.length);
+    }
+
+    /**
+     * @return a new list containing the elements of this slice in order
+     */
+    public FloatList toList() {
+        return FloatList.wrap(this.toArray());
+    }
+
+    /**
+     * @return an iterator over this slice
+     */
+    public PrimitiveIterator.OfDouble iterator() {
+        return PrimitiveIterators.of(this.array, this.offset, this.offset + this.length);
+    }
+
+    /**
+     * @return a spliterator over this slice
+     */
+    public Spliterator.OfDouble spliterator() {
+        return Spliterators.spliterator(this.iterator(), this.length, Spliterator.ORDERED);
+    }
+
+    /**
+     * @return a stream over the elements of this slice
+     */
+    public DoubleStream stream() {
+        return StreamSupport.doubleStream(this.spliterator(), false);
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FloatArraySlice)) {
+            return false;
+        }
+        final FloatArraySlice other = (FloatArraySlice) o;
+        return Arrays.equals(this.array, this.offset, this.offset + this.length, other.array, other.offset, other.offset + other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int ret = 1;
+        for (int i = this.offset; i < this.offset + this.length; i++) {
+            ret = 31 * ret + Float.hashCode(this.array[i]);
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner ret = new StringJoiner(", ", "[", "]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (int i = this.offset; i < this.offset + this.length; i++) {
+            ret.add(String.valueOf(this.array[i]));
+        }
+        return ret.toString();
+    }
+}
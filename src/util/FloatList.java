@@ -0,0 +1,509 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+import util.function.FloatPredicate;
+import util.number.UInt32;
+
+/**
+ * A resizable list of floats backed by a <tt>float[]</tt>. This is the float counterpart of {@link NonNullArrayList}: the mutation methods
+ * modify this list and return it, the <tt>pure*</tt> methods return a new list and leave this one unchanged, and indices are
+ * {@link UInt32}s. No method boxes the elements of this list.
+ */
+public final class FloatList {
+    private static final float[] EMPTY = {};
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private float[] elements;
+    private int size;
+
+    /**
+     * Create an empty list.
+     */
+    public FloatList() {
+        this.elements = FloatList.EMPTY;
+    }
+
+    /**
+     * Create an empty list that can hold the given number of elements without reallocating.
+     * @param initialCapacity the number of elements to allocate space for
+     */
+    public FloatList(final int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Expected non-negative capacity, found " + initialCapacity); //$NON-NLS-1$
+        }
+        this.elements = initialCapacity == 0 ? FloatList.EMPTY : new float[initialCapacity];
+    }
+
+    private FloatList(final float[] elements, final int size) {
+        this.elements = elements;
+        this.size = size;
+    }
+
+    /**
+     * @param values the elements of the returned list
+     * @return a new list containing a copy of the given values
+     */
+    public static FloatList of(final float... values) {
+        return new FloatList(values.clone(), values.length);
+    }
+
+    /**
+     * Create a list that uses the given array as its backing array without copying it. Changes to the list write through to the array and
+     * vice versa until the list needs to grow past the length of the array, at which point it moves to a new backing array.
+     * @param values the backing array of the returned list
+     * @return a list view of the given array
+     */
+    public static FloatList wrap(final float[] values) {
+        return FloatList.wrap(values, values.length);
+    }
+
+    /**
+     * Like {@link #wrap(float[])} except that only the first <tt>length</tt> slots of the array are elements of the returned list. The rest
+     * are used as spare capacity.
+     * @param values the backing array of the returned list
+     * @param length the number of elements of the returned list
+     * @return a list view of the given prefix of the given array
+     */
+    public static FloatList wrap(final float[] values, final int length) {
+        if (length < 0 || length > values.length) {
+            throw new IndexOutOfBoundsException("Length: " + length + ", Array length: " + values.length); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return new FloatList(values, length);
+    }
+
+    private static boolean same(final float x, final float y) {
+        return Float.floatToIntBits(x) == Float.floatToIntBits(y);
+    }
+
+    private int checkedIndex(final UInt32 index) {
+        final int i = index.intValue();
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index.longValue() + ", Size: " + this.size); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return i;
+    }
+
+    private int checkedInsertionIndex(final UInt32 index) {
+        final int i = index.intValue();
+        if (i < 0 || i > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index.longValue() + ", Size: " + this.size); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return i;
+    }
+
+    /**
+     * Make sure that this list can hold at least the given number of elements without reallocating its backing array.
+     * @param minCapacity the minimum number of elements to allocate space for
+     * @return this
+     */
+    public FloatList ensureCapacity(final int minCapacity) {
+        if (minCapacity > this.elements.length) {
+            if (minCapacity < 0 || minCapacity > FloatList.MAX_CAPACITY) {
+                throw new OutOfMemoryError("Required list capacity is too large"); //$NON-NLS-1$
+            }
+            final int oldCapacity = this.elements.length;
+            int newCapacity = oldCapacity + (oldCapacity >> 1);
+            if (newCapacity < 0 || newCapacity > FloatList.MAX_CAPACITY) {
+                newCapacity = FloatList.MAX_CAPACITY;
+            }
+            this.elements = Arrays.copyOf(this.elements, Math.max(Math.max(newCapacity, minCapacity), FloatList.DEFAULT_CAPACITY));
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of elements in this list
+     */
+    public UInt32 size() {
+        return UInt32.asUnsigned(this.size);
+    }
+
+    /**
+     * @return whether this list has no elements
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @param value the value to find
+     * @return whether this list contains the given value
+     */
+    public boolean contains(final float value) {
+        return this.indexOfPrimitive(value) >= 0;
+    }
+
+    private int indexOfPrimitive(final float value) {
+        for (int i = 0; i < this.size; i++) {
+            if (FloatList.same(this.elements[i], value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param value the value to find
+     * @return Just x for the least x such that <tt>this.get(x)</tt> has the same bits as <tt>value</tt> if such an x exists, Nothing otherwise
+     */
+    public Maybe<UInt32> indexOf(final float value) {
+        final int ret = this.indexOfPrimitive(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    /**
+     * @param value the value to find
+     * @return Just x for the greatest x such that <tt>this.get(x)</tt> has the same bits as <tt>value</tt> if such an x exists, Nothing otherwise
+     */
+    public Maybe<UInt32> lastIndexOf(final float value) {
+        final int ret = this.lastIndexOfPrimitive(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    private int lastIndexOfPrimitive(final float value) {
+        for (int i = this.size - 1; i >= 0; i--) {
+            if (FloatList.same(this.elements[i], value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Like {@link #indexOf(float)} except that the index isn't boxed.
+     * @param value the value to find
+     * @return the least index of value in this list, or nothing if value isn't in this list
+     */
+    public MaybeUInt32 maybeIndexOf(final float value) {
+        return MaybeUInt32.ofIndex(this.indexOfPrimitive(value));
+    }
+
+    /**
+     * Like {@link #lastIndexOf(float)} except that the index isn't boxed.
+     * @param value the value to find
+     * @return the greatest index of value in this list, or nothing if value isn't in this list
+     */
+    public MaybeUInt32 maybeLastIndexOf(final float value) {
+        return MaybeUInt32.ofIndex(this.lastIndexOfPrimitive(value));
+    }
+
+    /**
+     * @param index the index of this list to access
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if index is not less than {@link #size()}
+     */
+    public float get(final UInt32 index) {
+        return this.elements[this.checkedIndex(index)];
+    }
+
+    /**
+     * @param value the value to add to the end of this list
+     * @return this
+     */
+    public FloatList add(final float value) {
+        this.ensureCapacity(this.size + 1);
+        this.elements[this.size++] = value;
+        return this;
+    }
+
+    /**
+     * @param index the index at which to insert the given value
+     * @param value the value to insert
+     * @return this
+     * @throws IndexOutOfBoundsException if index is greater than {@link #size()}
+     */
+    public FloatList insert(final UInt32 index, final float value) {
+        final int i = this.checkedInsertionIndex(index);
+        this.ensureCapacity(this.size + 1);
+        System.arraycopy(this.elements, i, this.elements, i + 1, this.size - i);
+        this.elements[i] = value;
+        this.size++;
+        return this;
+    }
+
+    /**
+     * @param values the values to add to the end of this list
+     * @return this
+     */
+    public FloatList addAll(final FloatList values) {
+        return this.addAll(this.size(), values);
+    }
+
+    /**
+     * @param index the index at which to insert the given values
+     * @param values the values to insert
+     * @return this
+     * @throws IndexOutOfBoundsException if index is greater than {@link #size()}
+     */
+    public FloatList addAll(final UInt32 index, final FloatList values) {
+        final int i = this.checkedInsertionIndex(index);
+        final int count = values.size;
+        // Copy the values first if they share this list's backing array, since the shift below would overwrite them
+        final float[] source = values.elements == this.elements ? values.toArray() : values.elements;
+        this.ensureCapacity(this.size + count);
+        System.arraycopy(this.elements, i, this.elements, i + count, this.size - i);
+        System.arraycopy(source, 0, this.elements, i, count);
+        this.size += count;
+        return this;
+    }
+
+    /**
+     * @param index the index to modify
+     * @param value the value to set at the given index
+     * @return the value that was previously at the given index
+     * @throws IndexOutOfBoundsException if index is not less than {@link #size()}
+     */
+    public float set(final UInt32 index, final float value) {
+        final int i = this.checkedIndex(index);
+        final float ret = this.elements[i];
+        this.elements[i] = value;
+        return ret;
+    }
+
+    /**
+     * @param index the index of the element to remove
+     * @return the element that was at the given index
+     * @throws IndexOutOfBoundsException if index is not less than {@link #size()}
+     */
+    public float remove(final UInt32 index) {
+        final int i = this.checkedIndex(index);
+        final float ret = this.elements[i];
+        System.arraycopy(this.elements, i + 1, this.elements, i, this.size - i - 1);
+        this.size--;
+        return ret;
+    }
+
+    /**
+     * Remove the first occurrence of the given value from this list.
+     * @param value the value to remove
+     * @return whether the value was present
+     */
+    public boolean removeFirst(final float value) {
+        final int i = this.indexOfPrimitive(value);
+        if (i < 0) {
+            return false;
+        }
+        this.remove(UInt32.asUnsigned(i));
+        return true;
+    }
+
+    /**
+     * Like {@link #remove(UInt32)} except that this list is not modified.
+     * @param index the index of the element to exclude
+     * @return a new list containing all elements of this list except the one at the given index
+     * @throws IndexOutOfBoundsException if index is not less than {@link #size()}
+     */
+    public FloatList pureRemove(final UInt32 index) {
+        final int i = this.checkedIndex(index);
+        final float[] ret = new float[this.size - 1];
+        System.arraycopy(this.elements, 0, ret, 0, i);
+        System.arraycopy(this.elements, i + 1, ret, i, this.size - i - 1);
+        return new FloatList(ret, ret.length);
+    }
+
+    /**
+     * Like {@link #removeFirst(float)} except that this list is not modified.
+     * @param value the value to exclude
+     * @return a new list containing all elements of this list except the first occurrence of the given value
+     */
+    public FloatList pureRemoveFirst(final float value) {
+        final int i = this.indexOfPrimitive(value);
+        return i < 0 ? this.copy() : this.pureRemove(UInt32.asUnsigned(i));
+    }
+
+    private FloatPredicate containedIn(final FloatList values) {
+        final float[] sorted = values.toArray();
+        Arrays.sort(sorted);
+        return value -> Arrays.binarySearch(sorted, value) >= 0;
+    }
+
+    /**
+     * Remove each element of this list that is contained in the given list.
+     * @param values the values to remove
+     * @return this
+     */
+    public FloatList removeAll(final FloatList values) {
+        return this.removeIf(this.containedIn(values));
+    }
+
+    /**
+     * Like {@link #removeAll(FloatList)} except that this list is not modified.
+     * @param values the values to exclude
+     * @return a new list containing the elements of this list that are not contained in the given list
+     */
+    public FloatList pureRemoveAll(final FloatList values) {
+        return this.pureRemoveIf(this.containedIn(values));
+    }
+
+    /**
+     * Remove each element x of this list such that p.test(x). Every element is tested before any is removed, so this list is unchanged if
+     * p throws, and the remaining elements are then compacted in a single pass. The elements of large lists may be tested on several
+     * threads at once and in any order.
+     * @param p the predicate to use in filtering this list
+     * @return this
+     */
+    public FloatList removeIf(final FloatPredicate p) {
+        final float[] values = this.elements;
+        final long[] marks = BulkRemoval.mark(0, this.size, i -> p.test(values[i]));
+        if (marks != null) {
+            this.size = BulkRemoval.compact(values, 0, this.size, marks);
+        }
+        return this;
+    }
+
+    /**
+     * Like {@link #removeIf(FloatPredicate)} except that this list is not modified.
+     * @param p the predicate to use in filtering this list
+     * @return a new list containing all and only those elements of this list which do not match the given predicate
+     */
+    public FloatList pureRemoveIf(final FloatPredicate p) {
+        final float[] values = this.elements;
+        final long[] marks = BulkRemoval.mark(0, this.size, i -> p.test(values[i]));
+        if (marks == null) {
+            return this.copy();
+        }
+        final float[] ret = new float[this.size - BulkRemoval.count(marks)];
+        BulkRemoval.copySurvivors(values, 0, marks, 0, this.size, ret, 0);
+        return new FloatList(ret, ret.length);
+    }
+
+    /**
+     * Remove each element of this list that is not contained in the given list.
+     * @param values the values to keep
+     * @return this
+     */
+    public FloatList retainAll(final FloatList values) {
+        return this.retainIf(this.containedIn(values));
+    }
+
+    /**
+     * @param p the predicate to use in filtering this list
+     * @return this
+     */
+    public FloatList retainIf(final FloatPredicate p) {
+        return this.removeIf(p.negate());
+    }
+
+    /**
+     * @param p the predicate to use in filtering this list
+     * @return a new list containing all and only those elements of this list which match the given predicate
+     */
+    public FloatList pureRetainIf(final FloatPredicate p) {
+        return this.pureRemoveIf(p.negate());
+    }
+
+    /**
+     * Remove every element of this list.
+     * @return this
+     */
+    public FloatList clear() {
+        this.size = 0;
+        return this;
+    }
+
+    /**
+     * @return a new empty list
+     */
+    public FloatList pureClear() {
+        return new FloatList();
+    }
+
+    /**
+     * @return a new list with the same elements as this list
+     */
+    public FloatList copy() {
+        return new FloatList(this.toArray(), this.size);
+    }
+
+    /**
+     * @return a new array containing the elements of this list in order
+     */
+    public float[] toArray() {
+        return Arrays.copyOf(this.elements, this.size);
+    }
+
+    /**
+     * @return an iterator over this list
+     */
+    public PrimitiveIterator.OfDouble iterator() {
+        return new PrimitiveIterator.OfDouble() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < FloatList.this.size;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return FloatList.this.elements[this.cursor++];
+            }
+        };
+    }
+
+    /**
+     * @return a spliterator over this list
+     */
+    public Spliterator.OfDouble spliterator() {
+        return Spliterators.spliterator(this.iterator(), this.size, Spliterator.ORDERED);
+    }
+
+    /**
+     * @return a stream over the elements of this list
+     */
+    public DoubleStream stream() {
+        return StreamSupport.doubleStream(this.spliterator(), false);
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FloatList)) {
+            return false;
+        }
+        final FloatList other = (FloatList) o;
+        if (this.size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (!FloatList.same(this.elements[i], other.elements[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int ret = 1;
+        for (int i = 0; i < this.size; i++) {
+            ret = 31 * ret + Float.hashCode(this.elements[i]);
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner ret = new StringJoiner(", ", "[", "]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (int i = 0; i < this.size; i++) {
+            ret.add(String.valueOf(this.elements[i]));
+        }
+        return ret.toString();
+    }
+}
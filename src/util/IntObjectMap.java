@@ -0,0 +1,400 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import util.function.IntObjConsumer;
+import util.number.UInt32;
+
+/**
+ * A hash map from <tt>int</tt>s to non-null values that doesn't box its keys. The keys and values are kept in two flat arrays and found by
+ * linear probing, and removal shifts the entries after the removed one back instead of leaving a marker in its place, so lookups never
+ * slow down as keys come and go.
+ * @param <V> the value type
+ */
+public final class IntObjectMap<V> {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] keys;
+    private Object[] values; // A null value marks an empty slot
+    private int mask;
+    private int size = 0;
+    private int resizeAt;
+    private int modCount = 0;
+
+    /**
+     * Create an empty map.
+     */
+    public IntObjectMap() {
+        this(8);
+    }
+
+    /**
+     * Create an empty map that can hold expectedSize mappings without growing.
+     * @param expectedSize the number of mappings that this map is expected to hold
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public IntObjectMap(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative size, found " + expectedSize); //$NON-NLS-1$
+        }
+        this.allocate(IntObjectMap.capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        final long needed = Math.max(8L, (long) expectedSize * 4 / 3 + 1);
+        return needed >= IntObjectMap.MAX_CAPACITY ? IntObjectMap.MAX_CAPACITY : Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.resizeAt = capacity == IntObjectMap.MAX_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+    }
+
+    private static int hash(final int key) {
+        final int h = key * 0x9e3779b9;
+        return h ^ h >>> 16;
+    }
+
+    private static void checkValue(@Nullable final Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected value, found null"); //$NON-NLS-1$
+        }
+    }
+
+    // The slot that holds key, or -1 if key is absent
+    private int find(final int key) {
+        final int[] keysLocal = this.keys;
+        final Object[] valuesLocal = this.values;
+        for (int i = IntObjectMap.hash(key) & this.mask;; i = i + 1 & this.mask) {
+            if (valuesLocal[i] == null) {
+                return -1;
+            }
+            if (keysLocal[i] == key) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return <tt>true</tt> if this map has no mappings
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value of key, or null if it is absent
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(final int key) {
+        final int i = this.find(key);
+        return i < 0 ? null : (V) this.values[i];
+    }
+
+    /**
+     * @param key the key to look up
+     * @param defaultValue the value to return if key is absent
+     * @return the value of key, or defaultValue if it is absent
+     */
+    public @Nullable V getOrDefault(final int key, @Nullable final V defaultValue) {
+        final V ret = this.get(key);
+        return ret == null ? defaultValue : ret;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return <tt>true</tt> if this map has a value for key
+     */
+    public boolean containsKey(final int key) {
+        return this.find(key) >= 0;
+    }
+
+    /**
+     * @param key the key to map
+     * @param value the value to map key to
+     * @return the previous value of key, or null if it was absent
+     * @throws IllegalArgumentException if value is null
+     * @throws IllegalStateException if this map is full
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V put(final int key, final V value) {
+        IntObjectMap.checkValue(value);
+        final int[] keysLocal = this.keys;
+        final Object[] valuesLocal = this.values;
+        int i = IntObjectMap.hash(key) & this.mask;
+        for (; valuesLocal[i] != null; i = i + 1 & this.mask) {
+            if (keysLocal[i] == key) {
+                final V old = (V) valuesLocal[i];
+                valuesLocal[i] = value;
+                return old;
+            }
+        }
+        if (this.size >= this.resizeAt) {
+            this.grow();
+            this.insert(key, value);
+        } else {
+            keysLocal[i] = key;
+            valuesLocal[i] = value;
+        }
+        this.size++;
+        this.modCount++;
+        return null;
+    }
+
+    // Store a key that is known to be absent, without counting it
+    private void insert(final int key, final Object value) {
+        int i = IntObjectMap.hash(key) & this.mask;
+        while (this.values[i] != null) {
+            i = i + 1 & this.mask;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+    }
+
+    private void grow() {
+        final int capacity = this.mask + 1;
+        if (capacity == IntObjectMap.MAX_CAPACITY) {
+            throw new IllegalStateException("Map is full"); //$NON-NLS-1$
+        }
+        final int[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+        this.allocate(capacity << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                this.insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * @param key the key to remove
+     * @return the value of key before this call, or null if it was absent
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V remove(final int key) {
+        final int i = this.find(key);
+        if (i < 0) {
+            return null;
+        }
+        final V old = (V) this.values[i];
+        this.removeAt(i);
+        return old;
+    }
+
+    /**
+     * Empty the slot at gap and move back every entry after it that would otherwise no longer be reachable from its home slot.
+     * @return <tt>true</tt> if an entry was moved into gap
+     */
+    private boolean removeAt(final int gap) {
+        final int[] keysLocal = this.keys;
+        final Object[] valuesLocal = this.values;
+        final int maskLocal = this.mask;
+        int hole = gap;
+        for (int j = hole + 1 & maskLocal; valuesLocal[j] != null; j = j + 1 & maskLocal) {
+            final int home = IntObjectMap.hash(keysLocal[j]) & maskLocal;
+            if ((j - home & maskLocal) >= (j - hole & maskLocal)) {
+                keysLocal[hole] = keysLocal[j];
+                valuesLocal[hole] = valuesLocal[j];
+                hole = j;
+            }
+        }
+        valuesLocal[hole] = null;
+        this.size--;
+        this.modCount++;
+        return hole != gap;
+    }
+
+    /**
+     * Remove every mapping from this map.
+     */
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+        this.modCount++;
+    }
+
+    /**
+     * @param key the key to look up
+     * @param mappingFunction the function to compute a value for key with if it is absent. If it returns null, key stays absent
+     * @return the value of key after this call, or null if it is absent
+     */
+    public @Nullable V computeIfAbsent(final int key, final IntFunction<? extends V> mappingFunction) {
+        final V present = this.get(key);
+        if (present != null) {
+            return present;
+        }
+        final V value = mappingFunction.apply(key);
+        if (value != null) {
+            this.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Call action on every mapping in this map, in no particular order.
+     * @param action the action to call on each key and its value
+     * @throws ConcurrentModificationException if action adds or removes a mapping
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(final IntObjConsumer<? super V> action) {
+        final int expected = this.modCount;
+        final int[] keysLocal = this.keys;
+        final Object[] valuesLocal = this.values;
+        for (int i = 0; i < valuesLocal.length; i++) {
+            if (valuesLocal[i] != null) {
+                action.accept(keysLocal[i], (V) valuesLocal[i]);
+                if (this.modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    /**
+     * The keys of the returned map are the keys of this map, read as unsigned. The returned map is a view, so changes to either map are
+     * reflected in the other, but each of its operations boxes its keys.
+     * @return a view of this map with {@link UInt32} keys
+     */
+    public Map<UInt32, V> asUnsignedMap() {
+        return new AbstractMap<>() {
+            @Override
+            public int size() {
+                return IntObjectMap.this.size;
+            }
+
+            @Override
+            public boolean containsKey(@Nullable final Object key) {
+                return key instanceof UInt32 && IntObjectMap.this.containsKey(((UInt32) key).intValue());
+            }
+
+            @Override
+            public @Nullable V get(@Nullable final Object key) {
+                return key instanceof UInt32 ? IntObjectMap.this.get(((UInt32) key).intValue()) : null;
+            }
+
+            @Override
+            public @Nullable V put(@Nullable final UInt32 key, @Nullable final V value) {
+                if (key == null) {
+                    throw new IllegalArgumentException("Expected UInt32, found null"); //$NON-NLS-1$
+                }
+                return IntObjectMap.this.put(key.intValue(), value);
+            }
+
+            @Override
+            public @Nullable V remove(@Nullable final Object key) {
+                return key instanceof UInt32 ? IntObjectMap.this.remove(((UInt32) key).intValue()) : null;
+            }
+
+            @Override
+            public void clear() {
+                IntObjectMap.this.clear();
+            }
+
+            @Override
+            public Set<Entry<UInt32, V>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<UInt32, V>> iterator() {
+                        return IntObjectMap.this.new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return IntObjectMap.this.size;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Visits the slots starting just after an empty one, so that every entry that a removal shifts back lands in a slot that hasn't been
+     * visited yet, or in the slot that was just visited, which is then visited again.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<UInt32, V>> {
+        private final int[] keysLocal = IntObjectMap.this.keys;
+        private final Object[] valuesLocal = IntObjectMap.this.values;
+        private final int start;
+        private int visited = 0; // The number of slots visited so far
+        private int last = -1;
+        private int expected = IntObjectMap.this.modCount;
+
+        EntryIterator() {
+            int empty = 0;
+            while (this.valuesLocal[empty] != null && empty < this.valuesLocal.length - 1) {
+                empty++;
+            }
+            this.start = empty + 1;
+        }
+
+        private int slot(final int offset) {
+            return this.start + offset & this.valuesLocal.length - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (IntObjectMap.this.modCount != this.expected) {
+                throw new ConcurrentModificationException();
+            }
+            while (this.visited < this.valuesLocal.length && this.valuesLocal[this.slot(this.visited)] == null) {
+                this.visited++;
+            }
+            return this.visited < this.valuesLocal.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map.Entry<UInt32, V> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int i = this.slot(this.visited++);
+            this.last = i;
+            final int key = this.keysLocal[i];
+            return new AbstractMap.SimpleEntry<>(UInt32.asUnsigned(key), (V) this.valuesLocal[i]) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public V setValue(final V value) {
+                    IntObjectMap.this.put(key, value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            if (IntObjectMap.this.modCount != this.expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (IntObjectMap.this.removeAt(this.last)) {
+                this.visited--;
+            }
+            this.last = -1;
+            this.expected = IntObjectMap.this.modCount;
+        }
+    }
+}
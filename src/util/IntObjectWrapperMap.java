@@ -0,0 +1,205 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import util.function.IntObjConsumer;
+
+/**
+ * A {@link WrapperMap} for <tt>int</tt> keys, which changes the mappings of a backing {@link IntObjectMap} without boxing. Mappings put
+ * into this map hide those of the backing map, removing a key of the backing map hides it, and the changes can be discarded with
+ * {@link #rollback()} or written to the backing map with {@link #commit()}. Changes to the backing map are reflected in this map except
+ * where they are hidden.
+ * @param <V> the value type
+ */
+public final class IntObjectWrapperMap<V> {
+    // The value of a removed key in others
+    private static final Object TOMBSTONE = new Object();
+
+    private final IntObjectMap<V> back;
+    private final IntObjectMap<Object> others = new IntObjectMap<>(); // Values are either of type V or TOMBSTONE
+    private int delta = 0; // The size of this map minus the size of back
+    private int backSize; // The size of back when delta was last counted
+
+    /**
+     * @param back the mappings that this map starts with. This map only modifies back in {@link #commit()}
+     * @throws IllegalArgumentException if back is null
+     */
+    public IntObjectWrapperMap(final IntObjectMap<V> back) {
+        if (back == null) {
+            throw new IllegalArgumentException("Expected IntObjectMap, found null"); //$NON-NLS-1$
+        }
+        this.back = back;
+        this.backSize = back.size();
+    }
+
+    /**
+     * Count the difference between the sizes of this map and the backing map again. The difference is kept up to date as this map is
+     * modified and is recounted automatically when the size of the backing map changes, so this method only needs to be called after keys
+     * of the backing map have been replaced without changing its size. Takes time proportional to the number of changes made to this map.
+     */
+    public void recount() {
+        final int[] count = new int[1];
+        this.others.forEach((key, change) -> {
+            final boolean inBack = this.back.containsKey(key);
+            if (change == IntObjectWrapperMap.TOMBSTONE) {
+                if (inBack) {
+                    count[0]--;
+                }
+            } else if (!inBack) {
+                count[0]++;
+            }
+        });
+        this.delta = count[0];
+        this.backSize = this.back.size();
+    }
+
+    private void checkBackSize() {
+        if (this.back.size() != this.backSize) {
+            this.recount();
+        }
+    }
+
+    /**
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        this.checkBackSize();
+        return this.back.size() + this.delta;
+    }
+
+    /**
+     * @return <tt>true</tt> if this map has no mappings
+     */
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value of key, or null if it is absent
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(final int key) {
+        final Object change = this.others.get(key);
+        if (change == null) {
+            return this.back.get(key);
+        }
+        return change == IntObjectWrapperMap.TOMBSTONE ? null : (V) change;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return <tt>true</tt> if this map has a value for key
+     */
+    public boolean containsKey(final int key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * @param key the key to map
+     * @param value the value to map key to
+     * @return the previous value of key, or null if it was absent
+     * @throws IllegalArgumentException if value is null
+     */
+    public @Nullable V put(final int key, final V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected value, found null"); //$NON-NLS-1$
+        }
+        this.checkBackSize();
+        final V old = this.get(key);
+        this.others.put(key, value);
+        if (old == null) {
+            this.delta++;
+        }
+        return old;
+    }
+
+    /**
+     * Hides any value that the backing map has for key.
+     * @param key the key to remove
+     * @return the value of key before this call, or null if it was absent
+     */
+    public @Nullable V remove(final int key) {
+        this.checkBackSize();
+        final V old = this.get(key);
+        if (old == null) {
+            return null;
+        }
+        if (this.back.containsKey(key)) {
+            this.others.put(key, IntObjectWrapperMap.TOMBSTONE);
+        } else {
+            this.others.remove(key);
+        }
+        this.delta--;
+        return old;
+    }
+
+    /**
+     * Discard the change made to the mapping of key by this map, if any, so that key has its value in the backing map again.
+     * @param key the key to revert
+     * @return whether this map had changed the mapping of key
+     */
+    public boolean revert(final int key) {
+        this.checkBackSize();
+        final Object change = this.others.remove(key);
+        if (change == null) {
+            return false;
+        }
+        final boolean inBack = this.back.containsKey(key);
+        if (change == IntObjectWrapperMap.TOMBSTONE) {
+            if (inBack) {
+                this.delta++;
+            }
+        } else if (!inBack) {
+            this.delta--;
+        }
+        return true;
+    }
+
+    /**
+     * Discard every change made to this map, so that it has the same mappings as the backing map again.
+     */
+    public void rollback() {
+        this.others.clear();
+        this.delta = 0;
+        this.backSize = this.back.size();
+    }
+
+    /**
+     * Write the changes made to this map to the backing map and then discard them, which leaves the mappings of this map as they were.
+     * Takes time proportional to the number of changes, however large the backing map is.
+     */
+    @SuppressWarnings("unchecked")
+    public void commit() {
+        this.others.forEach((key, change) -> {
+            if (change == IntObjectWrapperMap.TOMBSTONE) {
+                this.back.remove(key);
+            } else {
+                this.back.put(key, (V) change);
+            }
+        });
+        this.rollback();
+    }
+
+    /**
+     * Call action on every mapping in this map: first those of the backing map that aren't hidden, with the values put into this map in
+     * place of the values that they hide, and then those that only this map has.
+     * @param action the action to call on each key and its value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(final IntObjConsumer<? super V> action) {
+        this.back.forEach((key, value) -> {
+            final Object change = this.others.get(key);
+            if (change == null) {
+                action.accept(key, value);
+            } else if (change != IntObjectWrapperMap.TOMBSTONE) {
+                action.accept(key, (V) change);
+            }
+        });
+        this.others.forEach((key, change) -> {
+            if (change != IntObjectWrapperMap.TOMBSTONE && !this.back.containsKey(key)) {
+                action.accept(key, (V) change);
+            }
+        });
+    }
+}
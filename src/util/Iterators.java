@@ -1,10 +1,20 @@
 package util;
 
+import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+import util.function.ExConsumer;
+
 /**
  * Collection of utility functions for {@link Iterator}s.
  */
@@ -19,6 +29,15 @@ public final class Iterators {
         }
     };
 
+    private static final AtomicInteger PREFETCH_THREADS = new AtomicInteger();
+
+    // Daemon threads so that an abandoned, unclosed iterator doesn't keep the JVM alive
+    private static final ThreadFactory PREFETCH_THREAD_FACTORY = task -> {
+        final Thread thread = new Thread(task, "Iterators-prefetch-" + Iterators.PREFETCH_THREADS.incrementAndGet()); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+    };
+
     private Iterators() throws UnsupportedOperationException {
         throw new UnsupportedOperationException("Can't instantiate Iterators"); //$NON-NLS-1$
     }
@@ -83,4 +102,241 @@ public final class Iterators {
             }
         };
     }
+
+    /**
+     * Lazily group the elements of the given iterator into chunks. To avoid allocating per chunk, every chunk is the same reused list, so
+     * a chunk is only valid until the next call to {@link Iterator#next()} on the returned iterator and must be copied to be retained.
+     * @param iterator the iterator to group
+     * @param chunkSize the maximum number of elements in each chunk
+     * @return an iterator over lists of chunkSize consecutive elements of the iterator, except that the last list may be shorter
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    public static <T> Iterator<List<T>> chunked(final Iterator<? extends T> iterator, final int chunkSize) {
+        return Iterators.chunked(iterator, chunkSize, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #chunked(Iterator, int)} except that at most limit elements are taken from the iterator.
+     */
+    static <T> Iterator<List<T>> chunked(final Iterator<? extends T> iterator, final int chunkSize, final long limit) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Expected positive chunk size, found " + chunkSize); //$NON-NLS-1$
+        }
+        final Chunk<T> chunk = new Chunk<>((int) Math.min(Math.min(chunkSize, limit), 16));
+        return new Iterator<>() {
+            private long remaining = limit;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining > 0 && iterator.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                chunk.size = 0;
+                while (chunk.size < chunkSize && this.remaining > 0 && iterator.hasNext()) {
+                    if (chunk.size == chunk.elements.length) {
+                        chunk.elements = Arrays.copyOf(chunk.elements, (int) Math.min(chunkSize, 2L * chunk.size));
+                    }
+                    chunk.elements[chunk.size++] = iterator.next();
+                    this.remaining--;
+                }
+                return chunk;
+            }
+        };
+    }
+
+    /**
+     * Read ahead from the given iterator on a background daemon thread. Up to bufferSize elements are buffered, so a consumer that is
+     * slower than the iterator is never kept waiting by it and the iterator is never more than bufferSize elements ahead of the consumer.
+     * Only the background thread accesses the given iterator after this method returns.
+     * @param iterator the iterator to read ahead from
+     * @param bufferSize the maximum number of elements to read ahead
+     * @return an iterator over the same elements as the given iterator. Should be closed if it isn't exhausted
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public static <T> PrefetchingIterator<T> prefetching(final Iterator<? extends T> iterator, final int bufferSize) {
+        return Iterators.prefetching(iterator, bufferSize, Iterators.PREFETCH_THREAD_FACTORY);
+    }
+
+    /**
+     * Like {@link #prefetching(Iterator, int)} except that the background thread is created by the given factory. On runtimes that
+     * support them, <tt>Thread.ofVirtual().factory()</tt> is a good choice for iterators that block on I/O.
+     * @param iterator the iterator to read ahead from
+     * @param bufferSize the maximum number of elements to read ahead
+     * @param threadFactory the factory to create the background thread with
+     * @return an iterator over the same elements as the given iterator. Should be closed if it isn't exhausted
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public static <T> PrefetchingIterator<T> prefetching(final Iterator<? extends T> iterator, final int bufferSize,
+            final ThreadFactory threadFactory) {
+        return Iterators.<T>fromProducer(sink -> iterator.forEachRemaining(sink), bufferSize, threadFactory);
+    }
+
+    /**
+     * Run the given producer on a background daemon thread, passing it a sink for the elements that it produces. The sink blocks while
+     * bufferSize elements are waiting to be consumed, and throws {@link java.util.concurrent.CancellationException} once the returned
+     * iterator is closed.
+     * @param producer the producer of the elements. Anything that it throws is thrown by the returned iterator after the elements that were
+     * produced before it
+     * @param bufferSize the maximum number of elements to produce ahead of the consumer
+     * @return an iterator over the elements that the producer passes to the sink, in order. Should be closed if it isn't exhausted
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public static <T> PrefetchingIterator<T> fromProducer(final ExConsumer<? super Consumer<? super T>, ? extends Exception> producer,
+            final int bufferSize) {
+        return Iterators.fromProducer(producer, bufferSize, Iterators.PREFETCH_THREAD_FACTORY);
+    }
+
+    /**
+     * Like {@link #fromProducer(ExConsumer, int)} except that the background thread is created by the given factory.
+     * @param producer the producer of the elements
+     * @param bufferSize the maximum number of elements to produce ahead of the consumer
+     * @param threadFactory the factory to create the background thread with
+     * @return an iterator over the elements that the producer passes to the sink, in order. Should be closed if it isn't exhausted
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public static <T> PrefetchingIterator<T> fromProducer(final ExConsumer<? super Consumer<? super T>, ? extends Exception> producer,
+            final int bufferSize, final ThreadFactory threadFactory) {
+        return new PrefetchingIterator<>(producer, bufferSize, threadFactory);
+    }
+
+    /**
+     * Lazily merge iterators that are each sorted by the given comparator. Each element costs O(log k) comparisons to produce, where k is
+     * the number of iterators. The merge is stable: elements that compare equal are produced in the order of the iterators that they come
+     * from, and elements from the same iterator keep their order.
+     * @param comparator the order that each iterator is sorted by
+     * @param iters the iterators to merge
+     * @return an iterator over the elements of all of the iterators, sorted by the comparator
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // Arrays.asList only reads the array
+    public static <T> Iterator<T> mergeSorted(final Comparator<? super T> comparator, final Iterator<? extends T>... iters) {
+        return Iterators.mergeSorted(comparator, Arrays.asList(iters));
+    }
+
+    /**
+     * Like {@link #mergeSorted(Comparator, Iterator...)} except that the iterators are given as a list.
+     * @param comparator the order that each iterator is sorted by
+     * @param iters the iterators to merge
+     * @return an iterator over the elements of all of the iterators, sorted by the comparator
+     */
+    public static <T> Iterator<T> mergeSorted(final Comparator<? super T> comparator, final List<? extends Iterator<? extends T>> iters) {
+        return new MergeIterator<>(comparator, iters.toArray(new Iterator<?>[0]));
+    }
+
+    /**
+     * A binary min-heap of the sources that still have elements, keyed by their current elements with ties broken by source index.
+     */
+    private static final class MergeIterator<T> implements Iterator<T> {
+        private final Comparator<? super T> comparator;
+        private final Iterator<?>[] sources; // All elements of type Iterator<? extends T>
+        private final Object[] heads; // The next element of each source in the heap
+        private final int[] heap;
+        private int size = -1; // Negative until the heap is built
+
+        MergeIterator(final Comparator<? super T> comparator, final Iterator<?>[] sources) {
+            this.comparator = comparator;
+            this.sources = sources;
+            this.heads = new Object[sources.length];
+            this.heap = new int[sources.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.size < 0) {
+                this.size = 0;
+                for (int i = 0; i < this.sources.length; i++) {
+                    if (this.sources[i].hasNext()) {
+                        this.heads[i] = this.sources[i].next();
+                        this.heap[this.size++] = i;
+                    }
+                }
+                for (int i = (this.size >>> 1) - 1; i >= 0; i--) {
+                    this.siftDown(i);
+                }
+            }
+            return this.size > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int top = this.heap[0];
+            final T ret = (T) this.heads[top];
+            if (this.sources[top].hasNext()) {
+                this.heads[top] = this.sources[top].next();
+            } else {
+                this.heads[top] = null;
+                this.heap[0] = this.heap[--this.size];
+            }
+            this.siftDown(0);
+            return ret;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean less(final int i, final int j) {
+            final int c = this.comparator.compare((T) this.heads[i], (T) this.heads[j]);
+            return c < 0 || c == 0 && i < j;
+        }
+
+        private void siftDown(final int start) {
+            final int moving = this.heap[start];
+            int pos = start;
+            for (int child = 2 * pos + 1; child < this.size; child = 2 * pos + 1) {
+                if (child + 1 < this.size && this.less(this.heap[child + 1], this.heap[child])) {
+                    child++;
+                }
+                if (!this.less(this.heap[child], moving)) {
+                    break;
+                }
+                this.heap[pos] = this.heap[child];
+                pos = child;
+            }
+            this.heap[pos] = moving;
+        }
+    }
+
+    /**
+     * A reusable read-only list view of the start of an array.
+     */
+    private static final class Chunk<T> extends AbstractList<T> implements RandomAccess {
+        Object[] elements;
+        int size = 0;
+
+        Chunk(final int initialCapacity) {
+            this.elements = new Object[initialCapacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get(final int index) {
+            Objects.checkIndex(index, this.size);
+            return (T) this.elements[index];
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public Object[] toArray() {
+            return Arrays.copyOf(this.elements, this.size);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEach(final Consumer<? super T> action) {
+            for (int i = 0; i < this.size; i++) {
+                action.accept((T) this.elements[i]);
+            }
+        }
+    }
 }
@@ -0,0 +1,376 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map made of a stack of layers, each of which maps some keys. A key is mapped to its value in the topmost layer that maps it, so each
+ * layer hides the mappings of the layers below it like the overlay of a {@link WrapperMap} does. Only the top layer is modified by the
+ * methods of this map, so {@link #remove(Object)} and {@link #clear()} reveal the mappings of the lower layers, as they do for
+ * {@link WrapperMap}.
+ * <p>
+ * {@link #get(Object)} remembers which layer each key was found in, so repeated lookups of a mapped key take one hash lookup however many
+ * layers there are. Each layer records when it was last modified by a clock that is shared by every map forked from the same map, and a
+ * remembered lookup is reused as long as no layer from the top layer down to the layer that it was found in has been modified since.
+ * Checking that takes no hashing, and if nothing in the family of maps has been modified since the last check it takes constant time.
+ * Keys that no layer maps are not remembered, and remembered lookups that have gone stale are dropped whenever the number remembered
+ * doubles, so the memory used stays proportional to the number of mapped keys.
+ * <p>
+ * {@link #push()} and {@link #pop()} add and remove a layer in constant time. {@link #fork()} creates a map in constant time whose layers
+ * are the layers of this map under a new empty layer, which is suitable for a scope nested in the scope that this map represents. The two
+ * maps share their common layers, so modifying this map's top layer afterwards is visible to the fork, but neither map can modify the
+ * other's top layer. Instances of this class are not thread-safe, and neither are families of forked instances.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class LayeredMap<K, V> extends AbstractMap<K, V> {
+    private static final int MIN_PURGE = 16;
+
+    private final Clock clock;
+    private Layer<K, V> top;
+    private final Map<Object, Resolution<K, V>> cache = new HashMap<>(); // Only holds keys that some layer mapped when they were looked up
+    private int purgeAt = LayeredMap.MIN_PURGE; // The size of cache at which its stale entries are dropped
+
+    /**
+     * The time of the last modification of any layer, or any removal of a layer from any map, in a family of forked maps.
+     */
+    private static final class Clock {
+        long time = 0;
+    }
+
+    private static final class Layer<K, V> {
+        final Map<K, V> mappings = new HashMap<>();
+        @Nullable
+        final Layer<K, V> parent;
+        final int depth;
+        long version = 0; // The time at which this layer was last modified, or 0 if it is empty and never has been
+
+        Layer(@Nullable final Layer<K, V> parent) {
+            this.parent = parent;
+            this.depth = parent == null ? 1 : parent.depth + 1;
+        }
+    }
+
+    /**
+     * The result of looking up a key, which is valid as long as no layer from the top down to the layer that it was found in has been
+     * modified after stamp.
+     */
+    private static final class Resolution<K, V> {
+        @Nullable
+        Layer<K, V> layer; // Null if no layer maps the key
+        @Nullable
+        V value;
+        long stamp;
+
+        Resolution(@Nullable final Layer<K, V> layer, @Nullable final V value, final long stamp) {
+            this.layer = layer;
+            this.value = value;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Create a map with one empty layer.
+     */
+    public LayeredMap() {
+        this(new Clock(), new Layer<>(null));
+    }
+
+    /**
+     * Create a map whose bottom layer contains a copy of the given mappings.
+     * @param base the mappings of the bottom layer. Later changes to base are not reflected in this map
+     * @throws IllegalArgumentException if base is null or maps a key to null
+     */
+    public LayeredMap(final Map<? extends K, ? extends V> base) {
+        this();
+        if (base == null) {
+            throw new IllegalArgumentException("Expected Map, found null"); //$NON-NLS-1$
+        }
+        this.putAll(base);
+    }
+
+    private LayeredMap(final Clock clock, final Layer<K, V> top) {
+        this.clock = clock;
+        this.top = top;
+    }
+
+    /**
+     * Add an empty layer on top of the layers of this map.
+     * @return this
+     */
+    public LayeredMap<K, V> push() {
+        this.top = new Layer<>(this.top);
+        return this;
+    }
+
+    /**
+     * Remove the top layer of this map, revealing the mappings that it hid. Maps forked from this map keep the removed layer.
+     * @return this
+     * @throws IllegalStateException if this map only has one layer
+     */
+    public LayeredMap<K, V> pop() {
+        if (this.top.parent == null) {
+            throw new IllegalStateException("Can't pop last layer"); //$NON-NLS-1$
+        }
+        this.top = this.top.parent;
+        this.clock.time++;
+        return this;
+    }
+
+    /**
+     * @return a new map whose layers are an empty layer on top of the layers of this map
+     */
+    public LayeredMap<K, V> fork() {
+        return new LayeredMap<>(this.clock, new Layer<>(this.top));
+    }
+
+    /**
+     * @return the number of layers of this map
+     */
+    public int depth() {
+        return this.top.depth;
+    }
+
+    private void touch(final Layer<K, V> layer) {
+        layer.version = ++this.clock.time;
+    }
+
+    private boolean isValid(final Resolution<K, V> resolution) {
+        if (resolution.stamp == this.clock.time) {
+            return true;
+        }
+        for (Layer<K, V> layer = this.top; layer != null; layer = layer.parent) {
+            if (layer.version > resolution.stamp) {
+                return false;
+            }
+            if (layer == resolution.layer) {
+                return true;
+            }
+        }
+        return resolution.layer == null;
+    }
+
+    private void remember(final Object key, final Resolution<K, V> resolution) {
+        this.cache.put(key, resolution);
+        if (this.cache.size() >= this.purgeAt) {
+            this.cache.values().removeIf(r -> !this.isValid(r));
+            this.purgeAt = Math.max(LayeredMap.MIN_PURGE, this.cache.size() * 2);
+        }
+    }
+
+    // Returns null if no layer maps key
+    private @Nullable Resolution<K, V> resolve(final Object key) {
+        final Resolution<K, V> ret = this.cache.get(key);
+        if (ret != null && this.isValid(ret)) {
+            ret.stamp = this.clock.time;
+            return ret;
+        }
+        Layer<K, V> layer = this.top;
+        V value = null;
+        while (layer != null && (value = layer.mappings.get(key)) == null) {
+            layer = layer.parent;
+        }
+        if (layer == null) {
+            if (ret != null) {
+                this.cache.remove(key);
+            }
+            return null;
+        }
+        if (ret == null) {
+            final Resolution<K, V> resolution = new Resolution<>(layer, value, this.clock.time);
+            this.remember(key, resolution);
+            return resolution;
+        }
+        ret.layer = layer;
+        ret.value = value;
+        ret.stamp = this.clock.time;
+        return ret;
+    }
+
+    @Override
+    public @Nullable V get(@Nullable final Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Expected Key, found null"); //$NON-NLS-1$
+        }
+        final Resolution<K, V> resolution = this.resolve(key);
+        return resolution == null ? null : resolution.value;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable final Object key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Map key to value in the top layer of this map.
+     */
+    @Override
+    public @Nullable V put(@Nullable final K key, @Nullable final V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Expected Key, found null"); //$NON-NLS-1$
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Expected Value, found null"); //$NON-NLS-1$
+        }
+        final Resolution<K, V> resolution = this.resolve(key);
+        this.top.mappings.put(key, value);
+        this.touch(this.top);
+        if (resolution == null) {
+            this.remember(key, new Resolution<>(this.top, value, this.clock.time));
+            return null;
+        }
+        final V ret = resolution.value;
+        resolution.layer = this.top;
+        resolution.value = value;
+        resolution.stamp = this.clock.time;
+        return ret;
+    }
+
+    /**
+     * Remove the mapping for key from the top layer of this map, which reveals the mapping of the next layer down that maps it, if any.
+     * @return the value that key was mapped to before this call
+     */
+    @Override
+    public @Nullable V remove(@Nullable final Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Expected Key, found null"); //$NON-NLS-1$
+        }
+        final V ret = this.get(key);
+        if (this.top.mappings.remove(key) != null) {
+            this.touch(this.top);
+            this.cache.remove(key);
+        }
+        return ret;
+    }
+
+    /**
+     * Remove every mapping of the top layer of this map, which reveals the mappings of the lower layers.
+     */
+    @Override
+    public void clear() {
+        if (!this.top.mappings.isEmpty()) {
+            this.top.mappings.clear();
+            this.touch(this.top);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Layer<K, V> layer = this.top; layer != null; layer = layer.parent) {
+            if (!layer.mappings.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Whether a layer above the given one maps key
+    private boolean hidden(final Object key, final Layer<K, V> layer) {
+        for (Layer<K, V> above = this.top; above != layer; above = above.parent) {
+            if (above.mappings.containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The returned set iterates over the layers from the top down, skipping the mappings that are hidden, without copying any of them. Its
+     * size is computed by iterating over it. Mappings can only be removed through its iterator while it is iterating over the top layer.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return LayeredMap.this.new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                int ret = 0;
+                for (final Iterator<Entry<K, V>> iter = this.iterator(); iter.hasNext(); iter.next()) {
+                    ret++;
+                }
+                return ret;
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return LayeredMap.this.isEmpty();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        @Nullable
+        private Layer<K, V> layer = LayeredMap.this.top;
+        private Iterator<Entry<K, V>> layerIter = LayeredMap.this.top.mappings.entrySet().iterator();
+        @Nullable
+        private Entry<K, V> next = null;
+        private boolean lastFromTop = false; // Whether the last entry returned was from the top layer
+        private boolean removable = false; // Whether layerIter last returned the last entry returned by this iterator
+
+        EntryIterator() {
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && this.layer != null) {
+                this.removable = false;
+                if (!this.layerIter.hasNext()) {
+                    this.layer = this.layer.parent;
+                    if (this.layer != null) {
+                        this.layerIter = this.layer.mappings.entrySet().iterator();
+                    }
+                    continue;
+                }
+                final Entry<K, V> entry = this.layerIter.next();
+                if (!LayeredMap.this.hidden(entry.getKey(), this.layer)) {
+                    this.next = entry;
+                }
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Entry<K, V> entry = this.next;
+            this.next = null;
+            this.lastFromTop = this.layer == LayeredMap.this.top;
+            this.removable = true;
+            return new SimpleEntry<>(entry) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public V setValue(final V value) {
+                    LayeredMap.this.put(entry.getKey(), value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (!this.lastFromTop) {
+                throw new UnsupportedOperationException("Can only remove mappings of top layer"); //$NON-NLS-1$
+            }
+            if (!this.removable) {
+                throw new IllegalStateException();
+            }
+            this.layerIter.remove();
+            LayeredMap.this.touch(LayeredMap.this.top);
+            this.removable = false;
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package util;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
+import java.util.RandomAccess;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 import util.function.TriFunction;
 
@@ -12,6 +19,11 @@ import util.function.TriFunction;
  * Utilities not present in {@link List}.
  */
 public final class Lists {
+    /**
+     * The minimum size of a list for {@link #materialize(List)} to copy it in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
+
     private Lists() {
         throw new UnsupportedOperationException();
     }
@@ -73,7 +85,7 @@ public final class Lists {
             final List<U> snd) {
 
         final int size = Math.min(fst.size(), snd.size());
-        final List<V> ret = new ArrayList<>();
+        final List<V> ret = new ArrayList<>(size);
         for (int i = 0; i < size; i++) {
             ret.add(joiner.apply(i, fst.get(i), snd.get(i)));
         }
@@ -89,7 +101,7 @@ public final class Lists {
     public static <T, U> List<U> mapIndex(final BiFunction<Integer, ? super T, ? extends U> mapper, final List<T> xs) {
         final List<U> ret = new ArrayList<>(xs.size());
         for (int i = 0; i < xs.size(); i++) {
-            ret.set(i, mapper.apply(i, xs.get(i)));
+            ret.add(mapper.apply(i, xs.get(i)));
         }
         return ret;
     }
@@ -104,6 +116,145 @@ public final class Lists {
         return Lists.mapIndex((none, x) -> mapper.apply(x), xs);
     }
 
+    /**
+     * A read-only list whose elements are computed from their indices on each access. Views built on top of a ComputedList read through
+     * its generator directly, so chains of views don't stack list lookups.
+     * @param <T> the type of the elements of the list
+     */
+    private static final class ComputedList<T> extends AbstractList<T> implements RandomAccess {
+        private final int size;
+        private final IntFunction<? extends T> generator;
+
+        ComputedList(final int size, final IntFunction<? extends T> generator) {
+            this.size = size;
+            this.generator = generator;
+        }
+
+        @Override
+        public T get(final int index) {
+            return this.generator.apply(Objects.checkIndex(index, this.size));
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+    }
+
+    /**
+     * @param xs a list
+     * @return a function that produces the element at the given index of xs in constant time if xs is {@link RandomAccess}
+     */
+    private static <T> IntFunction<? extends T> accessor(final List<T> xs) {
+        if (xs instanceof ComputedList) {
+            return ((ComputedList<T>) xs).generator;
+        }
+        final List<T> randomAccess = xs instanceof RandomAccess ? xs : new ArrayList<>(xs);
+        return randomAccess::get;
+    }
+
+    /**
+     * Like {@link #zipIndexWith(TriFunction, List, List)} except that the returned list is a read-only view that applies joiner each time
+     * an element is read instead of storing the results. The size of the view is fixed when it is created. If either argument doesn't
+     * implement {@link RandomAccess}, its elements are copied first. Views created by this class are fused instead of wrapped when they are
+     * passed to this method or to another <tt>*View</tt> method.
+     * @param <T> the type of the first arguments
+     * @param <U> the type of the second arguments
+     * @param <V> the type of the elements of the returned list
+     * @param joiner the joiner function
+     * @param fst the list of first arguments to the joiner function
+     * @param snd the list of second arguments to the joiner function
+     * @return a random access view of the results of applying joiner to each index and pair of corresponding values in fst and snd
+     */
+    public static <T, U, V> List<V> zipIndexWithView(
+            final TriFunction<Integer, ? super T, ? super U, ? extends V> joiner,
+            final List<T> fst,
+            final List<U> snd) {
+
+        final IntFunction<? extends T> fstAt = Lists.accessor(fst);
+        final IntFunction<? extends U> sndAt = Lists.accessor(snd);
+        return new ComputedList<>(Math.min(fst.size(), snd.size()), i -> joiner.apply(i, fstAt.apply(i), sndAt.apply(i)));
+    }
+
+    /**
+     * Lazy version of {@link #zipWith(BiFunction, List, List)}. See {@link #zipIndexWithView(TriFunction, List, List)}.
+     * @param joiner the function to turn the pairs of elements into a single object
+     * @param fst the list of first arguments to joiner
+     * @param snd the list of second arguments to joiner
+     * @return a random access view of c<sub>i</sub>=joiner(fst.get(i), snd.get(i)) such that 0 &le; i &lt; min(fst.size(), snd.size())
+     */
+    public static <T, U, V> List<V> zipWithView(
+            final BiFunction<? super T, ? super U, ? extends V> joiner,
+            final List<T> fst,
+            final List<U> snd) {
+
+        final IntFunction<? extends T> fstAt = Lists.accessor(fst);
+        final IntFunction<? extends U> sndAt = Lists.accessor(snd);
+        return new ComputedList<>(Math.min(fst.size(), snd.size()), i -> joiner.apply(fstAt.apply(i), sndAt.apply(i)));
+    }
+
+    /**
+     * Lazy version of {@link #zip(List, List)}. See {@link #zipIndexWithView(TriFunction, List, List)}.
+     * @param fst the first elements of the pairs in the returned list
+     * @param snd the second elements of the pairs in the returned list
+     * @return a random access view of c<sub>i</sub>=(fst.get(i), snd.get(i)) such that 0 &le; i &lt; min(fst.size(), snd.size())
+     */
+    public static <T, U> List<Pair<T, U>> zipView(final List<T> fst, final List<U> snd) {
+        return Lists.zipWithView(Pair::new, fst, snd);
+    }
+
+    /**
+     * Lazy version of {@link #zipIndex(List, List)}. See {@link #zipIndexWithView(TriFunction, List, List)}.
+     * @param fst the first elements of the pairs in the returned list
+     * @param snd the second elements of the pairs in the returned list
+     * @return a random access view of c<sub>i</sub>=(i, (fst.get(i), snd.get(i))) such that 0 &le; i &lt; min(fst.size(), snd.size())
+     */
+    public static <T, U> List<Pair<Integer, Pair<T, U>>> zipIndexView(final List<T> fst, final List<U> snd) {
+        return Lists.zipIndexWithView((i, f, s) -> new Pair<>(i, new Pair<>(f, s)), fst, snd);
+    }
+
+    /**
+     * Lazy version of {@link #mapIndex(BiFunction, List)}. See {@link #zipIndexWithView(TriFunction, List, List)}.
+     * @param mapper the mapping function
+     * @param xs the list to map
+     * @return a random access view of the mapped list
+     */
+    public static <T, U> List<U> mapIndexView(final BiFunction<Integer, ? super T, ? extends U> mapper, final List<T> xs) {
+        final IntFunction<? extends T> at = Lists.accessor(xs);
+        return new ComputedList<>(xs.size(), i -> mapper.apply(i, at.apply(i)));
+    }
+
+    /**
+     * Lazy version of {@link #map(Function, List)}. See {@link #zipIndexWithView(TriFunction, List, List)}.
+     * @param mapper the mapping function
+     * @param xs the list to map
+     * @return a random access view of the mapped list
+     */
+    public static <T, U> List<U> mapView(final Function<? super T, ? extends U> mapper, final List<T> xs) {
+        final IntFunction<? extends T> at = Lists.accessor(xs);
+        return new ComputedList<>(xs.size(), i -> mapper.apply(at.apply(i)));
+    }
+
+    /**
+     * Copy the given list into a new array, which the returned list is a view of, like {@link Arrays#asList(Object...)}: its elements can
+     * be replaced, but it can't grow or shrink. Lists with at least {@link #PARALLEL_THRESHOLD} elements are read in parallel on the
+     * common {@link java.util.concurrent.ForkJoinPool}, which is worthwhile for the views produced by the <tt>*View</tt> methods when
+     * their functions are expensive. The functions of such views must then be safe to call from multiple threads.
+     * @param xs the list to copy. Must be {@link RandomAccess} to benefit from parallelism
+     * @return a new fixed-size list containing the elements of xs
+     */
+    @SuppressWarnings("unchecked") // Every element of ret is an element of xs
+    public static <T> List<T> materialize(final List<? extends T> xs) {
+        final int size = xs.size();
+        if (size < Lists.PARALLEL_THRESHOLD || !(xs instanceof RandomAccess)) {
+            return (List<T>) Arrays.asList(xs.toArray());
+        }
+        final IntFunction<? extends T> at = xs instanceof ComputedList ? ((ComputedList<? extends T>) xs).generator : xs::get;
+        final Object[] ret = new Object[size];
+        IntStream.range(0, size).parallel().forEach(i -> ret[i] = at.apply(i));
+        return (List<T>) Arrays.asList(ret);
+    }
+
     /**
      * @param values the bytes to represent as a list
      * @return a list representation of the sequence of bytes
@@ -117,12 +268,23 @@ public final class Lists {
     }
 
     /**
+     * Equivalent to {@link #randEl(List, RandomGenerator)}.
      * @param xs the list to get a random element from.
      * @param rng the random number generator to use.
      * @return a random element of the given list, chosen by rng.
      * @throws IllegalStateException if the element selected by rng is null.
      */
     public static <T> T randEl(final List<T> xs, final Random rng) {
+        return Lists.randEl(xs, (RandomGenerator) rng);
+    }
+
+    /**
+     * @param xs the list to get a random element from.
+     * @param rng the random number generator to use.
+     * @return a random element of the given list, chosen by rng.
+     * @throws IllegalStateException if the element selected by rng is null.
+     */
+    public static <T> T randEl(final List<T> xs, final RandomGenerator rng) {
         return Maybe.maybe(xs.get(rng.nextInt(xs.size()))).fromJust();
     }
 }
@@ -0,0 +1,242 @@
+package util;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+import util.function.LongBiConsumer;
+
+/**
+ * A hash map from <tt>long</tt>s to <tt>long</tt>s that boxes neither. The keys and values are kept in two flat arrays and found by linear
+ * probing. A key of <tt>0</tt> marks an empty slot, so the value of the key <tt>0</tt> is kept apart from the arrays.
+ */
+public final class LongLongMap {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size = 0; // Doesn't count the key 0
+    private int resizeAt;
+    private boolean hasZeroKey = false;
+    private long zeroValue = 0;
+    private int modCount = 0;
+
+    /**
+     * Create an empty map.
+     */
+    public LongLongMap() {
+        this(8);
+    }
+
+    /**
+     * Create an empty map that can hold expectedSize mappings without growing.
+     * @param expectedSize the number of mappings that this map is expected to hold
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public LongLongMap(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative size, found " + expectedSize); //$NON-NLS-1$
+        }
+        final long needed = Math.max(8L, (long) expectedSize * 4 / 3 + 1);
+        this.allocate(needed >= LongLongMap.MAX_CAPACITY ? LongLongMap.MAX_CAPACITY : Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.mask = capacity - 1;
+        this.resizeAt = capacity == LongLongMap.MAX_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    // The slot that holds key, which must not be 0, or the empty slot that it would be put into
+    private int slot(final long key) {
+        final long[] keysLocal = this.keys;
+        int i = LongLongMap.hash(key) & this.mask;
+        while (keysLocal[i] != 0 && keysLocal[i] != key) {
+            i = i + 1 & this.mask;
+        }
+        return i;
+    }
+
+    /**
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        return this.hasZeroKey ? this.size + 1 : this.size;
+    }
+
+    /**
+     * @return <tt>true</tt> if this map has no mappings
+     */
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * @param key the key to look up
+     * @param defaultValue the value to return if key is absent
+     * @return the value of key, or defaultValue if it is absent
+     */
+    public long getOrDefault(final long key, final long defaultValue) {
+        if (key == 0) {
+            return this.hasZeroKey ? this.zeroValue : defaultValue;
+        }
+        final int i = this.slot(key);
+        return this.keys[i] == 0 ? defaultValue : this.values[i];
+    }
+
+    /**
+     * @param key the key to look up
+     * @return <tt>true</tt> if this map has a value for key
+     */
+    public boolean containsKey(final long key) {
+        return key == 0 ? this.hasZeroKey : this.keys[this.slot(key)] != 0;
+    }
+
+    /**
+     * @param key the key to map
+     * @param value the value to map key to
+     * @return <tt>true</tt> if key was absent before this call
+     * @throws IllegalStateException if this map is full
+     */
+    public boolean put(final long key, final long value) {
+        if (key == 0) {
+            final boolean added = !this.hasZeroKey;
+            this.zeroValue = value;
+            if (added) {
+                this.hasZeroKey = true;
+                this.modCount++;
+            }
+            return added;
+        }
+        int i = this.slot(key);
+        if (this.keys[i] != 0) {
+            this.values[i] = value;
+            return false;
+        }
+        if (this.size >= this.resizeAt) {
+            this.grow();
+            i = this.slot(key);
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.size++;
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * Add delta to the value of key, treating an absent key as having the value <tt>0</tt>.
+     * @param key the key whose value to change
+     * @param delta the amount to add to the value of key
+     * @return the value of key after this call
+     * @throws IllegalStateException if key is absent and this map is full
+     */
+    public long addTo(final long key, final long delta) {
+        if (key == 0) {
+            final long ret = (this.hasZeroKey ? this.zeroValue : 0) + delta;
+            this.put(0, ret);
+            return ret;
+        }
+        final int i = this.slot(key);
+        if (this.keys[i] == 0) {
+            this.put(key, delta);
+            return delta;
+        }
+        return this.values[i] += delta;
+    }
+
+    private void grow() {
+        final int capacity = this.mask + 1;
+        if (capacity == LongLongMap.MAX_CAPACITY) {
+            throw new IllegalStateException("Map is full"); //$NON-NLS-1$
+        }
+        final long[] oldKeys = this.keys;
+        final long[] oldValues = this.values;
+        this.allocate(capacity << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                final int j = this.slot(oldKeys[i]);
+                this.keys[j] = oldKeys[i];
+                this.values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * @param key the key to remove
+     * @return <tt>true</tt> if key was present before this call
+     */
+    public boolean remove(final long key) {
+        if (key == 0) {
+            final boolean removed = this.hasZeroKey;
+            this.hasZeroKey = false;
+            this.zeroValue = 0;
+            if (removed) {
+                this.modCount++;
+            }
+            return removed;
+        }
+        final long[] keysLocal = this.keys;
+        final long[] valuesLocal = this.values;
+        final int maskLocal = this.mask;
+        int hole = this.slot(key);
+        if (keysLocal[hole] == 0) {
+            return false;
+        }
+        // Shift back every entry after the removed one that would otherwise no longer be reachable from its home slot
+        for (int j = hole + 1 & maskLocal; keysLocal[j] != 0; j = j + 1 & maskLocal) {
+            final int home = LongLongMap.hash(keysLocal[j]) & maskLocal;
+            if ((j - home & maskLocal) >= (j - hole & maskLocal)) {
+                keysLocal[hole] = keysLocal[j];
+                valuesLocal[hole] = valuesLocal[j];
+                hole = j;
+            }
+        }
+        keysLocal[hole] = 0;
+        this.size--;
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * Remove every mapping from this map.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, 0);
+        this.size = 0;
+        this.hasZeroKey = false;
+        this.zeroValue = 0;
+        this.modCount++;
+    }
+
+    /**
+     * Call action on every mapping in this map, in no particular order.
+     * @param action the action to call on each key and its value
+     * @throws ConcurrentModificationException if action adds or removes a mapping
+     */
+    public void forEach(final LongBiConsumer action) {
+        final int expected = this.modCount;
+        if (this.hasZeroKey) {
+            action.accept(0, this.zeroValue);
+        }
+        final long[] keysLocal = this.keys;
+        final long[] valuesLocal = this.values;
+        for (int i = 0; i < keysLocal.length; i++) {
+            if (this.modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (keysLocal[i] != 0) {
+                action.accept(keysLocal[i], valuesLocal[i]);
+            }
+        }
+        if (this.modCount != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Like {@link Maybe Maybe&lt;Double&gt;} except that the value is kept as an <tt>double</tt>, so it is never boxed. An instance is small
+ * and immutable, so instances that don't escape the method that creates them can usually be eliminated by the JIT compiler.
+ */
+public final class MaybeDouble {
+    private static final MaybeDouble NOTHING = new MaybeDouble(false, 0);
+
+    private final boolean present;
+    private final double value;
+
+    private MaybeDouble(final boolean present, final double value) {
+        this.present = present;
+        this.value = value;
+    }
+
+    /**
+     * @return an object which contains no value
+     */
+    public static MaybeDouble nothing() {
+        return MaybeDouble.NOTHING;
+    }
+
+    /**
+     * @param value the value of the returned object
+     * @return an object which contains the given value
+     */
+    public static MaybeDouble just(final double value) {
+        return new MaybeDouble(true, value);
+    }
+
+    /**
+     * @param wrapper the value to convert
+     * @return if {@link Maybe#isJust() wrapper.isJust()} then {@link #just(double) just(wrapper.fromJust())} else {@link #nothing()}
+     */
+    public static MaybeDouble fromMaybe(final Maybe<Double> wrapper) {
+        return wrapper.isJust() ? MaybeDouble.just(wrapper.fromJust().doubleValue()) : MaybeDouble.nothing();
+    }
+
+    /**
+     * @return whether this object does not contain any value
+     */
+    public boolean isNothing() {
+        return !this.present;
+    }
+
+    /**
+     * @return whether this object contains a value
+     */
+    public boolean isJust() {
+        return this.present;
+    }
+
+    /**
+     * @return if this object contains a value then the value contained by this object else throws an IllegalStateException
+     * @throws IllegalStateException if {@link #isNothing()}
+     */
+    public double fromJust() {
+        if (!this.present) {
+            throw new IllegalStateException("Tried to extract value from Nothing"); //$NON-NLS-1$
+        }
+        return this.value;
+    }
+
+    /**
+     * @param defaultValue the value to return if this object does not contain a value
+     * @return if {@link #isJust()} then {@link #fromJust()} else defaultValue
+     */
+    public double fromMaybe(final double defaultValue) {
+        return this.present ? this.value : defaultValue;
+    }
+
+    /**
+     * @param defaultSupplier the supplier of the value to return if {@link #isNothing()}
+     * @return if {@link #isNothing()} then {@link DoubleSupplier#getAsDouble() defaultSupplier.getAsDouble()} else {@link #fromJust()}
+     */
+    public double fromMaybeGet(final DoubleSupplier defaultSupplier) {
+        return this.present ? this.value : defaultSupplier.getAsDouble();
+    }
+
+    /**
+     * @param f the mapping function
+     * @return if {@link #isNothing()} then {@link #nothing()} else f.apply(fromJust())
+     */
+    public MaybeDouble bind(final DoubleFunction<MaybeDouble> f) {
+        return this.present ? f.apply(this.value) : MaybeDouble.NOTHING;
+    }
+
+    /**
+     * @param f the mapping function
+     * @return if {@link #isNothing()} then {@link #nothing()} else {@link #just(double) just(f.applyAsDouble(fromJust()))}
+     */
+    public MaybeDouble map(final DoubleUnaryOperator f) {
+        return this.present ? MaybeDouble.just(f.applyAsDouble(this.value)) : MaybeDouble.NOTHING;
+    }
+
+    /**
+     * @param f the mapping function
+     * @param <U> the type of the value of the returned object
+     * @return if {@link #isNothing()} then {@link Maybe#nothing()} else {@link Maybe#maybe(Object) Maybe.maybe(f.apply(fromJust()))}
+     */
+    public <U> Maybe<U> mapToObj(final DoubleFunction<U> f) {
+        return this.present ? Maybe.maybe(f.apply(this.value)) : Maybe.nothing();
+    }
+
+    /**
+     * @param filter the filter on this object
+     * @return this if this is of the form <tt>Just x</tt> where <tt>filter.test(x)</tt>, <tt>Nothing</tt> otherwise
+     */
+    public MaybeDouble filter(final DoublePredicate filter) {
+        return this.present && filter.test(this.value) ? this : MaybeDouble.NOTHING;
+    }
+
+    /**
+     * Applies the given consumer to the value contained in this object iff <tt>{@link #isJust() this.isJust()}</tt>.
+     * @param f the consumer to apply
+     * @return this
+     */
+    public MaybeDouble ifJust(final DoubleConsumer f) {
+        if (this.present) {
+            f.accept(this.value);
+        }
+        return this;
+    }
+
+    /**
+     * Runs the given Runnable iff <tt>{@link #isNothing() this.isNothing()}</tt>.
+     * @param f the runnable to run
+     * @return this
+     */
+    public MaybeDouble ifNothing(final Runnable f) {
+        if (!this.present) {
+            f.run();
+        }
+        return this;
+    }
+
+    /**
+     * @return this object with its value boxed
+     */
+    public Maybe<Double> boxed() {
+        return this.present ? Maybe.just(Double.valueOf(this.value)) : Maybe.nothing();
+    }
+
+    @Override
+    public String toString() {
+        return this.present ? "Just (" + this.value + ")" : "Nothing"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (!(o instanceof MaybeDouble)) {
+            return false;
+        }
+        final MaybeDouble other = (MaybeDouble) o;
+        return this.present == other.present && Double.compare(this.value, other.value) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.present ? Double.hashCode(this.value) : 0;
+    }
+}
@@ -0,0 +1,172 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Like {@link Maybe Maybe&lt;Integer&gt;} except that the value is kept as an <tt>int</tt>, so it is never boxed. An instance is small
+ * and immutable, so instances that don't escape the method that creates them can usually be eliminated by the JIT compiler.
+ */
+public final class MaybeInt {
+    private static final MaybeInt NOTHING = new MaybeInt(false, 0);
+
+    private final boolean present;
+    private final int value;
+
+    private MaybeInt(final boolean present, final int value) {
+        this.present = present;
+        this.value = value;
+    }
+
+    /**
+     * @return an object which contains no value
+     */
+    public static MaybeInt nothing() {
+        return MaybeInt.NOTHING;
+    }
+
+    /**
+     * @param value the value of the returned object
+     * @return an object which contains the given value
+     */
+    public static MaybeInt just(final int value) {
+        return new MaybeInt(true, value);
+    }
+
+    /**
+     * @param wrapper the value to convert
+     * @return if {@link Maybe#isJust() wrapper.isJust()} then {@link #just(int) just(wrapper.fromJust())} else {@link #nothing()}
+     */
+    public static MaybeInt fromMaybe(final Maybe<Integer> wrapper) {
+        return wrapper.isJust() ? MaybeInt.just(wrapper.fromJust().intValue()) : MaybeInt.nothing();
+    }
+
+    /**
+     * @return whether this object does not contain any value
+     */
+    public boolean isNothing() {
+        return !this.present;
+    }
+
+    /**
+     * @return whether this object contains a value
+     */
+    public boolean isJust() {
+        return this.present;
+    }
+
+    /**
+     * @return if this object contains a value then the value contained by this object else throws an IllegalStateException
+     * @throws IllegalStateException if {@link #isNothing()}
+     */
+    public int fromJust() {
+        if (!this.present) {
+            throw new IllegalStateException("Tried to extract value from Nothing"); //$NON-NLS-1$
+        }
+        return this.value;
+    }
+
+    /**
+     * @param defaultValue the value to return if this object does not contain a value
+     * @return if {@link #isJust()} then {@link #fromJust()} else defaultValue
+     */
+    public int fromMaybe(final int defaultValue) {
+        return this.present ? this.value : defaultValue;
+    }
+
+    /**
+     * @param defaultSupplier the supplier of the value to return if {@link #isNothing()}
+     * @return if {@link #isNothing()} then {@link IntSupplier#getAsInt() defaultSupplier.getAsInt()} else {@link #fromJust()}
+     */
+    public int fromMaybeGet(final IntSupplier defaultSupplier) {
+        return this.present ? this.value : defaultSupplier.getAsInt();
+    }
+
+    /**
+     * @param f the mapping function
+     * @return if {@link #isNothing()} then {@link #nothing()} else f.apply(fromJust())
+     */
+    public MaybeInt bind(final IntFunction<MaybeInt> f) {
+        return this.present ? f.apply(this.value) : MaybeInt.NOTHING;
+    }
+
+    /**
+     * @param f the mapping function
+     * @return if {@link #isNothing()} then {@link #nothing()} else {@link #just(int) just(f.applyAsInt(fromJust()))}
+     */
+    public MaybeInt map(final IntUnaryOperator f) {
+        return this.present ? MaybeInt.just(f.applyAsInt(this.value)) : MaybeInt.NOTHING;
+    }
+
+    /**
+     * @param f the mapping function
+     * @param <U> the type of the value of the returned object
+     * @return if {@link #isNothing()} then {@link Maybe#nothing()} else {@link Maybe#maybe(Object) Maybe.maybe(f.apply(fromJust()))}
+     */
+    public <U> Maybe<U> mapToObj(final IntFunction<U> f) {
+        return this.present ? Maybe.maybe(f.apply(this.value)) : Maybe.nothing();
+    }
+
+    /**
+     * @param filter the filter on this object
+     * @return this if this is of the form <tt>Just x</tt> where <tt>filter.test(x)</tt>, <tt>Nothing</tt> otherwise
+     */
+    public MaybeInt filter(final IntPredicate filter) {
+        return this.present && filter.test(this.value) ? this : MaybeInt.NOTHING;
+    }
+
+    /**
+     * Applies the given consumer to the value contained in this object iff <tt>{@link #isJust() this.isJust()}</tt>.
+     * @param f the consumer to apply
+     * @return this
+     */
+    public MaybeInt ifJust(final IntConsumer f) {
+        if (this.present) {
+            f.accept(this.value);
+        }
+        return this;
+    }
+
+    /**
+     * Runs the given Runnable iff <tt>{@link #isNothing() this.isNothing()}</tt>.
+     * @param f the runnable to run
+     * @return this
+     */
+    public MaybeInt ifNothing(final Runnable f) {
+        if (!this.present) {
+            f.run();
+        }
+        return this;
+    }
+
+    /**
+     * @return this object with its value boxed
+     */
+    public Maybe<Integer> boxed() {
+        return this.present ? Maybe.just(Integer.valueOf(this.value)) : Maybe.nothing();
+    }
+
+    @Override
+    public String toString() {
+        return this.present ? "Just (" + this.value + ")" : "Nothing"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (!(o instanceof MaybeInt)) {
+            return false;
+        }
+        final MaybeInt other = (MaybeInt) o;
+        return this.present == other.present && this.value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.present ? Integer.hashCode(this.value) : 0;
+    }
+}
@@ -0,0 +1,172 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Like {@link Maybe Maybe&lt;Long&gt;} except that the value is kept as an <tt>long</tt>, so it is never boxed. An instance is small
+ * and immutable, so instances that don't escape the method that creates them can usually be eliminated by the JIT compiler.
+ */
+public final class MaybeLong {
+    private static final MaybeLong NOTHING = new MaybeLong(false, 0);
+
+    private final boolean present;
+    private final long value;
+
+    private MaybeLong(final boolean present, final long value) {
+        this.present = present;
+        this.value = value;
+    }
+
+    /**
+     * @return an object which contains no value
+     */
+    public static MaybeLong nothing() {
+        return MaybeLong.NOTHING;
+    }
+
+    /**
+     * @param value the value of the returned object
+     * @return an object which contains the given value
+     */
+    public static MaybeLong just(final long value) {
+        return new MaybeLong(true, value);
+    }
+
+    /**
+     * @param wrapper the value to convert
+     * @return if {@link Maybe#isJust() wrapper.isJust()} then {@link #just(long) just(wrapper.fromJust())} else {@link #nothing()}
+     */
+    public static MaybeLong fromMaybe(final Maybe<Long> wrapper) {
+        return wrapper.isJust() ? MaybeLong.just(wrapper.fromJust().longValue()) : MaybeLong.nothing();
+    }
+
+    /**
+     * @return whether this object does not contain any value
+     */
+    public boolean isNothing() {
+        return !this.present;
+    }
+
+    /**
+     * @return whether this object contains a value
+     */
+    public boolean isJust() {
+        return this.present;
+    }
+
+    /**
+     * @return if this object contains a value then the value contained by this object else throws an IllegalStateException
+     * @throws IllegalStateException if {@link #isNothing()}
+     */
+    public long fromJust() {
+        if (!this.present) {
+            throw new IllegalStateException("Tried to extract value from Nothing"); //$NON-NLS-1$
+        }
+        return this.value;
+    }
+
+    /**
+     * @param defaultValue the value to return if this object does not contain a value
+     * @return if {@link #isJust()} then {@link #fromJust()} else defaultValue
+     */
+    public long fromMaybe(final long defaultValue) {
+        return this.present ? this.value : defaultValue;
+    }
+
+    /**
+     * @param defaultSupplier the supplier of the value to return if {@link #isNothing()}
+     * @return if {@link #isNothing()} then {@link LongSupplier#getAsLong() defaultSupplier.getAsLong()} else {@link #fromJust()}
+     */
+    public long fromMaybeGet(final LongSupplier defaultSupplier) {
+        return this.present ? this.value : defaultSupplier.getAsLong();
+    }
+
+    /**
+     * @param f the mapping function
+     * @return if {@link #isNothing()} then {@link #nothing()} else f.apply(fromJust())
+     */
+    public MaybeLong bind(final LongFunction<MaybeLong> f) {
+        return this.present ? f.apply(this.value) : MaybeLong.NOTHING;
+    }
+
+    /**
+     * @param f the mapping function
+     * @return if {@link #isNothing()} then {@link #nothing()} else {@link #just(long) just(f.applyAsLong(fromJust()))}
+     */
+    public MaybeLong map(final LongUnaryOperator f) {
+        return this.present ? MaybeLong.just(f.applyAsLong(this.value)) : MaybeLong.NOTHING;
+    }
+
+    /**
+     * @param f the mapping function
+     * @param <U> the type of the value of the returned object
+     * @return if {@link #isNothing()} then {@link Maybe#nothing()} else {@link Maybe#maybe(Object) Maybe.maybe(f.apply(fromJust()))}
+     */
+    public <U> Maybe<U> mapToObj(final LongFunction<U> f) {
+        return this.present ? Maybe.maybe(f.apply(this.value)) : Maybe.nothing();
+    }
+
+    /**
+     * @param filter the filter on this object
+     * @return this if this is of the form <tt>Just x</tt> where <tt>filter.test(x)</tt>, <tt>Nothing</tt> otherwise
+     */
+    public MaybeLong filter(final LongPredicate filter) {
+        return this.present && filter.test(this.value) ? this : MaybeLong.NOTHING;
+    }
+
+    /**
+     * Applies the given consumer to the value contained in this object iff <tt>{@link #isJust() this.isJust()}</tt>.
+     * @param f the consumer to apply
+     * @return this
+     */
+    public MaybeLong ifJust(final LongConsumer f) {
+        if (this.present) {
+            f.accept(this.value);
+        }
+        return this;
+    }
+
+    /**
+     * Runs the given Runnable iff <tt>{@link #isNothing() this.isNothing()}</tt>.
+     * @param f the runnable to run
+     * @return this
+     */
+    public MaybeLong ifNothing(final Runnable f) {
+        if (!this.present) {
+            f.run();
+        }
+        return this;
+    }
+
+    /**
+     * @return this object with its value boxed
+     */
+    public Maybe<Long> boxed() {
+        return this.present ? Maybe.just(Long.valueOf(this.value)) : Maybe.nothing();
+    }
+
+    @Override
+    public String toString() {
+        return this.present ? "Just (" + this.value + ")" : "Nothing"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (!(o instanceof MaybeLong)) {
+            return false;
+        }
+        final MaybeLong other = (MaybeLong) o;
+        return this.present == other.present && this.value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.present ? Long.hashCode(this.value) : 0;
+    }
+}
@@ -0,0 +1,192 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+import util.number.UInt32;
+
+/**
+ * Like {@link Maybe Maybe&lt;UInt32&gt;} except that the value is kept as the bits of an <tt>int</tt>, so it is never boxed. The values
+ * passed to and returned by the functions taken by this class are those bits, and they are only read as unsigned by {@link #boxed()},
+ * {@link #toMaybeLong()} and {@link #toString()}. An instance is small and immutable, so instances that don't escape the method that
+ * creates them can usually be eliminated by the JIT compiler. The <tt>maybeIndexOf</tt> methods of the lists in this package return
+ * instances of this class.
+ */
+public final class MaybeUInt32 {
+    private static final MaybeUInt32 NOTHING = new MaybeUInt32(false, 0);
+
+    private final boolean present;
+    private final int value;
+
+    private MaybeUInt32(final boolean present, final int value) {
+        this.present = present;
+        this.value = value;
+    }
+
+    /**
+     * @return an object which contains no value
+     */
+    public static MaybeUInt32 nothing() {
+        return MaybeUInt32.NOTHING;
+    }
+
+    /**
+     * @param value the bits of the value of the returned object
+     * @return an object which contains the given value
+     */
+    public static MaybeUInt32 just(final int value) {
+        return new MaybeUInt32(true, value);
+    }
+
+    /**
+     * @param index an index, or a negative number if there is none, as returned by {@link AnnotatedNonNullList#intIndexOf(Object)}
+     * @return if index &lt; 0 then {@link #nothing()} else {@link #just(int) just(index)}
+     */
+    public static MaybeUInt32 ofIndex(final int index) {
+        return index < 0 ? MaybeUInt32.NOTHING : new MaybeUInt32(true, index);
+    }
+
+    /**
+     * @param wrapper the value to convert
+     * @return if {@link Maybe#isJust() wrapper.isJust()} then {@link #just(int) just(wrapper.fromJust())} else {@link #nothing()}
+     */
+    public static MaybeUInt32 fromMaybe(final Maybe<UInt32> wrapper) {
+        return wrapper.isJust() ? MaybeUInt32.just(wrapper.fromJust().intValue()) : MaybeUInt32.nothing();
+    }
+
+    /**
+     * @return whether this object does not contain any value
+     */
+    public boolean isNothing() {
+        return !this.present;
+    }
+
+    /**
+     * @return whether this object contains a value
+     */
+    public boolean isJust() {
+        return this.present;
+    }
+
+    /**
+     * @return if this object contains a value then the bits of the value contained by this object else throws an IllegalStateException
+     * @throws IllegalStateException if {@link #isNothing()}
+     */
+    public int fromJust() {
+        if (!this.present) {
+            throw new IllegalStateException("Tried to extract value from Nothing"); //$NON-NLS-1$
+        }
+        return this.value;
+    }
+
+    /**
+     * @param defaultValue the value to return if this object does not contain a value
+     * @return if {@link #isJust()} then {@link #fromJust()} else defaultValue
+     */
+    public int fromMaybe(final int defaultValue) {
+        return this.present ? this.value : defaultValue;
+    }
+
+    /**
+     * @param defaultSupplier the supplier of the value to return if {@link #isNothing()}
+     * @return if {@link #isNothing()} then {@link IntSupplier#getAsInt() defaultSupplier.getAsInt()} else {@link #fromJust()}
+     */
+    public int fromMaybeGet(final IntSupplier defaultSupplier) {
+        return this.present ? this.value : defaultSupplier.getAsInt();
+    }
+
+    /**
+     * @param f the mapping function
+     * @return if {@link #isNothing()} then {@link #nothing()} else f.apply(fromJust())
+     */
+    public MaybeUInt32 bind(final IntFunction<MaybeUInt32> f) {
+        return this.present ? f.apply(this.value) : MaybeUInt32.NOTHING;
+    }
+
+    /**
+     * @param f the mapping function
+     * @return if {@link #isNothing()} then {@link #nothing()} else {@link #just(int) just(f.applyAsInt(fromJust()))}
+     */
+    public MaybeUInt32 map(final IntUnaryOperator f) {
+        return this.present ? MaybeUInt32.just(f.applyAsInt(this.value)) : MaybeUInt32.NOTHING;
+    }
+
+    /**
+     * @param f the mapping function
+     * @param <U> the type of the value of the returned object
+     * @return if {@link #isNothing()} then {@link Maybe#nothing()} else {@link Maybe#maybe(Object) Maybe.maybe(f.apply(fromJust()))}
+     */
+    public <U> Maybe<U> mapToObj(final IntFunction<U> f) {
+        return this.present ? Maybe.maybe(f.apply(this.value)) : Maybe.nothing();
+    }
+
+    /**
+     * @param filter the filter on this object
+     * @return this if this is of the form <tt>Just x</tt> where <tt>filter.test(x)</tt>, <tt>Nothing</tt> otherwise
+     */
+    public MaybeUInt32 filter(final IntPredicate filter) {
+        return this.present && filter.test(this.value) ? this : MaybeUInt32.NOTHING;
+    }
+
+    /**
+     * Applies the given consumer to the value contained in this object iff <tt>{@link #isJust() this.isJust()}</tt>.
+     * @param f the consumer to apply
+     * @return this
+     */
+    public MaybeUInt32 ifJust(final IntConsumer f) {
+        if (this.present) {
+            f.accept(this.value);
+        }
+        return this;
+    }
+
+    /**
+     * Runs the given Runnable iff <tt>{@link #isNothing() this.isNothing()}</tt>.
+     * @param f the runnable to run
+     * @return this
+     */
+    public MaybeUInt32 ifNothing(final Runnable f) {
+        if (!this.present) {
+            f.run();
+        }
+        return this;
+    }
+
+    /**
+     * @return this object with its value read as unsigned and widened to a <tt>long</tt>
+     */
+    public MaybeLong toMaybeLong() {
+        return this.present ? MaybeLong.just(Integer.toUnsignedLong(this.value)) : MaybeLong.nothing();
+    }
+
+    /**
+     * @return this object with its value boxed
+     */
+    public Maybe<UInt32> boxed() {
+        return this.present ? Maybe.just(UInt32.asUnsigned(this.value)) : Maybe.nothing();
+    }
+
+    @Override
+    public String toString() {
+        return this.present ? "Just (" + Integer.toUnsignedString(this.value) + ")" : "Nothing"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (!(o instanceof MaybeUInt32)) {
+            return false;
+        }
+        final MaybeUInt32 other = (MaybeUInt32) o;
+        return this.present == other.present && this.value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.present ? Integer.hashCode(this.value) : 0;
+    }
+}
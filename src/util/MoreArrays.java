@@ -14,6 +14,7 @@ import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
 import java.util.function.ToIntFunction;
 import java.util.function.ToLongFunction;
+import java.util.random.RandomGenerator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -614,68 +615,226 @@ public final class MoreArrays {
     }
 
     /**
+     * Equivalent to {@link #randEl(byte[], RandomGenerator)}.
      * @param var1 the array to get a random element from
      * @param rng the random number generator to use
      * @return a randomly selected element of the given array
      */
     public static byte randEl(final  byte[] var1, final Random rng) {
+        return MoreArrays.randEl(var1, (RandomGenerator) rng);
+    }
+
+    /**
+     * @param var1 the array to get a random element from
+     * @param rng the random number generator to use
+     * @return a randomly selected element of the given array
+     */
+    public static byte randEl(final  byte[] var1, final RandomGenerator rng) {
         return var1[rng.nextInt(var1.length)];
     }
 
     /**
+     * Equivalent to {@link #randEl(short[], RandomGenerator)}.
      * @param var1 the array to get a random element from
      * @param rng the random number generator to use
      * @return a randomly selected element of the given array
      */
     public static short randEl(final  short[] var1, final Random rng) {
+        return MoreArrays.randEl(var1, (RandomGenerator) rng);
+    }
+
+    /**
+     * @param var1 the array to get a random element from
+     * @param rng the random number generator to use
+     * @return a randomly selected element of the given array
+     */
+    public static short randEl(final  short[] var1, final RandomGenerator rng) {
         return var1[rng.nextInt(var1.length)];
     }
 
     /**
+     * Equivalent to {@link #randEl(int[], RandomGenerator)}.
      * @param var1 the array to get a random element from
      * @param rng the random number generator to use
      * @return a randomly selected element of the given array
      */
     public static int randEl(final  int[] var1, final Random rng) {
+        return MoreArrays.randEl(var1, (RandomGenerator) rng);
+    }
+
+    /**
+     * @param var1 the array to get a random element from
+     * @param rng the random number generator to use
+     * @return a randomly selected element of the given array
+     */
+    public static int randEl(final  int[] var1, final RandomGenerator rng) {
         return var1[rng.nextInt(var1.length)];
     }
 
     /**
+     * Equivalent to {@link #randEl(long[], RandomGenerator)}.
      * @param var1 the array to get a random element from
      * @param rng the random number generator to use
      * @return a randomly selected element of the given array
      */
     public static long randEl(final  long[] var1, final Random rng) {
+        return MoreArrays.randEl(var1, (RandomGenerator) rng);
+    }
+
+    /**
+     * @param var1 the array to get a random element from
+     * @param rng the random number generator to use
+     * @return a randomly selected element of the given array
+     */
+    public static long randEl(final  long[] var1, final RandomGenerator rng) {
         return var1[rng.nextInt(var1.length)];
     }
 
     /**
+     * Equivalent to {@link #randEl(float[], RandomGenerator)}.
      * @param var1 the array to get a random element from
      * @param rng the random number generator to use
      * @return a randomly selected element of the given array
      */
     public static float randEl(final  float[] var1, final Random rng) {
+        return MoreArrays.randEl(var1, (RandomGenerator) rng);
+    }
+
+    /**
+     * @param var1 the array to get a random element from
+     * @param rng the random number generator to use
+     * @return a randomly selected element of the given array
+     */
+    public static float randEl(final  float[] var1, final RandomGenerator rng) {
         return var1[rng.nextInt(var1.length)];
     }
 
     /**
+     * Equivalent to {@link #randEl(double[], RandomGenerator)}.
      * @param var1 the array to get a random element from
      * @param rng the random number generator to use
      * @return a randomly selected element of the given array
      */
     public static double randEl(final  double[] var1, final Random rng) {
+        return MoreArrays.randEl(var1, (RandomGenerator) rng);
+    }
+
+    /**
+     * @param var1 the array to get a random element from
+     * @param rng the random number generator to use
+     * @return a randomly selected element of the given array
+     */
+    public static double randEl(final  double[] var1, final RandomGenerator rng) {
         return var1[rng.nextInt(var1.length)];
     }
 
     /**
+     * Equivalent to {@link #randEl(Object[], RandomGenerator)}.
      * @param arr the array to get a random element from
      * @param rng the random number generator to use
      * @return a randomly selected element of the given array
      */
     public static <E> E randEl(final E[] arr, final Random rng) {
+        return MoreArrays.randEl(arr, (RandomGenerator) rng);
+    }
+
+    /**
+     * @param arr the array to get a random element from
+     * @param rng the random number generator to use
+     * @return a randomly selected element of the given array
+     */
+    public static <E> E randEl(final E[] arr, final RandomGenerator rng) {
         return arr[rng.nextInt(arr.length)];
     }
 
+    /**
+     * @param arr the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive
+     * @return a view of the given range of the array that doesn't copy it
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static ByteArraySlice slice(final byte[] arr, final int from, final int to) {
+        return ByteArraySlice.of(arr, from, to);
+    }
+
+    /**
+     * @param arr the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive
+     * @return a view of the given range of the array that doesn't copy it
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static ShortArraySlice slice(final short[] arr, final int from, final int to) {
+        return ShortArraySlice.of(arr, from, to);
+    }
+
+    /**
+     * @param arr the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive
+     * @return a view of the given range of the array that doesn't copy it
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static CharArraySlice slice(final char[] arr, final int from, final int to) {
+        return CharArraySlice.of(arr, from, to);
+    }
+
+    /**
+     * @param arr the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive
+     * @return a view of the given range of the array that doesn't copy it
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static IntArraySlice slice(final int[] arr, final int from, final int to) {
+        return IntArraySlice.of(arr, from, to);
+    }
+
+    /**
+     * @param arr the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive
+     * @return a view of the given range of the array that doesn't copy it
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static LongArraySlice slice(final long[] arr, final int from, final int to) {
+        return LongArraySlice.of(arr, from, to);
+    }
+
+    /**
+     * @param arr the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive
+     * @return a view of the given range of the array that doesn't copy it
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static FloatArraySlice slice(final float[] arr, final int from, final int to) {
+        return FloatArraySlice.of(arr, from, to);
+    }
+
+    /**
+     * @param arr the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive
+     * @return a view of the given range of the array that doesn't copy it
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static DoubleArraySlice slice(final double[] arr, final int from, final int to) {
+        return DoubleArraySlice.of(arr, from, to);
+    }
+
+    /**
+     * @param arr the array to view
+     * @param from the first index of the array in the slice, inclusive
+     * @param to the last index of the array in the slice, exclusive. The range must not contain null
+     * @return a view of the given range of the array that doesn't copy it
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static <E> ArraySlice<E> slice(final E[] arr, final int from, final int to) {
+        return ArraySlice.of(arr, from, to);
+    }
+
     /**
      * Like an eager version of {@linkplain Stream#map(Function)}.
      * @param <T> the type of the elements of xs
@@ -0,0 +1,831 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.function.Predicate;
+
+import util.number.UInt32;
+
+/**
+ * A resizable array implementation of {@link AnnotatedNonNullList}. Element access and replacement take constant time and appending takes
+ * amortized constant time.
+ * <p>
+ * Lists produced by {@link #copy()} and by the <tt>pure*</tt> methods share their backing array with the list that produced them until
+ * either list is modified, at which point the modified list copies the array. A list produced by {@link #pureRemove(UInt32)},
+ * {@link #pureRemoveIf(Predicate)} and the like only records which elements of the shared array it excludes, and compacts the remaining
+ * elements into an array of its own the first time it is modified. Reading such a list skips the excluded elements without changing it,
+ * and the first access by index counts the elements left in each 64 slots of the shared array once, so that later accesses by index
+ * take time logarithmic in its length.
+ * @param <T> the type of the elements of this list
+ */
+public final class NonNullArrayList<T> implements AnnotatedNonNullList<NonNullArrayList<T>, T>, RandomAccess {
+    private static final Object[] EMPTY = {};
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private Object[] elements; // All non-null elements of type T
+    private int size;
+    private int extent; // The number of slots of elements owned by this list, including those masked by removed
+    private boolean shared; // Whether another list may read elements
+    @Nullable
+    private long[] removed; // The slots of elements below extent that are not part of this list, or null if there are none
+    @Nullable
+    private int[] ranks; // The number of slots before each word of removed that belong to this list, or null if not yet counted
+
+    /**
+     * Create an empty list.
+     */
+    public NonNullArrayList() {
+        this.elements = NonNullArrayList.EMPTY;
+    }
+
+    /**
+     * Create an empty list that can hold the given number of elements without reallocating.
+     * @param initialCapacity the number of elements to allocate space for
+     */
+    public NonNullArrayList(final int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Expected non-negative capacity, found " + initialCapacity); //$NON-NLS-1$
+        }
+        this.elements = initialCapacity == 0 ? NonNullArrayList.EMPTY : new Object[initialCapacity];
+    }
+
+    /**
+     * Create a list containing the elements of the given collection in iteration order.
+     * @param c the elements of the new list
+     * @throws IllegalArgumentException if c contains null
+     */
+    public NonNullArrayList(final Collection<? extends T> c) {
+        final Object[] values = NonNullArrayList.checkedArray(c);
+        this.elements = values.length == 0 ? NonNullArrayList.EMPTY : values;
+        this.size = values.length;
+        this.extent = values.length;
+    }
+
+    private NonNullArrayList(final Object[] elements, final int extent, final int size, @Nullable final long[] removed) {
+        this.elements = elements;
+        this.extent = extent;
+        this.size = size;
+        this.removed = removed;
+        this.shared = true;
+    }
+
+    /**
+     * @param values the elements of the returned list
+     * @param <T> the type of the elements of the returned list
+     * @return a list containing the given values in order
+     * @throws IllegalArgumentException if any of the values is null
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // Arrays.asList only reads the array
+    public static <T> NonNullArrayList<T> of(final T... values) {
+        return new NonNullArrayList<>(Arrays.asList(values));
+    }
+
+    /**
+     * Take ownership of an array without copying or checking it.
+     * @param elements the elements of the returned list. Must not contain null or be used by the caller afterwards
+     * @return a list backed by the given array
+     */
+    static <T> NonNullArrayList<T> adopt(final Object[] elements) {
+        final NonNullArrayList<T> ret = new NonNullArrayList<>();
+        if (elements.length != 0) {
+            ret.elements = elements;
+            ret.size = elements.length;
+            ret.extent = elements.length;
+        }
+        return ret;
+    }
+
+    private static Object[] checkedArray(final Collection<?> c) {
+        if (c == null) {
+            throw new IllegalArgumentException("Expected Collection, found null"); //$NON-NLS-1$
+        }
+        final Object[] ret = c.toArray();
+        final Object[] values = ret.getClass() == Object[].class ? ret : Arrays.copyOf(ret, ret.length, Object[].class);
+        for (final Object value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("Expected element, found null"); //$NON-NLS-1$
+            }
+        }
+        return values;
+    }
+
+    private static <T> T checked(final T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected element, found null"); //$NON-NLS-1$
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(final int physicalIndex) {
+        return (T) this.elements[physicalIndex];
+    }
+
+    /**
+     * @param from the first slot of the backing array to check
+     * @return the least slot at or after <tt>from</tt> that belongs to this list, or {@link #extent} if there is no such slot
+     */
+    private int nextLive(final int from) {
+        final long[] mask = this.removed;
+        if (mask == null || from >= this.extent) {
+            return Math.min(from, this.extent);
+        }
+        int word = from >>> 6;
+        long live = ~mask[word] & -1L << from;
+        while (live == 0) {
+            if (++word == mask.length) {
+                return this.extent;
+            }
+            live = ~mask[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(live), this.extent);
+    }
+
+    /**
+     * @param from the first slot of the backing array to check
+     * @return the least slot at or after <tt>from</tt> that doesn't belong to this list, or {@link #extent} if there is no such slot
+     */
+    private int nextDead(final int from) {
+        final long[] mask = this.removed;
+        if (mask == null || from >= this.extent) {
+            return this.extent;
+        }
+        int word = from >>> 6;
+        long dead = mask[word] & -1L << from;
+        while (dead == 0) {
+            if (++word == mask.length) {
+                return this.extent;
+            }
+            dead = mask[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(dead), this.extent);
+    }
+
+    /**
+     * @param from the last slot of the backing array to check
+     * @return the greatest slot at or before <tt>from</tt> that belongs to this list, or -1 if there is no such slot
+     */
+    private int previousLive(final int from) {
+        final long[] mask = this.removed;
+        if (from < 0 || mask == null) {
+            return Math.min(from, this.extent - 1);
+        }
+        final int last = Math.min(from, this.extent - 1);
+        int word = last >>> 6;
+        long live = ~mask[word] & -1L >>> 63 - (last & 63);
+        while (live == 0) {
+            if (--word < 0) {
+                return -1;
+            }
+            live = ~mask[word];
+        }
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(live);
+    }
+
+    /**
+     * @param index an index of this list. Must be less than {@link #size}
+     * @return the slot of the backing array that holds the element at the given index
+     */
+    private int physicalIndex(final int index) {
+        final long[] mask = this.removed;
+        if (mask == null) {
+            return index;
+        }
+        if (this.ranks == null) {
+            this.ranks = new int[mask.length];
+            for (int word = 1; word < mask.length; word++) {
+                this.ranks[word] = this.ranks[word - 1] + Long.bitCount(~mask[word - 1]);
+            }
+        }
+        // The word that holds the slot is the last one with at most index live slots before it, which is no earlier than word index / 64
+        final int[] rank = this.ranks;
+        int lo = index >>> 6;
+        int hi = mask.length - 1;
+        while (lo < hi) {
+            final int mid = lo + hi + 1 >>> 1;
+            if (rank[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        long live = ~mask[lo];
+        for (int remaining = index - rank[lo]; remaining > 0; remaining--) {
+            live &= live - 1;
+        }
+        return (lo << 6) + Long.numberOfTrailingZeros(live);
+    }
+
+    /**
+     * @return a copy of the removal mask of this list that marks the slots past {@link #extent} as removed
+     */
+    private long[] maskCopy() {
+        if (this.removed != null) {
+            return this.removed.clone();
+        }
+        final long[] ret = new long[this.extent + 63 >>> 6];
+        if ((this.extent & 63) != 0) {
+            ret[ret.length - 1] = -1L << this.extent;
+        }
+        return ret;
+    }
+
+    /**
+     * Copy the elements that belong to this list into the start of the given array, in order.
+     * @param dest the array to copy into. Must be at least as long as this list
+     */
+    private void copyLive(final Object[] dest) {
+        int to = 0;
+        for (int from = this.nextLive(0); from < this.extent; from = this.nextLive(from)) {
+            final int end = this.nextDead(from);
+            System.arraycopy(this.elements, from, dest, to, end - from);
+            to += end - from;
+            from = end;
+        }
+    }
+
+    /**
+     * Compact the elements that belong to this list into a new array that is not shared with any other list.
+     * @param capacity the length of the new array. Must be at least the size of this list
+     */
+    private void densify(final int capacity) {
+        final Object[] dense = capacity == 0 ? NonNullArrayList.EMPTY : new Object[capacity];
+        this.copyLive(dense);
+        this.elements = dense;
+        this.extent = this.size;
+        this.removed = null;
+        this.ranks = null;
+        this.shared = false;
+    }
+
+    /**
+     * Make the backing array of this list dense and exclusive to this list. A shared array is copied with its length rather than
+     * trimmed, so that appending to the copy doesn't immediately reallocate it again.
+     */
+    private void ensureWritable() {
+        if (this.removed != null) {
+            this.densify(this.size);
+        } else if (this.shared) {
+            this.elements = this.elements.length == 0 ? NonNullArrayList.EMPTY : Arrays.copyOf(this.elements, this.elements.length);
+            this.shared = false;
+        }
+    }
+
+    /**
+     * Make sure that this list can hold at least the given number of elements without reallocating its backing array.
+     * @param minCapacity the minimum number of elements to allocate space for
+     * @return this
+     */
+    public NonNullArrayList<T> ensureCapacity(final int minCapacity) {
+        if (minCapacity > this.elements.length) {
+            if (minCapacity < 0 || minCapacity > NonNullArrayList.MAX_CAPACITY) {
+                throw new OutOfMemoryError("Required list capacity is too large"); //$NON-NLS-1$
+            }
+            final int oldCapacity = this.elements.length;
+            int newCapacity = oldCapacity + (oldCapacity >> 1);
+            if (newCapacity < 0 || newCapacity > NonNullArrayList.MAX_CAPACITY) {
+                newCapacity = NonNullArrayList.MAX_CAPACITY;
+            }
+            final int capacity = Math.max(Math.max(newCapacity, minCapacity), NonNullArrayList.DEFAULT_CAPACITY);
+            if (this.removed != null) {
+                this.densify(capacity);
+            } else {
+                this.elements = Arrays.copyOf(this.elements, capacity);
+                this.shared = false;
+            }
+        } else if (this.removed != null) {
+            this.densify(Math.max(minCapacity, this.size));
+        } else {
+            this.ensureWritable();
+        }
+        return this;
+    }
+
+    /**
+     * Shrink the backing array of this list to the number of elements in this list.
+     * @return this
+     */
+    public NonNullArrayList<T> trimToSize() {
+        this.ensureWritable();
+        if (this.size < this.elements.length) {
+            this.elements = this.size == 0 ? NonNullArrayList.EMPTY : Arrays.copyOf(this.elements, this.size);
+        }
+        return this;
+    }
+
+    /**
+     * Create a list that contains the same elements as this list. The returned list shares its backing array with this list until either
+     * list is modified.
+     * @return a new list with the same elements as this list
+     */
+    public NonNullArrayList<T> copy() {
+        if (this.size == 0) {
+            return new NonNullArrayList<>();
+        }
+        this.shared = true;
+        return new NonNullArrayList<>(this.elements, this.extent, this.size, this.removed);
+    }
+
+    /**
+     * Equivalent to {@link #copy()}, so the backing array is shared rather than copied.
+     */
+    @Override
+    public NonNullArrayList<T> materialize() {
+        return this.copy();
+    }
+
+    @Override
+    public UInt32 size() {
+        return UInt32.asUnsigned(this.size);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return this.intIndexOf(object) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        final Map<Object, Integer> counts = new HashMap<>();
+        for (final Object o : c) {
+            counts.merge(o, 1, Integer::sum);
+        }
+        for (int i = this.nextLive(0); i < this.extent && !counts.isEmpty(); i = this.nextLive(i + 1)) {
+            counts.computeIfPresent(this.elements[i], (none, count) -> count == 1 ? null : count - 1);
+        }
+        return counts.isEmpty();
+    }
+
+    @Override
+    public int intIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = this.nextLive(0); i < this.extent; i = this.nextLive(i + 1)) {
+            if (o.equals(this.elements[i])) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    @Override
+    public int intLastIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        int index = this.size;
+        for (int i = this.previousLive(this.extent - 1); i >= 0; i = this.previousLive(i - 1)) {
+            index--;
+            if (o.equals(this.elements[i])) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Maybe<UInt32> indexOf(final T value) {
+        final int ret = this.intIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<UInt32> lastIndexOf(final T value) {
+        final int ret = this.intLastIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<T> get(final UInt32 index) {
+        return Maybe.maybe(this.getOrNull(index.intValue()));
+    }
+
+    @Override
+    public @Nullable T getOrNull(final int index) {
+        if (index < 0 || index >= this.size) {
+            return null;
+        }
+        return this.elementAt(this.physicalIndex(index));
+    }
+
+    @Override
+    public @Nullable T setOrNull(final int index, final T value) {
+        if (index < 0 || index >= this.size) {
+            return null;
+        }
+        NonNullArrayList.checked(value);
+        this.ensureWritable();
+        final T ret = this.elementAt(index);
+        this.elements[index] = value;
+        return ret;
+    }
+
+    @Override
+    public int copyInto(final Object[] dest) {
+        this.copyLive(dest);
+        return this.size;
+    }
+
+    @Override
+    public NonNullArrayList<T> add(final T value) {
+        NonNullArrayList.checked(value);
+        this.ensureCapacity(this.size + 1);
+        this.elements[this.size++] = value;
+        this.extent = this.size;
+        return this;
+    }
+
+    private int checkedInsertionIndex(final UInt32 index) {
+        final int i = index.intValue();
+        if (i < 0 || i > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index.longValue() + ", Size: " + this.size); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return i;
+    }
+
+    @Override
+    public NonNullArrayList<T> insert(final UInt32 index, final T value) {
+        final int i = this.checkedInsertionIndex(index);
+        NonNullArrayList.checked(value);
+        this.ensureCapacity(this.size + 1);
+        System.arraycopy(this.elements, i, this.elements, i + 1, this.size - i);
+        this.elements[i] = value;
+        this.size++;
+        this.extent = this.size;
+        return this;
+    }
+
+    @Override
+    public NonNullArrayList<T> addAll(final Collection<? extends T> c) {
+        final Object[] values = NonNullArrayList.checkedArray(c);
+        if (values.length == 0) {
+            return this;
+        }
+        this.ensureCapacity(this.size + values.length);
+        System.arraycopy(values, 0, this.elements, this.size, values.length);
+        this.size += values.length;
+        this.extent = this.size;
+        return this;
+    }
+
+    @Override
+    public NonNullArrayList<T> addAll(final UInt32 index, final Collection<? extends T> c) {
+        final int i = this.checkedInsertionIndex(index);
+        final Object[] values = NonNullArrayList.checkedArray(c);
+        if (values.length == 0) {
+            return this;
+        }
+        this.ensureCapacity(this.size + values.length);
+        System.arraycopy(this.elements, i, this.elements, i + values.length, this.size - i);
+        System.arraycopy(values, 0, this.elements, i, values.length);
+        this.size += values.length;
+        this.extent = this.size;
+        return this;
+    }
+
+    @Override
+    public Pair<NonNullArrayList<T>, Maybe<T>> set(final UInt32 index, final T value) {
+        return new Pair<>(this, Maybe.maybe(this.setOrNull(index.intValue(), value)));
+    }
+
+    private T removeAt(final int i) {
+        this.ensureWritable();
+        final T ret = this.elementAt(i);
+        System.arraycopy(this.elements, i + 1, this.elements, i, this.size - i - 1);
+        this.elements[--this.size] = null;
+        this.extent = this.size;
+        return ret;
+    }
+
+    @Override
+    public Pair<NonNullArrayList<T>, Maybe<T>> remove(final UInt32 index) {
+        final int i = index.intValue();
+        if (i < 0 || i >= this.size) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        return new Pair<>(this, Maybe.just(this.removeAt(i)));
+    }
+
+    @Override
+    public Pair<NonNullArrayList<T>, Maybe<T>> remove(final Object o) {
+        final int i = this.intIndexOf(o);
+        if (i < 0) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        return new Pair<>(this, Maybe.just(this.removeAt(i)));
+    }
+
+    /**
+     * @param physicalIndex the slot of the backing array to exclude. Must belong to this list
+     * @return a list that shares the backing array of this list and excludes the given slot
+     */
+    private NonNullArrayList<T> without(final int physicalIndex) {
+        if (this.size == 1) {
+            return new NonNullArrayList<>();
+        }
+        this.shared = true;
+        if (this.removed == null && physicalIndex == this.extent - 1) {
+            return new NonNullArrayList<>(this.elements, this.extent - 1, this.size - 1, null);
+        }
+        final long[] mask = this.maskCopy();
+        mask[physicalIndex >>> 6] |= 1L << physicalIndex;
+        return new NonNullArrayList<>(this.elements, this.extent, this.size - 1, mask);
+    }
+
+    @Override
+    public Pair<NonNullArrayList<T>, Maybe<T>> pureRemove(final UInt32 index) {
+        final int i = index.intValue();
+        if (i < 0 || i >= this.size) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        final int physicalIndex = this.physicalIndex(i);
+        final T ret = this.elementAt(physicalIndex);
+        return new Pair<>(this.without(physicalIndex), Maybe.just(ret));
+    }
+
+    @Override
+    public Pair<NonNullArrayList<T>, Maybe<T>> pureRemove(final Object o) {
+        if (o != null) {
+            for (int i = this.nextLive(0); i < this.extent; i = this.nextLive(i + 1)) {
+                if (o.equals(this.elements[i])) {
+                    final T ret = this.elementAt(i);
+                    return new Pair<>(this.without(i), Maybe.just(ret));
+                }
+            }
+        }
+        return new Pair<>(this, Maybe.nothing());
+    }
+
+    @Override
+    public NonNullArrayList<T> removeAll(final Collection<?> c) {
+        return this.removeIf(BulkRemoval.membership(c));
+    }
+
+    @Override
+    public NonNullArrayList<T> pureRemoveAll(final Collection<?> c) {
+        return this.pureRemoveIf(BulkRemoval.membership(c));
+    }
+
+    /**
+     * @param p whether to remove an element
+     * @return a bitset of the slots below {@link #extent} that belong to this list and whose elements match p, or null if there are none
+     */
+    private @Nullable long[] markLive(final Predicate<? super T> p) {
+        final long[] dead = this.removed;
+        return BulkRemoval.mark(0, this.extent, i -> (dead == null || (dead[i >>> 6] & 1L << i) == 0) && p.test(this.elementAt(i)));
+    }
+
+    @Override
+    public NonNullArrayList<T> removeIf(final Predicate<? super T> p) {
+        final long[] marks = this.markLive(p);
+        if (marks == null) {
+            return this;
+        }
+        final int newSize = this.size - BulkRemoval.count(marks);
+        if (this.shared || this.removed != null) {
+            // Copy only the survivors out of the shared array instead of unsharing it first and compacting the copy
+            if (this.removed != null) {
+                for (int word = 0; word < marks.length; word++) {
+                    marks[word] |= this.removed[word];
+                }
+            }
+            final Object[] dense = newSize == 0 ? NonNullArrayList.EMPTY : new Object[newSize];
+            BulkRemoval.copySurvivors(this.elements, 0, marks, 0, this.extent, dense, 0);
+            this.elements = dense;
+            this.removed = null;
+        this.ranks = null;
+            this.shared = false;
+        } else {
+            BulkRemoval.compact(this.elements, 0, this.size, marks);
+            Arrays.fill(this.elements, newSize, this.size, null);
+        }
+        this.size = newSize;
+        this.extent = newSize;
+        return this;
+    }
+
+    @Override
+    public NonNullArrayList<T> clear() {
+        if (this.shared || this.removed != null) {
+            this.elements = NonNullArrayList.EMPTY;
+            this.removed = null;
+        this.ranks = null;
+            this.shared = false;
+        } else {
+            Arrays.fill(this.elements, 0, this.size, null);
+        }
+        this.size = 0;
+        this.extent = 0;
+        return this;
+    }
+
+    @Override
+    public NonNullArrayList<T> pureRemoveIf(final Predicate<? super T> p) {
+        final long[] marks = this.markLive(p);
+        if (marks == null) {
+            return this.copy();
+        }
+        final int newSize = this.size - BulkRemoval.count(marks);
+        if (newSize == 0) {
+            return new NonNullArrayList<>();
+        }
+        final long[] mask = this.maskCopy();
+        for (int word = 0; word < marks.length; word++) {
+            mask[word] |= marks[word];
+        }
+        this.shared = true;
+        return new NonNullArrayList<>(this.elements, this.extent, newSize, mask);
+    }
+
+    @Override
+    public NonNullArrayList<T> pureClear() {
+        return new NonNullArrayList<>();
+    }
+
+    @Override
+    public NonNullArrayList<T> retainAll(final Collection<?> c) {
+        return this.removeIf(BulkRemoval.membership(c).negate());
+    }
+
+    @Override
+    public NonNullArrayList<T> retainIf(final Predicate<? super T> p) {
+        return this.removeIf(p.negate());
+    }
+
+    @Override
+    public NonNullArrayList<T> pureRetainIf(final Predicate<? super T> p) {
+        return this.pureRemoveIf(p.negate());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public NonNullArrayList<T> sort(final Comparator<? super T> comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("Expected Comparator, found null"); //$NON-NLS-1$
+        }
+        this.ensureWritable();
+        Sorting.parallelSort((T[]) this.elements, 0, this.size, comparator);
+        return this;
+    }
+
+    @Override
+    public Object[] toArray() {
+        final Object[] ret = new Object[this.size];
+        this.copyLive(ret);
+        return ret;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.listIterator(UInt32.ZERO);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        final Object[] values = this.removed == null ? this.elements : this.toArray();
+        return Spliterators.spliterator(values, 0, this.size, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    @Override
+    public ListIterator<T> listIterator(final UInt32 startIndex) {
+        final int start = startIndex.intValue();
+        return new ListIterator<>() {
+            private int cursor = start < 0 || start > NonNullArrayList.this.size ? NonNullArrayList.this.size : start;
+            private int slot = this.slotOf(this.cursor); // The slot of the backing array that holds the element at cursor
+            private int lastReturned = -1;
+
+            private int slotOf(final int index) {
+                return index == NonNullArrayList.this.size ? NonNullArrayList.this.extent : NonNullArrayList.this.physicalIndex(index);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < NonNullArrayList.this.size;
+            }
+
+            @Override
+            public @NonNull T next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = this.cursor++;
+                final int current = this.slot;
+                this.slot = NonNullArrayList.this.nextLive(current + 1);
+                return NonNullArrayList.this.elementAt(current);
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return this.cursor > 0;
+            }
+
+            @Override
+            public @NonNull T previous() {
+                if (!this.hasPrevious()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = --this.cursor;
+                this.slot = NonNullArrayList.this.previousLive(this.slot - 1);
+                return NonNullArrayList.this.elementAt(this.slot);
+            }
+
+            @Override
+            public int nextIndex() {
+                return this.cursor;
+            }
+
+            @Override
+            public int previousIndex() {
+                return this.cursor - 1;
+            }
+
+            @Override
+            public void remove() {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                NonNullArrayList.this.removeAt(this.lastReturned);
+                this.cursor = this.lastReturned;
+                this.slot = this.slotOf(this.cursor);
+                this.lastReturned = -1;
+            }
+
+            @Override
+            public void set(@NonNull final T e) {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                NonNullArrayList.this.set(UInt32.asUnsigned(this.lastReturned), e);
+                this.slot = this.slotOf(this.cursor);
+            }
+
+            @Override
+            public void add(@NonNull final T e) {
+                NonNullArrayList.this.insert(UInt32.asUnsigned(this.cursor++), e);
+                this.slot = this.slotOf(this.cursor);
+                this.lastReturned = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NonNullArrayList)) {
+            return false;
+        }
+        final NonNullArrayList<?> other = (NonNullArrayList<?>) o;
+        if (this.size != other.size) {
+            return false;
+        }
+        for (int i = this.nextLive(0), j = other.nextLive(0); i < this.extent; i = this.nextLive(i + 1), j = other.nextLive(j + 1)) {
+            if (!this.elements[i].equals(other.elements[j])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int ret = 1;
+        for (int i = this.nextLive(0); i < this.extent; i = this.nextLive(i + 1)) {
+            ret = 31 * ret + this.elements[i].hashCode();
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner ret = new StringJoiner(", ", "[", "]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (int i = this.nextLive(0); i < this.extent; i = this.nextLive(i + 1)) {
+            ret.add(String.valueOf(this.elements[i]));
+        }
+        return ret.toString();
+    }
+}
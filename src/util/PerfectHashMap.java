@@ -0,0 +1,277 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map that finds each key with a minimal perfect hash function, built with the pilot search of PTHash: the keys are split
+ * into buckets by their hash, and each bucket is given the first pilot that sends its keys to distinct slots that no earlier bucket uses.
+ * The keys and values are kept in two parallel arrays with exactly one slot per key, and a lookup hashes its key once, reads the pilot of
+ * its bucket and compares the key in the one slot that the pilot leads to.
+ * <p>
+ * Keys with equal hash codes can't be told apart by any hash function of them, so all but one key with each hash code are kept in a
+ * {@link HashMap} that is only consulted when the key in a key's slot isn't equal to it. Building the map takes time roughly proportional
+ * to its size, but far longer than filling a {@link HashMap}, so this map suits mappings that are built once and then read many times.
+ * Null keys and values are not permitted.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PerfectHashMap<K, V> extends AbstractMap<K, V> {
+    // The average number of keys per bucket. More keys per bucket take fewer pilots but make the pilots harder to find
+    private static final int BUCKET_SIZE = 4;
+    // The key of the single slot of an empty map, which is equal to no other object
+    private static final Object NO_KEY = new Object();
+
+    private final Object[] keys;
+    private final Object[] values;
+    private final int[] pilots;
+    private final int slots; // The number of keys in keys, which is less than its length only if it is 0
+    private final Map<K, V> overflow; // The keys whose hash codes are also those of keys in keys
+
+    /**
+     * @param m the mappings of this map, which are copied
+     * @throws IllegalArgumentException if m is null or contains a null key or value
+     * @throws IllegalStateException if no pilot can be found for some bucket, which is vanishingly unlikely
+     */
+    public PerfectHashMap(final Map<? extends K, ? extends V> m) {
+        if (m == null) {
+            throw new IllegalArgumentException("Expected Map, found null"); //$NON-NLS-1$
+        }
+        // Sort the keys by hash code, packing each hash code with the index of its key, so that keys with equal hash codes are adjacent
+        final Object[] allKeys = new Object[m.size()];
+        final Object[] allValues = new Object[m.size()];
+        final long[] order = new long[m.size()];
+        int count = 0;
+        for (final Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            allKeys[count] = PerfectHashMap.checked(entry.getKey(), "Key"); //$NON-NLS-1$
+            allValues[count] = PerfectHashMap.checked(entry.getValue(), "Value"); //$NON-NLS-1$
+            order[count] = (long) allKeys[count].hashCode() << Integer.SIZE | count;
+            count++;
+        }
+        Arrays.sort(order);
+        final Map<K, V> extra = new HashMap<>();
+        int n = 0;
+        for (int i = 0; i < order.length; i++) {
+            // Keep the first key with each hash code at the front of order, where it has replaced its packed hash code
+            if (n > 0 && order[i] >> Integer.SIZE == allKeys[(int) order[n - 1]].hashCode()) {
+                @SuppressWarnings("unchecked")
+                final K key = (K) allKeys[(int) order[i]];
+                @SuppressWarnings("unchecked")
+                final V value = (V) allValues[(int) order[i]];
+                extra.put(key, value);
+            } else {
+                order[n++] = (int) order[i];
+            }
+        }
+        this.overflow = extra.isEmpty() ? Map.of() : extra;
+        this.slots = n;
+        this.keys = new Object[Math.max(n, 1)];
+        this.values = new Object[Math.max(n, 1)];
+        this.pilots = new int[Math.max((n + PerfectHashMap.BUCKET_SIZE - 1) / PerfectHashMap.BUCKET_SIZE, 1)];
+        this.keys[0] = PerfectHashMap.NO_KEY;
+        this.place(allKeys, allValues, order, n);
+    }
+
+    private static <T> T checked(@Nullable final T value, final String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected " + name + ", found null"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return value;
+    }
+
+    /**
+     * Find a pilot for every bucket and store each key in the slot that its pilot leads to.
+     * @param allKeys the keys, indexed by the low halves of order
+     * @param allValues the values, indexed like allKeys
+     * @param order the indices of the keys to place, which have distinct hash codes, in its first n elements
+     * @param n the number of keys to place
+     */
+    private void place(final Object[] allKeys, final Object[] allValues, final long[] order, final int n) {
+        final int buckets = this.pilots.length;
+        // Group the keys by bucket with a counting sort
+        final long[] hashes = new long[n];
+        final int[] bucketOf = new int[n];
+        final int[] starts = new int[buckets + 1];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = PerfectHashMap.hash(allKeys[(int) order[i]]);
+            bucketOf[i] = PerfectHashMap.bucket(hashes[i], buckets);
+            starts[bucketOf[i] + 1]++;
+        }
+        int largest = 0;
+        for (int b = 0; b < buckets; b++) {
+            largest = Math.max(largest, starts[b + 1]);
+            starts[b + 1] += starts[b];
+        }
+        final int[] members = new int[n];
+        final int[] fill = Arrays.copyOf(starts, buckets);
+        for (int i = 0; i < n; i++) {
+            members[fill[bucketOf[i]]++] = i;
+        }
+        // Place the largest buckets first, while most slots are still free
+        final int[][] bySize = new int[largest + 1][];
+        final int[] sizeCounts = new int[largest + 1];
+        for (int b = 0; b < buckets; b++) {
+            sizeCounts[starts[b + 1] - starts[b]]++;
+        }
+        for (int s = 0; s <= largest; s++) {
+            bySize[s] = new int[sizeCounts[s]];
+            sizeCounts[s] = 0;
+        }
+        for (int b = 0; b < buckets; b++) {
+            final int s = starts[b + 1] - starts[b];
+            bySize[s][sizeCounts[s]++] = b;
+        }
+        final boolean[] taken = new boolean[Math.max(n, 1)];
+        final int[] chosen = new int[largest];
+        for (int s = largest; s > 0; s--) {
+            for (final int b : bySize[s]) {
+                final int pilot = this.findPilot(hashes, members, starts[b], s, taken, chosen, n);
+                this.pilots[b] = pilot;
+                for (int j = 0; j < s; j++) {
+                    final int index = (int) order[members[starts[b] + j]];
+                    taken[chosen[j]] = true;
+                    this.keys[chosen[j]] = allKeys[index];
+                    this.values[chosen[j]] = allValues[index];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the first pilot that sends the size keys of a bucket to distinct free slots, which are stored in chosen
+     */
+    private int findPilot(final long[] hashes, final int[] members, final int start, final int size, final boolean[] taken,
+            final int[] chosen, final int n) {
+        for (int pilot = 0; pilot >= 0; pilot++) {
+            boolean fits = true;
+            for (int j = 0; j < size && fits; j++) {
+                final int slot = PerfectHashMap.slot(hashes[members[start + j]], pilot, n);
+                fits = !taken[slot];
+                for (int k = 0; k < j && fits; k++) {
+                    fits = chosen[k] != slot;
+                }
+                chosen[j] = slot;
+            }
+            if (fits) {
+                return pilot;
+            }
+        }
+        throw new IllegalStateException("No pilot found for bucket"); //$NON-NLS-1$
+    }
+
+    // A finalizer of SplitMix64, which makes every bit of its result depend on every bit of z
+    private static long mix(final long z) {
+        final long a = (z ^ z >>> 30) * 0xbf58476d1ce4e5b9L;
+        final long b = (a ^ a >>> 27) * 0x94d049bb133111ebL;
+        return b ^ b >>> 31;
+    }
+
+    private static long hash(final Object key) {
+        return PerfectHashMap.mix(key.hashCode());
+    }
+
+    // Maps the low half of hash onto [0, buckets) without division
+    private static int bucket(final long hash, final int buckets) {
+        return (int) ((hash & 0xffffffffL) * buckets >>> Integer.SIZE);
+    }
+
+    // Maps the hash mixed with the pilot onto [0, n) without division
+    private static int slot(final long hash, final int pilot, final int n) {
+        return (int) ((PerfectHashMap.mix(hash ^ pilot) >>> Integer.SIZE) * n >>> Integer.SIZE);
+    }
+
+    @Override
+    public int size() {
+        return this.slots + this.overflow.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V get(@Nullable final Object key) {
+        final long h = PerfectHashMap.hash(PerfectHashMap.checked(key, "Key")); //$NON-NLS-1$
+        final int i = PerfectHashMap.slot(h, this.pilots[PerfectHashMap.bucket(h, this.pilots.length)], this.keys.length);
+        return this.keys[i].equals(key) ? (V) this.values[i] : this.overflow.get(key);
+    }
+
+    @Override
+    public boolean containsKey(@Nullable final Object key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public @Nullable V put(@Nullable final K key, @Nullable final V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public @Nullable V remove(@Nullable final Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * The returned set's iterator visits the keys in the order of their slots and then the keys with shared hash codes.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return PerfectHashMap.this.new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return PerfectHashMap.this.size();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private int next = 0;
+        private final Iterator<Entry<K, V>> overflowIter = PerfectHashMap.this.overflow.entrySet().iterator();
+
+        EntryIterator() {
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < PerfectHashMap.this.slots || this.overflowIter.hasNext();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<K, V> next() {
+            if (this.next < PerfectHashMap.this.slots) {
+                final int i = this.next++;
+                return new SimpleImmutableEntry<>((K) PerfectHashMap.this.keys[i], (V) PerfectHashMap.this.values[i]);
+            }
+            if (!this.overflowIter.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return new SimpleImmutableEntry<>(this.overflowIter.next());
+        }
+    }
+}
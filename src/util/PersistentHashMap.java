@@ -0,0 +1,686 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map backed by an immutable hash array mapped trie (HAMT) with a branching factor of 32. Lookups, insertions and removals take
+ * O(log<sub>32</sub> n) time and share every untouched part of the trie.
+ * <p>
+ * As with {@link PersistentVector}, an instance of this class is a mutable handle to an immutable trie: the mutation methods replace the
+ * trie that this object refers to, while {@link #purePut(Object, Object)}, {@link #pureRemove(Object)} and {@link #copy()} return new
+ * handles that share structure with this one. Neither kind of method modifies any trie that another handle can see, so every version of a
+ * map stays valid, and iterators over this map iterate over the trie that it referred to when they were created. Use a {@link Builder} to
+ * construct large maps in place. Null keys and values are not permitted.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << PersistentHashMap.BITS;
+    private static final int MASK = PersistentHashMap.WIDTH - 1;
+    // The most nodes on a path from the root: a bitmap node for each 5 bits of the hash and a collision node
+    private static final int MAX_DEPTH = (Integer.SIZE + PersistentHashMap.BITS - 1) / PersistentHashMap.BITS + 1;
+    private static final Object[] EMPTY_ARRAY = new Object[0];
+
+    @Nullable
+    private Node root; // Null iff this map is empty
+    private int size;
+
+    /**
+     * The effect of an insertion or removal on the trie.
+     */
+    private static final class Change {
+        @Nullable
+        Object old = null; // The value that the key had before the change, if any
+        boolean sizeChanged = false;
+
+        Change() {
+        }
+    }
+
+    /**
+     * A node of the trie, which holds key-value pairs in consecutive slots of an array.
+     */
+    private abstract static class Node {
+        @Nullable
+        final Object edit; // The builder that may modify this node in place, or null if no builder may
+        Object[] array;
+
+        Node(@Nullable final Object edit, final Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        final boolean ownedBy(@Nullable final Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        // The number of slots of array in use
+        abstract int slots();
+
+        abstract @Nullable Object find(int shift, int hash, Object key);
+
+        abstract Node assoc(@Nullable Object edit, int shift, int hash, Object key, Object value, Change change);
+
+        // Null if the node is left empty
+        abstract @Nullable Node without(@Nullable Object edit, int shift, int hash, Object key, Change change);
+    }
+
+    /**
+     * A node that holds the pairs whose keys' hashes have a given prefix in common. Bit i of the bitmap is set iff the node holds a pair
+     * for the hashes whose next 5 bits are i, and the pairs are in the order of their bits. A pair whose key is null holds the child node
+     * for those hashes.
+     */
+    private static final class BitmapNode extends Node {
+        int bitmap;
+
+        BitmapNode(@Nullable final Object edit, final int bitmap, final Object[] array) {
+            super(edit, array);
+            this.bitmap = bitmap;
+        }
+
+        private static int bit(final int hash, final int shift) {
+            return 1 << (hash >>> shift & PersistentHashMap.MASK);
+        }
+
+        private int index(final int bit) {
+            return Integer.bitCount(this.bitmap & bit - 1) << 1;
+        }
+
+        @Override
+        int slots() {
+            return Integer.bitCount(this.bitmap) << 1;
+        }
+
+        private BitmapNode editable(@Nullable final Object edit) {
+            if (this.ownedBy(edit)) {
+                return this;
+            }
+            return new BitmapNode(edit, this.bitmap, Arrays.copyOf(this.array, this.slots()));
+        }
+
+        @Override
+        @Nullable
+        Object find(final int shift, final int hash, final Object key) {
+            final int bit = BitmapNode.bit(hash, shift);
+            if ((this.bitmap & bit) == 0) {
+                return null;
+            }
+            final int i = this.index(bit);
+            final Object k = this.array[i];
+            if (k == null) {
+                return ((Node) this.array[i + 1]).find(shift + PersistentHashMap.BITS, hash, key);
+            }
+            return key.equals(k) ? this.array[i + 1] : null;
+        }
+
+        @Override
+        Node assoc(@Nullable final Object edit, final int shift, final int hash, final Object key, final Object value,
+                final Change change) {
+            final int bit = BitmapNode.bit(hash, shift);
+            final int i = this.index(bit);
+            if ((this.bitmap & bit) != 0) {
+                final Object k = this.array[i];
+                final Object v = this.array[i + 1];
+                final BitmapNode ret;
+                if (k == null) {
+                    final Node child = (Node) v;
+                    final Node node = child.assoc(edit, shift + PersistentHashMap.BITS, hash, key, value, change);
+                    if (node == child) {
+                        return this;
+                    }
+                    ret = this.editable(edit);
+                    ret.array[i + 1] = node;
+                } else if (key.equals(k)) {
+                    change.old = v;
+                    if (v == value) {
+                        return this;
+                    }
+                    ret = this.editable(edit);
+                    ret.array[i + 1] = value;
+                } else {
+                    change.sizeChanged = true;
+                    final Node node = PersistentHashMap.createNode(edit, shift + PersistentHashMap.BITS, k, v, hash, key, value);
+                    ret = this.editable(edit);
+                    ret.array[i] = null;
+                    ret.array[i + 1] = node;
+                }
+                return ret;
+            }
+            change.sizeChanged = true;
+            final int slots = this.slots();
+            if (this.ownedBy(edit) && slots < this.array.length) {
+                System.arraycopy(this.array, i, this.array, i + 2, slots - i);
+                this.array[i] = key;
+                this.array[i + 1] = value;
+                this.bitmap |= bit;
+                return this;
+            }
+            // A builder is likely to insert more pairs, so it leaves room for them
+            final Object[] newArray = new Object[edit == null ? slots + 2 : Math.min(slots + 8, PersistentHashMap.WIDTH << 1)];
+            System.arraycopy(this.array, 0, newArray, 0, i);
+            newArray[i] = key;
+            newArray[i + 1] = value;
+            System.arraycopy(this.array, i, newArray, i + 2, slots - i);
+            return new BitmapNode(edit, this.bitmap | bit, newArray);
+        }
+
+        @Override
+        @Nullable
+        Node without(@Nullable final Object edit, final int shift, final int hash, final Object key, final Change change) {
+            final int bit = BitmapNode.bit(hash, shift);
+            if ((this.bitmap & bit) == 0) {
+                return this;
+            }
+            final int i = this.index(bit);
+            final Object k = this.array[i];
+            if (k == null) {
+                final Node child = (Node) this.array[i + 1];
+                final Node node = child.without(edit, shift + PersistentHashMap.BITS, hash, key, change);
+                if (node == child) {
+                    return this;
+                }
+                if (node != null) {
+                    final BitmapNode ret = this.editable(edit);
+                    ret.array[i + 1] = node;
+                    return ret;
+                }
+            } else if (key.equals(k)) {
+                change.old = this.array[i + 1];
+                change.sizeChanged = true;
+            } else {
+                return this;
+            }
+            if (this.bitmap == bit) {
+                return null;
+            }
+            final int slots = this.slots();
+            if (this.ownedBy(edit)) {
+                System.arraycopy(this.array, i + 2, this.array, i, slots - i - 2);
+                this.array[slots - 2] = null;
+                this.array[slots - 1] = null;
+                this.bitmap ^= bit;
+                return this;
+            }
+            final Object[] newArray = new Object[slots - 2];
+            System.arraycopy(this.array, 0, newArray, 0, i);
+            System.arraycopy(this.array, i + 2, newArray, i, slots - i - 2);
+            return new BitmapNode(edit, this.bitmap ^ bit, newArray);
+        }
+    }
+
+    /**
+     * A node that holds the pairs whose keys all have the same hash.
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        int count;
+
+        CollisionNode(@Nullable final Object edit, final int hash, final int count, final Object[] array) {
+            super(edit, array);
+            this.hash = hash;
+            this.count = count;
+        }
+
+        @Override
+        int slots() {
+            return this.count << 1;
+        }
+
+        private int indexOf(final Object key) {
+            for (int i = 0; i < this.count << 1; i += 2) {
+                if (key.equals(this.array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private CollisionNode editable(@Nullable final Object edit) {
+            if (this.ownedBy(edit)) {
+                return this;
+            }
+            return new CollisionNode(edit, this.hash, this.count, Arrays.copyOf(this.array, this.slots()));
+        }
+
+        @Override
+        @Nullable
+        Object find(final int shift, final int hash, final Object key) {
+            if (hash != this.hash) {
+                return null;
+            }
+            final int i = this.indexOf(key);
+            return i < 0 ? null : this.array[i + 1];
+        }
+
+        @Override
+        Node assoc(@Nullable final Object edit, final int shift, final int hash, final Object key, final Object value,
+                final Change change) {
+            if (hash != this.hash) {
+                final Node parent = new BitmapNode(edit, BitmapNode.bit(this.hash, shift), new Object[] { null, this });
+                return parent.assoc(edit, shift, hash, key, value, change);
+            }
+            final int i = this.indexOf(key);
+            if (i >= 0) {
+                change.old = this.array[i + 1];
+                if (this.array[i + 1] == value) {
+                    return this;
+                }
+                final CollisionNode ret = this.editable(edit);
+                ret.array[i + 1] = value;
+                return ret;
+            }
+            change.sizeChanged = true;
+            final int slots = this.slots();
+            final CollisionNode ret;
+            if (this.ownedBy(edit) && slots < this.array.length) {
+                ret = this;
+            } else {
+                ret = new CollisionNode(edit, this.hash, this.count, Arrays.copyOf(this.array, slots + 2));
+            }
+            ret.array[slots] = key;
+            ret.array[slots + 1] = value;
+            ret.count++;
+            return ret;
+        }
+
+        @Override
+        @Nullable
+        Node without(@Nullable final Object edit, final int shift, final int hash, final Object key, final Change change) {
+            final int i = hash == this.hash ? this.indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            change.old = this.array[i + 1];
+            change.sizeChanged = true;
+            if (this.count == 1) {
+                return null;
+            }
+            final int slots = this.slots();
+            final CollisionNode ret = this.ownedBy(edit) ? this : new CollisionNode(edit, this.hash, this.count, this.array.clone());
+            // The order of the pairs doesn't matter, so the last pair fills the gap
+            ret.array[i] = ret.array[slots - 2];
+            ret.array[i + 1] = ret.array[slots - 1];
+            ret.array[slots - 2] = null;
+            ret.array[slots - 1] = null;
+            ret.count--;
+            return ret;
+        }
+    }
+
+    /**
+     * Create an empty map.
+     */
+    public PersistentHashMap() {
+        this(null, 0);
+    }
+
+    /**
+     * Create a map containing the mappings of the given map.
+     * @param m the mappings of the new map
+     * @throws IllegalArgumentException if m is null or contains a null key or value
+     */
+    public PersistentHashMap(final Map<? extends K, ? extends V> m) {
+        this(null, 0);
+        if (m == null) {
+            throw new IllegalArgumentException("Expected Map, found null"); //$NON-NLS-1$
+        }
+        this.putAll(m);
+    }
+
+    private PersistentHashMap(@Nullable final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param <K> the key type of the map to build
+     * @param <V> the value type of the map to build
+     * @return a new builder for a map that is initially empty
+     */
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    private static int hash(final Object key) {
+        final int h = key.hashCode();
+        return h ^ h >>> 16;
+    }
+
+    private static <T> T checked(@Nullable final T value, final String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected " + name + ", found null"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return value;
+    }
+
+    private static Node createNode(@Nullable final Object edit, final int shift, final Object key1, final Object value1, final int hash2,
+            final Object key2, final Object value2) {
+        final int hash1 = PersistentHashMap.hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode(edit, hash1, 2, new Object[] { key1, value1, key2, value2 });
+        }
+        // The hashes differ in some 5 bits at or below shift, so this doesn't recurse past the last 5 bits
+        final Change ignored = new Change();
+        return new BitmapNode(edit, 0, PersistentHashMap.EMPTY_ARRAY).assoc(edit, shift, hash1, key1, value1, ignored).assoc(edit, shift,
+                hash2, key2, value2, ignored);
+    }
+
+    private static Node assoc(@Nullable final Node root, @Nullable final Object edit, final Object key, final Object value,
+            final Change change) {
+        final Node node = root == null ? new BitmapNode(edit, 0, PersistentHashMap.EMPTY_ARRAY) : root;
+        return node.assoc(edit, 0, PersistentHashMap.hash(key), key, value, change);
+    }
+
+    /**
+     * @return a new map that shares the trie of this map
+     */
+    public PersistentHashMap<K, V> copy() {
+        return new PersistentHashMap<>(this.root, this.size);
+    }
+
+    /**
+     * @param key the key to map
+     * @param value the value to map key to
+     * @return a new map with the mappings of this map and a mapping from key to value, which shares every other part of this map's trie
+     * @throws IllegalArgumentException if key or value is null
+     */
+    public PersistentHashMap<K, V> purePut(final K key, final V value) {
+        final Change change = new Change();
+        final Node ret = PersistentHashMap.assoc(this.root, null, PersistentHashMap.checked(key, "Key"), //$NON-NLS-1$
+                PersistentHashMap.checked(value, "Value"), change); //$NON-NLS-1$
+        return ret == this.root ? this.copy() : new PersistentHashMap<>(ret, change.sizeChanged ? this.size + 1 : this.size);
+    }
+
+    /**
+     * @param key the key to remove
+     * @return a new map with the mappings of this map except the mapping for key, which shares every other part of this map's trie
+     * @throws IllegalArgumentException if key is null
+     */
+    public PersistentHashMap<K, V> pureRemove(final Object key) {
+        final Object k = PersistentHashMap.checked(key, "Key"); //$NON-NLS-1$
+        if (this.root == null) {
+            return this.copy();
+        }
+        final Change change = new Change();
+        final Node ret = this.root.without(null, 0, PersistentHashMap.hash(k), k, change);
+        return ret == this.root ? this.copy() : new PersistentHashMap<>(ret, change.sizeChanged ? this.size - 1 : this.size);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V get(@Nullable final Object key) {
+        final Object k = PersistentHashMap.checked(key, "Key"); //$NON-NLS-1$
+        return this.root == null ? null : (V) this.root.find(0, PersistentHashMap.hash(k), k);
+    }
+
+    @Override
+    public boolean containsKey(@Nullable final Object key) {
+        return this.get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V put(@Nullable final K key, @Nullable final V value) {
+        final Change change = new Change();
+        this.root = PersistentHashMap.assoc(this.root, null, PersistentHashMap.checked(key, "Key"), //$NON-NLS-1$
+                PersistentHashMap.checked(value, "Value"), change); //$NON-NLS-1$
+        if (change.sizeChanged) {
+            this.size++;
+        }
+        return (V) change.old;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable V remove(@Nullable final Object key) {
+        final Object k = PersistentHashMap.checked(key, "Key"); //$NON-NLS-1$
+        if (this.root == null) {
+            return null;
+        }
+        final Change change = new Change();
+        this.root = this.root.without(null, 0, PersistentHashMap.hash(k), k, change);
+        if (change.sizeChanged) {
+            this.size--;
+        }
+        return (V) change.old;
+    }
+
+    /**
+     * Puts the mappings of m in place, like a {@link Builder}, so only the nodes of this map's trie that other maps share are copied.
+     */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> m) {
+        final Builder<K, V> builder = new Builder<>(this);
+        builder.putAll(m);
+        this.root = builder.root;
+        this.size = builder.size;
+    }
+
+    @Override
+    public void clear() {
+        this.root = null;
+        this.size = 0;
+    }
+
+    /**
+     * The returned set iterates over the trie that this map refers to when the iterator is created, so this map may be modified during the
+     * iteration. Removing a mapping through the iterator and setting the value of an entry have the same effect as {@link #remove(Object)}
+     * and {@link #put(Object, Object)}.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return PersistentHashMap.this.new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return PersistentHashMap.this.size;
+            }
+
+            @Override
+            public void clear() {
+                PersistentHashMap.this.clear();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Object[][] arrays = new Object[PersistentHashMap.MAX_DEPTH][];
+        private final int[] positions = new int[PersistentHashMap.MAX_DEPTH];
+        private final int[] ends = new int[PersistentHashMap.MAX_DEPTH];
+        private int depth = -1;
+        @Nullable
+        private Object nextKey = null;
+        @Nullable
+        private Object nextValue = null;
+        @Nullable
+        private Object lastKey = null;
+
+        EntryIterator() {
+            if (PersistentHashMap.this.root != null) {
+                this.push(PersistentHashMap.this.root);
+            }
+            this.advance();
+        }
+
+        private void push(final Node node) {
+            this.depth++;
+            this.arrays[this.depth] = node.array;
+            this.positions[this.depth] = 0;
+            this.ends[this.depth] = node.slots();
+        }
+
+        private void advance() {
+            this.nextKey = null;
+            while (this.depth >= 0) {
+                final int i = this.positions[this.depth];
+                if (i == this.ends[this.depth]) {
+                    this.arrays[this.depth--] = null;
+                    continue;
+                }
+                this.positions[this.depth] = i + 2;
+                final Object key = this.arrays[this.depth][i];
+                final Object value = this.arrays[this.depth][i + 1];
+                if (key == null) {
+                    this.push((Node) value);
+                } else {
+                    this.nextKey = key;
+                    this.nextValue = value;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextKey != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<K, V> next() {
+            if (this.nextKey == null) {
+                throw new NoSuchElementException();
+            }
+            final K key = (K) this.nextKey;
+            final V value = (V) this.nextValue;
+            this.lastKey = key;
+            this.advance();
+            return new SimpleEntry<>(key, value) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public V setValue(final V newValue) {
+                    PersistentHashMap.this.put(key, newValue);
+                    return super.setValue(newValue);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastKey == null) {
+                throw new IllegalStateException();
+            }
+            PersistentHashMap.this.remove(this.lastKey);
+            this.lastKey = null;
+        }
+    }
+
+    /**
+     * A builder for {@link PersistentHashMap}s, which modifies the nodes that it has created in place instead of copying them. Nodes that
+     * it didn't create are copied the first time that they are modified, so a builder started from a map never changes that map.
+     * @param <K> the key type of the map to build
+     * @param <V> the value type of the map to build
+     */
+    public static final class Builder<K, V> {
+        private Object edit = new Object();
+        @Nullable
+        Node root = null;
+        int size = 0;
+
+        /**
+         * Create a builder for a map that is initially empty.
+         */
+        public Builder() {
+            // Nothing to do
+        }
+
+        /**
+         * Create a builder for a map that initially has the mappings of the given map.
+         * @param map the initial mappings of the map to build, which this builder never modifies
+         * @throws IllegalArgumentException if map is null
+         */
+        public Builder(final PersistentHashMap<K, V> map) {
+            if (map == null) {
+                throw new IllegalArgumentException("Expected PersistentHashMap, found null"); //$NON-NLS-1$
+            }
+            this.root = map.root;
+            this.size = map.size;
+        }
+
+        /**
+         * @return the number of mappings of the map to build
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * @param key the key to map
+         * @param value the value to map key to
+         * @return this
+         * @throws IllegalArgumentException if key or value is null
+         */
+        public Builder<K, V> put(final K key, final V value) {
+            final Change change = new Change();
+            this.root = PersistentHashMap.assoc(this.root, this.edit, PersistentHashMap.checked(key, "Key"), //$NON-NLS-1$
+                    PersistentHashMap.checked(value, "Value"), change); //$NON-NLS-1$
+            if (change.sizeChanged) {
+                this.size++;
+            }
+            return this;
+        }
+
+        /**
+         * @param m the mappings to add to the map to build
+         * @return this
+         * @throws IllegalArgumentException if m contains a null key or value
+         */
+        public Builder<K, V> putAll(final Map<? extends K, ? extends V> m) {
+            for (final Entry<? extends K, ? extends V> entry : m.entrySet()) {
+                this.put(entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * @param key the key to remove from the map to build
+         * @return this
+         * @throws IllegalArgumentException if key is null
+         */
+        public Builder<K, V> remove(final Object key) {
+            final Object k = PersistentHashMap.checked(key, "Key"); //$NON-NLS-1$
+            if (this.root != null) {
+                final Change change = new Change();
+                this.root = this.root.without(this.edit, 0, PersistentHashMap.hash(k), k, change);
+                if (change.sizeChanged) {
+                    this.size--;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Create a map of the mappings added so far. This builder remains usable, but no longer modifies any node of the returned map.
+         * @return a map containing the mappings that have been added to this builder
+         */
+        public PersistentHashMap<K, V> build() {
+            final PersistentHashMap<K, V> ret = new PersistentHashMap<>(this.root, this.size);
+            this.edit = new Object();
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,1078 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.function.Predicate;
+
+import util.number.UInt32;
+
+/**
+ * A list backed by an immutable relaxed radix balanced tree (RRB-tree) with a branching factor of 32. Indexing, replacement, appending,
+ * concatenation and slicing all take O(log<sub>32</sub> n) time and share every untouched part of the tree.
+ * <p>
+ * An instance of this class is a mutable handle to an immutable tree: the mutation methods replace the tree that this object refers to and
+ * return this, while the <tt>pure*</tt> methods, {@link #copy()}, {@link #concat(PersistentVector)} and
+ * {@link #subVector(UInt32, UInt32)} return new handles that share structure with this one. Neither kind of method modifies any tree that
+ * another handle can see, so every version of a vector stays valid at the cost of only the nodes on the changed paths. Use a
+ * {@link Builder} to construct large vectors in place.
+ * @param <T> the type of the elements of this list
+ */
+public final class PersistentVector<T> implements AnnotatedNonNullList<PersistentVector<T>, T>, RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << PersistentVector.BITS;
+    private static final int MASK = PersistentVector.WIDTH - 1;
+    // A node may be rebalanced away if the nodes next to it leave more than EXTRAS slots unused in total
+    private static final int INVARIANT = 1;
+    private static final int EXTRAS = 2;
+    private static final Node EMPTY_LEAF = new Node(null, new Object[0], null);
+
+    private Node root;
+    private int shift; // The number of index bits consumed below the root. 0 iff the root is a leaf
+    private int size;
+
+    /**
+     * A node of the tree. Leaves hold elements and all other nodes hold nodes.
+     */
+    private static final class Node {
+        @Nullable
+        final Object edit; // The builder that may modify this node in place, or null if no builder may
+        Object[] array;
+        @Nullable
+        int[] sizes; // The cumulative sizes of the children, or null if every child except the last is full
+
+        Node(@Nullable final Object edit, final Object[] array, @Nullable final int[] sizes) {
+            this.edit = edit;
+            this.array = array;
+            this.sizes = sizes;
+        }
+    }
+
+    /**
+     * Create an empty vector.
+     */
+    public PersistentVector() {
+        this(PersistentVector.EMPTY_LEAF, 0, 0);
+    }
+
+    /**
+     * Create a vector containing the elements of the given collection in iteration order.
+     * @param c the elements of the new vector
+     * @throws IllegalArgumentException if c contains null
+     */
+    public PersistentVector(final Collection<? extends T> c) {
+        this(PersistentVector.EMPTY_LEAF, 0, 0);
+        if (c == null) {
+            throw new IllegalArgumentException("Expected Collection, found null"); //$NON-NLS-1$
+        }
+        this.replaceWith(new Builder<T>().addAll(c).build());
+    }
+
+    private PersistentVector(final Node root, final int shift, final int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    /**
+     * @param values the elements of the returned vector
+     * @param <T> the type of the elements of the returned vector
+     * @return a vector containing the given values in order
+     * @throws IllegalArgumentException if any of the values is null
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // Arrays.asList only reads the array
+    public static <T> PersistentVector<T> of(final T... values) {
+        return new PersistentVector<>(Arrays.asList(values));
+    }
+
+    /**
+     * @param <T> the type of the elements of the vector to build
+     * @return a new builder for a vector that is initially empty
+     */
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    private static <T> T checked(final T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected element, found null"); //$NON-NLS-1$
+        }
+        return value;
+    }
+
+    private PersistentVector<T> replaceWith(final PersistentVector<T> other) {
+        this.root = other.root;
+        this.shift = other.shift;
+        this.size = other.size;
+        return this;
+    }
+
+    /**
+     * @param node a node of a tree
+     * @param shift the shift of the node
+     * @return the number of elements under the node
+     */
+    private static int treeSize(final Node node, final int shift) {
+        if (shift == 0) {
+            return node.array.length;
+        }
+        if (node.sizes != null) {
+            return node.sizes[node.array.length - 1];
+        }
+        final int last = node.array.length - 1;
+        return (last << shift) + PersistentVector.treeSize((Node) node.array[last], shift - PersistentVector.BITS);
+    }
+
+    /**
+     * @param node an internal node
+     * @param shift the shift of the node
+     * @param slot a slot of the node
+     * @return the number of elements under the children of the node up to and including the given slot
+     */
+    private static int cumulativeSize(final Node node, final int shift, final int slot) {
+        if (node.sizes != null) {
+            return node.sizes[slot];
+        }
+        if (slot == node.array.length - 1) {
+            return PersistentVector.treeSize(node, shift);
+        }
+        return slot + 1 << shift;
+    }
+
+    /**
+     * @param node an internal node
+     * @param shift the shift of the node
+     * @param index an index relative to the node. Must be less than the size of the node
+     * @return the slot of the child of the node that holds the given index
+     */
+    private static int slotFor(final Node node, final int shift, final int index) {
+        final int[] sizes = node.sizes;
+        if (sizes == null) {
+            return index >>> shift & PersistentVector.MASK;
+        }
+        // No child holds more than 1 << shift elements, so the child can't be to the left of the strict slot
+        int slot = index >>> shift;
+        while (sizes[slot] <= index) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * @param node an internal node
+     * @param shift the shift of the node
+     * @param slot a slot of the node
+     * @return the number of elements under the children of the node before the given slot
+     */
+    private static int offsetOf(final Node node, final int shift, final int slot) {
+        if (slot == 0) {
+            return 0;
+        }
+        return node.sizes == null ? slot << shift : node.sizes[slot - 1];
+    }
+
+    /**
+     * Create an internal node, deciding from the sizes of its children whether it needs a size table.
+     * @param edit the builder that owns the new node, or null
+     * @param children the children of the new node
+     * @param shift the shift of the new node
+     * @return the new node
+     */
+    private static Node makeNode(@Nullable final Object edit, final Object[] children, final int shift) {
+        final int[] sizes = new int[children.length];
+        boolean strict = true;
+        int total = 0;
+        for (int i = 0; i < children.length; i++) {
+            final int childSize = PersistentVector.treeSize((Node) children[i], shift - PersistentVector.BITS);
+            strict &= i == children.length - 1 || childSize == 1 << shift;
+            total += childSize;
+            sizes[i] = total;
+        }
+        return new Node(edit, children, strict ? null : sizes);
+    }
+
+    private static Node editable(@Nullable final Object edit, final Node node) {
+        if (edit != null && node.edit == edit) {
+            return node;
+        }
+        return new Node(edit, node.array.clone(), node.sizes == null ? null : node.sizes.clone());
+    }
+
+    private static Node newPath(@Nullable final Object edit, final int shift, final Node leaf) {
+        if (shift == 0) {
+            return leaf;
+        }
+        return new Node(edit, new Object[] { PersistentVector.newPath(edit, shift - PersistentVector.BITS, leaf) }, null);
+    }
+
+    private static Node replaceLastChild(@Nullable final Object edit, final Node node, final Node child, final int delta) {
+        final Node ret = PersistentVector.editable(edit, node);
+        final int last = ret.array.length - 1;
+        ret.array[last] = child;
+        if (ret.sizes != null) {
+            ret.sizes[last] += delta;
+        }
+        return ret;
+    }
+
+    private static Node appendChild(@Nullable final Object edit, final Node node, final int shift, final Node child, final int childSize) {
+        final int len = node.array.length;
+        final Object[] array = Arrays.copyOf(node.array, len + 1);
+        array[len] = child;
+        int[] sizes = node.sizes;
+        if (sizes == null) {
+            final int lastSize = PersistentVector.treeSize((Node) node.array[len - 1], shift - PersistentVector.BITS);
+            if (lastSize == 1 << shift) {
+                return new Node(edit, array, null);
+            }
+            sizes = new int[len + 1];
+            for (int i = 0; i < len - 1; i++) {
+                sizes[i] = i + 1 << shift;
+            }
+            sizes[len - 1] = (len - 1 << shift) + lastSize;
+        } else {
+            sizes = Arrays.copyOf(sizes, len + 1);
+        }
+        sizes[len] = sizes[len - 1] + childSize;
+        return new Node(edit, array, sizes);
+    }
+
+    /**
+     * Add a leaf as the new rightmost leaf of a subtree.
+     * @param edit the builder that owns the modified nodes, or null
+     * @param node the root of the subtree. Must not be a leaf
+     * @param shift the shift of the subtree
+     * @param leaf the leaf to add
+     * @return the root of the new subtree, or null if the rightmost path of the subtree is full
+     */
+    private static @Nullable Node pushLeaf(@Nullable final Object edit, final Node node, final int shift, final Node leaf) {
+        final int len = node.array.length;
+        if (shift > PersistentVector.BITS) {
+            final Node newLast = PersistentVector.pushLeaf(edit, (Node) node.array[len - 1], shift - PersistentVector.BITS, leaf);
+            if (newLast != null) {
+                return PersistentVector.replaceLastChild(edit, node, newLast, leaf.array.length);
+            }
+        }
+        if (len == PersistentVector.WIDTH) {
+            return null;
+        }
+        return PersistentVector
+                .appendChild(edit, node, shift, PersistentVector.newPath(edit, shift - PersistentVector.BITS, leaf), leaf.array.length);
+    }
+
+    /**
+     * Add a leaf as the new rightmost leaf of a tree.
+     * @param edit the builder that owns the modified nodes, or null
+     * @param leaf the leaf to add. Must not be empty
+     */
+    private void pushLeaf(@Nullable final Object edit, final Node leaf) {
+        if (this.size == 0) {
+            this.root = leaf;
+        } else if (this.shift == 0) {
+            this.root = PersistentVector.makeNode(edit, new Object[] { this.root, leaf }, PersistentVector.BITS);
+            this.shift = PersistentVector.BITS;
+        } else {
+            final Node newRoot = PersistentVector.pushLeaf(edit, this.root, this.shift, leaf);
+            if (newRoot != null) {
+                this.root = newRoot;
+            } else {
+                final Node path = PersistentVector.newPath(edit, this.shift, leaf);
+                this.root = PersistentVector.makeNode(edit, new Object[] { this.root, path }, this.shift + PersistentVector.BITS);
+                this.shift += PersistentVector.BITS;
+            }
+        }
+        this.size += leaf.array.length;
+    }
+
+    private static Node appendToLastLeaf(final Node node, final int shift, final Object value) {
+        final int len = node.array.length;
+        if (shift == 0) {
+            final Object[] array = Arrays.copyOf(node.array, len + 1);
+            array[len] = value;
+            return new Node(null, array, null);
+        }
+        final Node last = PersistentVector.appendToLastLeaf((Node) node.array[len - 1], shift - PersistentVector.BITS, value);
+        return PersistentVector.replaceLastChild(null, node, last, 1);
+    }
+
+    private Node lastLeaf() {
+        Node node = this.root;
+        for (int s = this.shift; s > 0; s -= PersistentVector.BITS) {
+            node = (Node) node.array[node.array.length - 1];
+        }
+        return node;
+    }
+
+    /**
+     * @param index the index of an element of this vector
+     * @return a pair of the leaf that holds the given index and the index of the first element of that leaf
+     */
+    private Pair<Node, Integer> leafFor(final int index) {
+        Node node = this.root;
+        int i = index;
+        for (int s = this.shift; s > 0; s -= PersistentVector.BITS) {
+            final int slot = PersistentVector.slotFor(node, s, i);
+            i -= PersistentVector.offsetOf(node, s, slot);
+            node = (Node) node.array[slot];
+        }
+        return new Pair<>(node, index - i);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(final int index) {
+        Node node = this.root;
+        int i = index;
+        for (int s = this.shift; s > 0; s -= PersistentVector.BITS) {
+            final int slot = PersistentVector.slotFor(node, s, i);
+            i -= PersistentVector.offsetOf(node, s, slot);
+            node = (Node) node.array[slot];
+        }
+        return (T) node.array[i];
+    }
+
+    private static Node assoc(final Node node, final int shift, final int index, final Object value) {
+        final Node ret = PersistentVector.editable(null, node);
+        if (shift == 0) {
+            ret.array[index] = value;
+        } else {
+            final int slot = PersistentVector.slotFor(node, shift, index);
+            final int subIndex = index - PersistentVector.offsetOf(node, shift, slot);
+            ret.array[slot] = PersistentVector.assoc((Node) node.array[slot], shift - PersistentVector.BITS, subIndex, value);
+        }
+        return ret;
+    }
+
+    /**
+     * @param node the root of a subtree
+     * @param shift the shift of the subtree
+     * @param end the number of elements to keep. Must be positive and no greater than the size of the subtree
+     * @return the root of a subtree with the first <tt>end</tt> elements of the given subtree
+     */
+    private static Node sliceRight(final Node node, final int shift, final int end) {
+        if (shift == 0) {
+            return end == node.array.length ? node : new Node(null, Arrays.copyOf(node.array, end), null);
+        }
+        final int slot = PersistentVector.slotFor(node, shift, end - 1);
+        final Node child = (Node) node.array[slot];
+        final Node newChild = PersistentVector
+                .sliceRight(child, shift - PersistentVector.BITS, end - PersistentVector.offsetOf(node, shift, slot));
+        if (slot == node.array.length - 1 && newChild == child) {
+            return node;
+        }
+        final Object[] array = Arrays.copyOf(node.array, slot + 1);
+        array[slot] = newChild;
+        if (node.sizes == null) {
+            return new Node(null, array, null);
+        }
+        final int[] sizes = Arrays.copyOf(node.sizes, slot + 1);
+        sizes[slot] = end;
+        return new Node(null, array, sizes);
+    }
+
+    /**
+     * @param node the root of a subtree
+     * @param shift the shift of the subtree
+     * @param start the number of elements to drop. Must be less than the size of the subtree
+     * @return the root of a subtree with all but the first <tt>start</tt> elements of the given subtree
+     */
+    private static Node sliceLeft(final Node node, final int shift, final int start) {
+        if (start == 0) {
+            return node;
+        }
+        if (shift == 0) {
+            return new Node(null, Arrays.copyOfRange(node.array, start, node.array.length), null);
+        }
+        final int slot = PersistentVector.slotFor(node, shift, start);
+        final Node newChild = PersistentVector
+                .sliceLeft((Node) node.array[slot], shift - PersistentVector.BITS, start - PersistentVector.offsetOf(node, shift, slot));
+        final Object[] array = Arrays.copyOfRange(node.array, slot, node.array.length);
+        array[0] = newChild;
+        final int[] sizes = new int[array.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = PersistentVector.cumulativeSize(node, shift, slot + i) - start;
+        }
+        return new Node(null, array, sizes);
+    }
+
+    private static <T> PersistentVector<T> withHeightTrimmed(final Node root, final int shift, final int size) {
+        Node newRoot = root;
+        int newShift = shift;
+        while (newShift > 0 && newRoot.array.length == 1) {
+            newRoot = (Node) newRoot.array[0];
+            newShift -= PersistentVector.BITS;
+        }
+        return new PersistentVector<>(newRoot, newShift, size);
+    }
+
+    private static Object[] nodeArrayConcat(final Object[] left, final Object[] middle, final Object[] right) {
+        final Object[] ret = new Object[left.length + middle.length + right.length];
+        System.arraycopy(left, 0, ret, 0, left.length);
+        System.arraycopy(middle, 0, ret, left.length, middle.length);
+        System.arraycopy(right, 0, ret, left.length + middle.length, right.length);
+        return ret;
+    }
+
+    /**
+     * Merge the rightmost path of one subtree with the leftmost path of another.
+     * @param left the left subtree
+     * @param leftShift the shift of the left subtree
+     * @param right the right subtree
+     * @param rightShift the shift of the right subtree
+     * @return a node with shift <tt>max(leftShift, rightShift) + BITS</tt> and one or two children that together hold the elements of
+     * left followed by the elements of right
+     */
+    private static Node concatSubTree(final Node left, final int leftShift, final Node right, final int rightShift) {
+        if (leftShift > rightShift) {
+            final Node middle = PersistentVector
+                    .concatSubTree((Node) left.array[left.array.length - 1], leftShift - PersistentVector.BITS, right, rightShift);
+            return PersistentVector.rebalance(left, middle, null, leftShift);
+        }
+        if (leftShift < rightShift) {
+            final Node middle = PersistentVector.concatSubTree(left, leftShift, (Node) right.array[0], rightShift - PersistentVector.BITS);
+            return PersistentVector.rebalance(null, middle, right, rightShift);
+        }
+        if (leftShift == 0) {
+            if (left.array.length + right.array.length <= PersistentVector.WIDTH) {
+                final Object[] merged = PersistentVector.nodeArrayConcat(left.array, right.array, new Object[0]);
+                return new Node(null, new Object[] { new Node(null, merged, null) }, null);
+            }
+            return PersistentVector.makeNode(null, new Object[] { left, right }, PersistentVector.BITS);
+        }
+        final Node middle = PersistentVector.concatSubTree(
+                (Node) left.array[left.array.length - 1],
+                leftShift - PersistentVector.BITS,
+                (Node) right.array[0],
+                rightShift - PersistentVector.BITS);
+        return PersistentVector.rebalance(left, middle, right, leftShift);
+    }
+
+    /**
+     * @param left a node with shift <tt>shift</tt> whose last child has been merged into middle, or null
+     * @param middle a node with shift <tt>shift</tt>
+     * @param right a node with shift <tt>shift</tt> whose first child has been merged into middle, or null
+     * @param shift the shift of the nodes
+     * @return a node with shift <tt>shift + BITS</tt> and one or two children that together hold the children of the given nodes
+     */
+    private static Node rebalance(@Nullable final Node left, final Node middle, @Nullable final Node right, final int shift) {
+        final Object[] all = PersistentVector.nodeArrayConcat(
+                left == null ? new Object[0] : Arrays.copyOf(left.array, left.array.length - 1),
+                middle.array,
+                right == null ? new Object[0] : Arrays.copyOfRange(right.array, 1, right.array.length));
+        final Object[] children = PersistentVector.executeConcatPlan(all, PersistentVector.concatPlan(all), shift - PersistentVector.BITS);
+        if (children.length <= PersistentVector.WIDTH) {
+            return new Node(null, new Object[] { PersistentVector.makeNode(null, children, shift) }, null);
+        }
+        final Node newLeft = PersistentVector.makeNode(null, Arrays.copyOf(children, PersistentVector.WIDTH), shift);
+        final Node newRight = PersistentVector
+                .makeNode(null, Arrays.copyOfRange(children, PersistentVector.WIDTH, children.length), shift);
+        return PersistentVector.makeNode(null, new Object[] { newLeft, newRight }, shift + PersistentVector.BITS);
+    }
+
+    /**
+     * @param nodes sibling nodes
+     * @return the lengths of the nodes to replace the given nodes with, so that no more than {@link #EXTRAS} more nodes are used than
+     * necessary
+     */
+    private static int[] concatPlan(final Object[] nodes) {
+        final int[] counts = new int[nodes.length];
+        int total = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            counts[i] = ((Node) nodes[i]).array.length;
+            total += counts[i];
+        }
+        final int optimal = (total - 1) / PersistentVector.WIDTH + 1;
+        int len = counts.length;
+        int i = 0;
+        while (optimal + PersistentVector.EXTRAS < len) {
+            while (counts[i] > PersistentVector.WIDTH - PersistentVector.INVARIANT) {
+                i++;
+            }
+            // Spread the contents of node i over the nodes after it
+            int remaining = counts[i];
+            do {
+                final int newCount = Math.min(remaining + counts[i + 1], PersistentVector.WIDTH);
+                counts[i] = newCount;
+                remaining += counts[i + 1] - newCount;
+                i++;
+            } while (remaining > 0);
+            System.arraycopy(counts, i + 1, counts, i, len - i - 1);
+            len--;
+            i--;
+        }
+        return Arrays.copyOf(counts, len);
+    }
+
+    private static Object[] executeConcatPlan(final Object[] nodes, final int[] plan, final int shift) {
+        final Object[] ret = new Object[plan.length];
+        int node = 0;
+        int offset = 0;
+        for (int i = 0; i < plan.length; i++) {
+            final Node current = (Node) nodes[node];
+            if (offset == 0 && current.array.length == plan[i]) {
+                ret[i] = current;
+                node++;
+                continue;
+            }
+            final Object[] array = new Object[plan[i]];
+            int filled = 0;
+            while (filled < array.length) {
+                final Node source = (Node) nodes[node];
+                final int count = Math.min(array.length - filled, source.array.length - offset);
+                System.arraycopy(source.array, offset, array, filled, count);
+                filled += count;
+                offset += count;
+                if (offset == source.array.length) {
+                    node++;
+                    offset = 0;
+                }
+            }
+            ret[i] = shift == 0 ? new Node(null, array, null) : PersistentVector.makeNode(null, array, shift);
+        }
+        return ret;
+    }
+
+    private static <T> PersistentVector<T> concat(final PersistentVector<T> left, final PersistentVector<T> right) {
+        if (left.size == 0) {
+            return right.copy();
+        }
+        if (right.size == 0) {
+            return left.copy();
+        }
+        final Node merged = PersistentVector.concatSubTree(left.root, left.shift, right.root, right.shift);
+        return PersistentVector
+                .withHeightTrimmed(merged, Math.max(left.shift, right.shift) + PersistentVector.BITS, left.size + right.size);
+    }
+
+    private PersistentVector<T> range(final int from, final int to) {
+        if (from >= to) {
+            return new PersistentVector<>();
+        }
+        if (from == 0 && to == this.size) {
+            return this.copy();
+        }
+        final Node right = PersistentVector.sliceRight(this.root, this.shift, to);
+        return PersistentVector.withHeightTrimmed(PersistentVector.sliceLeft(right, this.shift, from), this.shift, to - from);
+    }
+
+    private PersistentVector<T> without(final int index) {
+        return PersistentVector.concat(this.range(0, index), this.range(index + 1, this.size));
+    }
+
+    /**
+     * @return a new vector that shares the tree of this vector
+     */
+    public PersistentVector<T> copy() {
+        return new PersistentVector<>(this.root, this.shift, this.size);
+    }
+
+    /**
+     * Concatenate this vector with another in O(log<sub>32</sub> n) time. Neither vector is modified.
+     * @param other the vector whose elements follow the elements of this vector in the returned vector
+     * @return a new vector containing the elements of this vector followed by the elements of the other vector
+     */
+    public PersistentVector<T> concat(final PersistentVector<? extends T> other) {
+        @SuppressWarnings("unchecked") // other is only read from
+        final PersistentVector<T> right = (PersistentVector<T>) other;
+        return PersistentVector.concat(this, right);
+    }
+
+    /**
+     * Create a vector that contains a segment of this vector in O(log<sub>32</sub> n) time. Unlike {@link #slice(UInt32, UInt32)}, the
+     * returned vector is independent of this one.
+     * @param fromIdx the index of the first element of this vector to include
+     * @param toIdx the index after the last element of this vector to include
+     * @return a new vector containing the elements of this vector from fromIdx inclusive to toIdx exclusive
+     */
+    public PersistentVector<T> subVector(final UInt32 fromIdx, final UInt32 toIdx) {
+        final int to = toIdx.intValue() < 0 || toIdx.intValue() > this.size ? this.size : toIdx.intValue();
+        final int from = fromIdx.intValue() < 0 || fromIdx.intValue() > to ? to : fromIdx.intValue();
+        return this.range(from, to);
+    }
+
+    @Override
+    public UInt32 size() {
+        return UInt32.asUnsigned(this.size);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return this.intIndexOf(object) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        final Map<Object, Integer> counts = new HashMap<>();
+        for (final Object o : c) {
+            counts.merge(o, 1, Integer::sum);
+        }
+        final Iterator<T> iter = this.iterator();
+        while (iter.hasNext() && !counts.isEmpty()) {
+            counts.computeIfPresent(iter.next(), (none, count) -> count == 1 ? null : count - 1);
+        }
+        return counts.isEmpty();
+    }
+
+    @Override
+    public int intIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        final ListIterator<T> liter = this.listIterator();
+        while (liter.hasNext()) {
+            if (o.equals(liter.next())) {
+                return liter.previousIndex();
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Maybe<UInt32> indexOf(final T value) {
+        final int ret = this.intIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<UInt32> lastIndexOf(final T value) {
+        final int ret = this.intLastIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<T> get(final UInt32 index) {
+        return Maybe.maybe(this.getOrNull(index.intValue()));
+    }
+
+    @Override
+    public @Nullable T getOrNull(final int index) {
+        if (index < 0 || index >= this.size) {
+            return null;
+        }
+        return this.elementAt(index);
+    }
+
+    @Override
+    public @Nullable T setOrNull(final int index, final T value) {
+        if (index < 0 || index >= this.size) {
+            return null;
+        }
+        PersistentVector.checked(value);
+        final T ret = this.elementAt(index);
+        this.root = PersistentVector.assoc(this.root, this.shift, index, value);
+        return ret;
+    }
+
+    @Override
+    public int copyInto(final Object[] dest) {
+        return PersistentVector.copyTo(this.root, this.shift, dest, 0);
+    }
+
+    @Override
+    public PersistentVector<T> add(final T value) {
+        PersistentVector.checked(value);
+        if (this.size != 0 && this.lastLeaf().array.length < PersistentVector.WIDTH) {
+            this.root = PersistentVector.appendToLastLeaf(this.root, this.shift, value);
+            this.size++;
+        } else {
+            this.pushLeaf(null, new Node(null, new Object[] { value }, null));
+        }
+        return this;
+    }
+
+    private int checkedInsertionIndex(final UInt32 index) {
+        final int i = index.intValue();
+        if (i < 0 || i > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index.longValue() + ", Size: " + this.size); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return i;
+    }
+
+    @Override
+    public PersistentVector<T> insert(final UInt32 index, final T value) {
+        final int i = this.checkedInsertionIndex(index);
+        PersistentVector.checked(value);
+        if (i == this.size) {
+            return this.add(value);
+        }
+        final PersistentVector<T> left = this.range(0, i).add(value);
+        return this.replaceWith(PersistentVector.concat(left, this.range(i, this.size)));
+    }
+
+    @Override
+    public PersistentVector<T> addAll(final Collection<? extends T> c) {
+        if (c == null) {
+            throw new IllegalArgumentException("Expected Collection, found null"); //$NON-NLS-1$
+        }
+        if (c.isEmpty()) {
+            return this;
+        }
+        return this.replaceWith(PersistentVector.concat(this, new Builder<T>().addAll(c).build()));
+    }
+
+    @Override
+    public PersistentVector<T> addAll(final UInt32 index, final Collection<? extends T> c) {
+        final int i = this.checkedInsertionIndex(index);
+        if (c == null) {
+            throw new IllegalArgumentException("Expected Collection, found null"); //$NON-NLS-1$
+        }
+        if (c.isEmpty()) {
+            return this;
+        }
+        final PersistentVector<T> left = PersistentVector.concat(this.range(0, i), new Builder<T>().addAll(c).build());
+        return this.replaceWith(PersistentVector.concat(left, this.range(i, this.size)));
+    }
+
+    @Override
+    public Pair<PersistentVector<T>, Maybe<T>> set(final UInt32 index, final T value) {
+        return new Pair<>(this, Maybe.maybe(this.setOrNull(index.intValue(), value)));
+    }
+
+    @Override
+    public Pair<PersistentVector<T>, Maybe<T>> remove(final UInt32 index) {
+        final Pair<PersistentVector<T>, Maybe<T>> ret = this.pureRemove(index);
+        return new Pair<>(this.replaceWith(ret.fst()), ret.snd());
+    }
+
+    @Override
+    public Pair<PersistentVector<T>, Maybe<T>> remove(final Object o) {
+        final Pair<PersistentVector<T>, Maybe<T>> ret = this.pureRemove(o);
+        return new Pair<>(this.replaceWith(ret.fst()), ret.snd());
+    }
+
+    @Override
+    public Pair<PersistentVector<T>, Maybe<T>> pureRemove(final UInt32 index) {
+        final int i = index.intValue();
+        if (i < 0 || i >= this.size) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        return new Pair<>(this.without(i), Maybe.just(this.elementAt(i)));
+    }
+
+    @Override
+    public Pair<PersistentVector<T>, Maybe<T>> pureRemove(final Object o) {
+        final int i = this.intIndexOf(o);
+        if (i < 0) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        return new Pair<>(this.without(i), Maybe.just(this.elementAt(i)));
+    }
+
+    @Override
+    public PersistentVector<T> removeAll(final Collection<?> c) {
+        return this.replaceWith(this.pureRemoveAll(c));
+    }
+
+    @Override
+    public PersistentVector<T> pureRemoveAll(final Collection<?> c) {
+        return this.pureRemoveIf(BulkRemoval.membership(c));
+    }
+
+    @Override
+    public PersistentVector<T> removeIf(final Predicate<? super T> p) {
+        return this.replaceWith(this.pureRemoveIf(p));
+    }
+
+    @Override
+    public PersistentVector<T> clear() {
+        return this.replaceWith(new PersistentVector<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public PersistentVector<T> pureRemoveIf(final Predicate<? super T> p) {
+        final Object[] values = this.toArray();
+        final long[] marks = BulkRemoval.mark(0, values.length, i -> p.test((T) values[i]));
+        if (marks == null) {
+            return this.copy();
+        }
+        int runs = 0;
+        for (int start = BulkRemoval.nextClear(marks, 0, this.size); start < this.size;
+                start = BulkRemoval.nextClear(marks, BulkRemoval.nextSet(marks, start, this.size), this.size)) {
+            runs++;
+        }
+        // Splicing together slices of this tree shares every leaf that no removed element was in, but once there is about one run of
+        // survivors per leaf there is nothing left to share and rebuilding the tree from the survivors is cheaper
+        if (runs <= this.size >>> PersistentVector.BITS) {
+            PersistentVector<T> ret = new PersistentVector<>();
+            for (int start = BulkRemoval.nextClear(marks, 0, this.size); start < this.size;) {
+                final int end = BulkRemoval.nextSet(marks, start, this.size);
+                ret = PersistentVector.concat(ret, this.range(start, end));
+                start = BulkRemoval.nextClear(marks, end, this.size);
+            }
+            return ret;
+        }
+        final int newSize = BulkRemoval.compact(values, 0, values.length, marks);
+        final Builder<T> builder = new Builder<>();
+        for (int i = 0; i < newSize; i++) {
+            builder.add((T) values[i]);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public PersistentVector<T> pureClear() {
+        return new PersistentVector<>();
+    }
+
+    @Override
+    public PersistentVector<T> retainAll(final Collection<?> c) {
+        return this.removeIf(BulkRemoval.membership(c).negate());
+    }
+
+    @Override
+    public PersistentVector<T> retainIf(final Predicate<? super T> p) {
+        return this.removeIf(p.negate());
+    }
+
+    @Override
+    public PersistentVector<T> pureRetainIf(final Predicate<? super T> p) {
+        return this.pureRemoveIf(p.negate());
+    }
+
+    private static int copyTo(final Node node, final int shift, final Object[] dest, final int offset) {
+        if (shift == 0) {
+            System.arraycopy(node.array, 0, dest, offset, node.array.length);
+            return offset + node.array.length;
+        }
+        int ret = offset;
+        for (final Object child : node.array) {
+            ret = PersistentVector.copyTo((Node) child, shift - PersistentVector.BITS, dest, ret);
+        }
+        return ret;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.listIterator(UInt32.ZERO);
+    }
+
+    /**
+     * The returned spliterator covers the elements of this vector at the time of the call, regardless of later changes to this vector.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(this.copy().iterator(), this.size,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public ListIterator<T> listIterator(final UInt32 startIndex) {
+        final int start = startIndex.intValue();
+        return new ListIterator<>() {
+            private int cursor = start < 0 || start > PersistentVector.this.size ? PersistentVector.this.size : start;
+            private int lastReturned = -1;
+            @Nullable
+            private Object[] leaf;
+            private int leafStart;
+
+            @SuppressWarnings("unchecked")
+            private T elementAt(final int index) {
+                Object[] current = this.leaf;
+                if (current == null || index < this.leafStart || index >= this.leafStart + current.length) {
+                    final Pair<Node, Integer> located = PersistentVector.this.leafFor(index);
+                    current = located.fst().array;
+                    this.leaf = current;
+                    this.leafStart = located.snd();
+                }
+                return (T) current[index - this.leafStart];
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < PersistentVector.this.size;
+            }
+
+            @Override
+            public @NonNull T next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = this.cursor++;
+                return this.elementAt(this.lastReturned);
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return this.cursor > 0;
+            }
+
+            @Override
+            public @NonNull T previous() {
+                if (!this.hasPrevious()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = --this.cursor;
+                return this.elementAt(this.lastReturned);
+            }
+
+            @Override
+            public int nextIndex() {
+                return this.cursor;
+            }
+
+            @Override
+            public int previousIndex() {
+                return this.cursor - 1;
+            }
+
+            @Override
+            public void remove() {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                PersistentVector.this.remove(UInt32.asUnsigned(this.lastReturned));
+                this.cursor = this.lastReturned;
+                this.lastReturned = -1;
+                this.leaf = null;
+            }
+
+            @Override
+            public void set(@NonNull final T e) {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                PersistentVector.this.set(UInt32.asUnsigned(this.lastReturned), e);
+                this.leaf = null;
+            }
+
+            @Override
+            public void add(@NonNull final T e) {
+                PersistentVector.this.insert(UInt32.asUnsigned(this.cursor++), e);
+                this.lastReturned = -1;
+                this.leaf = null;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PersistentVector)) {
+            return false;
+        }
+        final PersistentVector<?> other = (PersistentVector<?>) o;
+        if (this.size != other.size) {
+            return false;
+        }
+        if (this.root == other.root) {
+            return true;
+        }
+        final Iterator<T> iter = this.iterator();
+        final Iterator<?> otherIter = other.iterator();
+        while (iter.hasNext()) {
+            if (!iter.next().equals(otherIter.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int ret = 1;
+        final Iterator<T> iter = this.iterator();
+        while (iter.hasNext()) {
+            ret = 31 * ret + iter.next().hashCode();
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner ret = new StringJoiner(", ", "[", "]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        final Iterator<T> iter = this.iterator();
+        while (iter.hasNext()) {
+            ret.add(iter.next().toString());
+        }
+        return ret.toString();
+    }
+
+    /**
+     * A transient form of {@link PersistentVector} for batch construction. Elements are collected into full leaves, which are linked into
+     * a tree whose nodes this builder modifies in place until they are handed out by {@link #build()}.
+     * @param <T> the type of the elements of the vector to build
+     */
+    public static final class Builder<T> {
+        private Object edit = new Object();
+        private final PersistentVector<T> tree = new PersistentVector<>();
+        private Object[] tail = new Object[PersistentVector.WIDTH];
+        private int tailLength;
+        private int size;
+
+        /**
+         * Create a builder for a vector that is initially empty.
+         */
+        public Builder() {
+            // Nothing to do
+        }
+
+        /**
+         * @return the number of elements that have been added to this builder
+         */
+        public UInt32 size() {
+            return UInt32.asUnsigned(this.size);
+        }
+
+        /**
+         * @param value the value to add to the end of the vector
+         * @return this
+         * @throws IllegalArgumentException if value is null
+         */
+        public Builder<T> add(final T value) {
+            PersistentVector.checked(value);
+            if (this.tailLength == PersistentVector.WIDTH) {
+                this.tree.pushLeaf(this.edit, new Node(this.edit, this.tail, null));
+                this.tail = new Object[PersistentVector.WIDTH];
+                this.tailLength = 0;
+            }
+            this.tail[this.tailLength++] = value;
+            this.size++;
+            return this;
+        }
+
+        /**
+         * @param c the values to add to the end of the vector, in iteration order
+         * @return this
+         * @throws IllegalArgumentException if c contains null
+         */
+        public Builder<T> addAll(final Collection<? extends T> c) {
+            for (final T value : c) {
+                this.add(value);
+            }
+            return this;
+        }
+
+        /**
+         * Create a vector of the elements added so far. This builder remains usable, but no longer modifies any node of the returned
+         * vector.
+         * @return a vector containing the elements that have been added to this builder in order
+         */
+        public PersistentVector<T> build() {
+            final PersistentVector<T> ret = this.tree.copy();
+            if (this.tailLength != 0) {
+                ret.pushLeaf(null, new Node(null, Arrays.copyOf(this.tail, this.tailLength), null));
+            }
+            this.edit = new Object();
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import util.function.ExConsumer;
+
+/**
+ * An iterator over elements that are produced ahead of time on another thread and handed over through a bounded ring buffer. The producer
+ * blocks while the buffer is full and the consumer blocks while it is empty. The consumer takes everything in the buffer at once, so the
+ * lock is acquired about once per buffer rather than once per element. Instances are created by
+ * {@link Iterators#prefetching(Iterator, int)} and {@link Iterators#fromProducer(ExConsumer, int)}.
+ * <p>
+ * If the producer throws, the exception is thrown from {@link #hasNext()} after every element produced before it has been consumed.
+ * Unchecked exceptions are rethrown as is and checked exceptions are wrapped in {@link CompletionException}. {@link #close()} cancels the
+ * producer, which should be done whenever the consumer stops before the end of the iteration.
+ * @param <T> the type of the elements of this iterator
+ */
+public final class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+    private final Condition notFull = this.lock.newCondition();
+    private final Object[] ring;
+    private int head = 0;
+    private int count = 0;
+    private boolean done = false; // Set once the producer has returned or thrown
+    private volatile boolean closed = false;
+    private Throwable failure = null;
+    private final Thread worker;
+    // Elements already taken from the ring, only accessed by the consumer
+    private final Object[] local;
+    private int localPos = 0;
+    private int localSize = 0;
+
+    PrefetchingIterator(final ExConsumer<? super Consumer<? super T>, ? extends Exception> producer, final int bufferSize,
+            final ThreadFactory threadFactory) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Expected positive buffer size, found " + bufferSize); //$NON-NLS-1$
+        }
+        this.ring = new Object[bufferSize];
+        this.local = new Object[bufferSize];
+        this.worker = threadFactory.newThread(() -> this.run(producer));
+        if (this.worker == null) {
+            throw new IllegalArgumentException("Expected ThreadFactory to create a thread, found null"); //$NON-NLS-1$
+        }
+        this.worker.start();
+    }
+
+    private void run(final ExConsumer<? super Consumer<? super T>, ? extends Exception> producer) {
+        final Consumer<T> sink = this::put;
+        Throwable thrown = null;
+        try {
+            producer.accept(sink);
+        } catch (final Throwable t) {
+            thrown = t;
+        }
+        this.lock.lock();
+        try {
+            this.done = true;
+            if (!this.closed) {
+                this.failure = thrown;
+            }
+            this.notEmpty.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void put(final T value) {
+        this.lock.lock();
+        try {
+            while (this.count == this.ring.length && !this.closed) {
+                this.notFull.awaitUninterruptibly();
+            }
+            if (this.closed) {
+                throw new CancellationException("Iterator closed"); //$NON-NLS-1$
+            }
+            this.ring[(this.head + this.count) % this.ring.length] = value;
+            if (this.count++ == 0) {
+                this.notEmpty.signal();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for the producer if nothing has been buffered yet.
+     * @throws CancellationException if the current thread is interrupted while waiting. This iterator is closed first
+     * @throws CompletionException if the producer threw a checked exception
+     */
+    @Override
+    public boolean hasNext() {
+        if (this.closed) {
+            return false;
+        }
+        if (this.localPos < this.localSize) {
+            return true;
+        }
+        this.lock.lock();
+        try {
+            while (this.count == 0 && !this.done && !this.closed) {
+                try {
+                    this.notEmpty.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.close();
+                    throw new CancellationException("Interrupted while waiting for producer"); //$NON-NLS-1$
+                }
+            }
+            if (this.count > 0) {
+                this.drain();
+                return true;
+            }
+            if (this.failure instanceof RuntimeException) {
+                throw (RuntimeException) this.failure;
+            }
+            if (this.failure instanceof Error) {
+                throw (Error) this.failure;
+            }
+            if (this.failure != null) {
+                throw new CompletionException(this.failure);
+            }
+            return false;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // Move everything in the ring to local. Must hold the lock
+    private void drain() {
+        final int firstRun = Math.min(this.count, this.ring.length - this.head);
+        System.arraycopy(this.ring, this.head, this.local, 0, firstRun);
+        System.arraycopy(this.ring, 0, this.local, firstRun, this.count - firstRun);
+        for (int i = 0; i < this.count; i++) {
+            this.ring[(this.head + i) % this.ring.length] = null;
+        }
+        this.localPos = 0;
+        this.localSize = this.count;
+        this.head = 0;
+        this.count = 0;
+        this.notFull.signal();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final T ret = (T) this.local[this.localPos];
+        this.local[this.localPos++] = null;
+        return ret;
+    }
+
+    /**
+     * Stop the producer and discard everything that it has buffered. The producer is interrupted, and its next attempt to hand over an
+     * element throws {@link CancellationException}. After this method returns, {@link #hasNext()} returns false. May be called from any
+     * thread. Has no effect if this iterator is already closed.
+     */
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.failure = null;
+            for (int i = 0; i < this.count; i++) {
+                this.ring[(this.head + i) % this.ring.length] = null;
+            }
+            this.count = 0;
+            this.notFull.signalAll();
+            this.notEmpty.signalAll();
+            if (!this.done) {
+                this.worker.interrupt();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,938 @@
+package util;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+import util.function.ByteSupplier;
+import util.function.CharSupplier;
+import util.function.FloatSupplier;
+import util.function.ShortSupplier;
+
+/**
+ * Collection of utility functions for {@link PrimitiveIterator}s, in the style of {@link Iterators}. None of the iterators returned by
+ * these functions box their elements unless they are accessed through {@link java.util.Iterator#next()}.
+ */
+public final class PrimitiveIterators {
+    private static final PrimitiveIterator.OfInt EMPTY_INT = new PrimitiveIterator.OfInt() {
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public int nextInt() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private static final PrimitiveIterator.OfLong EMPTY_LONG = new PrimitiveIterator.OfLong() {
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public long nextLong() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private static final PrimitiveIterator.OfDouble EMPTY_DOUBLE = new PrimitiveIterator.OfDouble() {
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public double nextDouble() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private PrimitiveIterators() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Can't instantiate PrimitiveIterators"); //$NON-NLS-1$
+    }
+
+    /**
+     * @return the empty iterator of ints
+     */
+    public static PrimitiveIterator.OfInt emptyInt() {
+        return PrimitiveIterators.EMPTY_INT;
+    }
+
+    /**
+     * @param iters the iterators to concatenate
+     * @return an iterator that iterates through the arguments in order
+     */
+    public static PrimitiveIterator.OfInt concat(final PrimitiveIterator.OfInt... iters) {
+        return new PrimitiveIterator.OfInt() {
+            private int current = 0;
+
+            @Override
+            public boolean hasNext() {
+                for (; this.current < iters.length; this.current++) {
+                    if (iters[this.current].hasNext()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return iters[this.current].nextInt();
+            }
+
+            @Override
+            public void forEachRemaining(final IntConsumer action) {
+                for (; this.current < iters.length; this.current++) {
+                    iters[this.current].forEachRemaining(action);
+                }
+            }
+        };
+    }
+
+    /**
+     * Lazily apply the given function to the given iterator.
+     * @param f the function to apply
+     * @param i the iterator to map
+     * @return an iterator which produces the application of the function to the elements of the iterator in the same order
+     */
+    public static PrimitiveIterator.OfInt map(final IntUnaryOperator f, final PrimitiveIterator.OfInt i) {
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return f.applyAsInt(i.nextInt());
+            }
+        };
+    }
+
+    /**
+     * Lazily filter the given iterator.
+     * @param p the predicate that elements must satisfy to be kept
+     * @param i the iterator to filter
+     * @return an iterator which produces the elements of the iterator that satisfy the predicate in the same order
+     */
+    public static PrimitiveIterator.OfInt filter(final IntPredicate p, final PrimitiveIterator.OfInt i) {
+        return new PrimitiveIterator.OfInt() {
+            private boolean ready = false;
+            private int nextValue;
+
+            @Override
+            public boolean hasNext() {
+                while (!this.ready && i.hasNext()) {
+                    final int value = i.nextInt();
+                    if (p.test(value)) {
+                        this.nextValue = value;
+                        this.ready = true;
+                    }
+                }
+                return this.ready;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.ready = false;
+                return this.nextValue;
+            }
+        };
+    }
+
+    /**
+     * @param i the iterator to truncate
+     * @param maxSize the maximum number of elements to produce
+     * @return an iterator which produces at most the first maxSize elements of the iterator
+     * @throws IllegalArgumentException if maxSize is negative
+     */
+    public static PrimitiveIterator.OfInt limit(final PrimitiveIterator.OfInt i, final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative size, found " + maxSize); //$NON-NLS-1$
+        }
+        return new PrimitiveIterator.OfInt() {
+            private long remaining = maxSize;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining > 0 && i.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.remaining <= 0) {
+                    throw new NoSuchElementException();
+                }
+                final int ret = i.nextInt();
+                this.remaining--;
+                return ret;
+            }
+        };
+    }
+
+    /**
+     * Lazily combine the elements of two iterators pairwise.
+     * @param f the function to combine elements with
+     * @param fst the iterator of first arguments
+     * @param snd the iterator of second arguments
+     * @return an iterator which produces the application of the function to corresponding elements of the iterators, until either
+     * iterator is exhausted
+     */
+    public static PrimitiveIterator.OfInt zip(final IntBinaryOperator f, final PrimitiveIterator.OfInt fst,
+            final PrimitiveIterator.OfInt snd) {
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return fst.hasNext() && snd.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return f.applyAsInt(fst.nextInt(), snd.nextInt());
+            }
+        };
+    }
+
+    /**
+     * @return the empty iterator of longs
+     */
+    public static PrimitiveIterator.OfLong emptyLong() {
+        return PrimitiveIterators.EMPTY_LONG;
+    }
+
+    /**
+     * @param iters the iterators to concatenate
+     * @return an iterator that iterates through the arguments in order
+     */
+    public static PrimitiveIterator.OfLong concat(final PrimitiveIterator.OfLong... iters) {
+        return new PrimitiveIterator.OfLong() {
+            private int current = 0;
+
+            @Override
+            public boolean hasNext() {
+                for (; this.current < iters.length; this.current++) {
+                    if (iters[this.current].hasNext()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return iters[this.current].nextLong();
+            }
+
+            @Override
+            public void forEachRemaining(final LongConsumer action) {
+                for (; this.current < iters.length; this.current++) {
+                    iters[this.current].forEachRemaining(action);
+                }
+            }
+        };
+    }
+
+    /**
+     * Lazily apply the given function to the given iterator.
+     * @param f the function to apply
+     * @param i the iterator to map
+     * @return an iterator which produces the application of the function to the elements of the iterator in the same order
+     */
+    public static PrimitiveIterator.OfLong map(final LongUnaryOperator f, final PrimitiveIterator.OfLong i) {
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return f.applyAsLong(i.nextLong());
+            }
+        };
+    }
+
+    /**
+     * Lazily filter the given iterator.
+     * @param p the predicate that elements must satisfy to be kept
+     * @param i the iterator to filter
+     * @return an iterator which produces the elements of the iterator that satisfy the predicate in the same order
+     */
+    public static PrimitiveIterator.OfLong filter(final LongPredicate p, final PrimitiveIterator.OfLong i) {
+        return new PrimitiveIterator.OfLong() {
+            private boolean ready = false;
+            private long nextValue;
+
+            @Override
+            public boolean hasNext() {
+                while (!this.ready && i.hasNext()) {
+                    final long value = i.nextLong();
+                    if (p.test(value)) {
+                        this.nextValue = value;
+                        this.ready = true;
+                    }
+                }
+                return this.ready;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.ready = false;
+                return this.nextValue;
+            }
+        };
+    }
+
+    /**
+     * @param i the iterator to truncate
+     * @param maxSize the maximum number of elements to produce
+     * @return an iterator which produces at most the first maxSize elements of the iterator
+     * @throws IllegalArgumentException if maxSize is negative
+     */
+    public static PrimitiveIterator.OfLong limit(final PrimitiveIterator.OfLong i, final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative size, found " + maxSize); //$NON-NLS-1$
+        }
+        return new PrimitiveIterator.OfLong() {
+            private long remaining = maxSize;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining > 0 && i.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                if (this.remaining <= 0) {
+                    throw new NoSuchElementException();
+                }
+                final long ret = i.nextLong();
+                this.remaining--;
+                return ret;
+            }
+        };
+    }
+
+    /**
+     * Lazily combine the elements of two iterators pairwise.
+     * @param f the function to combine elements with
+     * @param fst the iterator of first arguments
+     * @param snd the iterator of second arguments
+     * @return an iterator which produces the application of the function to corresponding elements of the iterators, until either
+     * iterator is exhausted
+     */
+    public static PrimitiveIterator.OfLong zip(final LongBinaryOperator f, final PrimitiveIterator.OfLong fst,
+            final PrimitiveIterator.OfLong snd) {
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return fst.hasNext() && snd.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return f.applyAsLong(fst.nextLong(), snd.nextLong());
+            }
+        };
+    }
+
+    /**
+     * @return the empty iterator of doubles
+     */
+    public static PrimitiveIterator.OfDouble emptyDouble() {
+        return PrimitiveIterators.EMPTY_DOUBLE;
+    }
+
+    /**
+     * @param iters the iterators to concatenate
+     * @return an iterator that iterates through the arguments in order
+     */
+    public static PrimitiveIterator.OfDouble concat(final PrimitiveIterator.OfDouble... iters) {
+        return new PrimitiveIterator.OfDouble() {
+            private int current = 0;
+
+            @Override
+            public boolean hasNext() {
+                for (; this.current < iters.length; this.current++) {
+                    if (iters[this.current].hasNext()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return iters[this.current].nextDouble();
+            }
+
+            @Override
+            public void forEachRemaining(final DoubleConsumer action) {
+                for (; this.current < iters.length; this.current++) {
+                    iters[this.current].forEachRemaining(action);
+                }
+            }
+        };
+    }
+
+    /**
+     * Lazily apply the given function to the given iterator.
+     * @param f the function to apply
+     * @param i the iterator to map
+     * @return an iterator which produces the application of the function to the elements of the iterator in the same order
+     */
+    public static PrimitiveIterator.OfDouble map(final DoubleUnaryOperator f, final PrimitiveIterator.OfDouble i) {
+        return new PrimitiveIterator.OfDouble() {
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return f.applyAsDouble(i.nextDouble());
+            }
+        };
+    }
+
+    /**
+     * Lazily filter the given iterator.
+     * @param p the predicate that elements must satisfy to be kept
+     * @param i the iterator to filter
+     * @return an iterator which produces the elements of the iterator that satisfy the predicate in the same order
+     */
+    public static PrimitiveIterator.OfDouble filter(final DoublePredicate p, final PrimitiveIterator.OfDouble i) {
+        return new PrimitiveIterator.OfDouble() {
+            private boolean ready = false;
+            private double nextValue;
+
+            @Override
+            public boolean hasNext() {
+                while (!this.ready && i.hasNext()) {
+                    final double value = i.nextDouble();
+                    if (p.test(value)) {
+                        this.nextValue = value;
+                        this.ready = true;
+                    }
+                }
+                return this.ready;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.ready = false;
+                return this.nextValue;
+            }
+        };
+    }
+
+    /**
+     * @param i the iterator to truncate
+     * @param maxSize the maximum number of elements to produce
+     * @return an iterator which produces at most the first maxSize elements of the iterator
+     * @throws IllegalArgumentException if maxSize is negative
+     */
+    public static PrimitiveIterator.OfDouble limit(final PrimitiveIterator.OfDouble i, final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative size, found " + maxSize); //$NON-NLS-1$
+        }
+        return new PrimitiveIterator.OfDouble() {
+            private long remaining = maxSize;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining > 0 && i.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                if (this.remaining <= 0) {
+                    throw new NoSuchElementException();
+                }
+                final double ret = i.nextDouble();
+                this.remaining--;
+                return ret;
+            }
+        };
+    }
+
+    /**
+     * Lazily combine the elements of two iterators pairwise.
+     * @param f the function to combine elements with
+     * @param fst the iterator of first arguments
+     * @param snd the iterator of second arguments
+     * @return an iterator which produces the application of the function to corresponding elements of the iterators, until either
+     * iterator is exhausted
+     */
+    public static PrimitiveIterator.OfDouble zip(final DoubleBinaryOperator f, final PrimitiveIterator.OfDouble fst,
+            final PrimitiveIterator.OfDouble snd) {
+        return new PrimitiveIterator.OfDouble() {
+            @Override
+            public boolean hasNext() {
+                return fst.hasNext() && snd.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return f.applyAsDouble(fst.nextDouble(), snd.nextDouble());
+            }
+        };
+    }
+
+    /**
+     * @param values the values to iterate over
+     * @return an iterator over the values, which reads through to the array
+     */
+    public static PrimitiveIterator.OfInt of(final int... values) {
+        return PrimitiveIterators.of(values, 0, values.length);
+    }
+
+    /**
+     * @param values the array to iterate over
+     * @param from the first index to iterate over, inclusive
+     * @param to the last index to iterate over, exclusive
+     * @return an iterator over the given range of the array, which reads through to the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static PrimitiveIterator.OfInt of(final int[] values, final int from, final int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return new PrimitiveIterator.OfInt() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values[this.index++];
+            }
+
+            @Override
+            public void forEachRemaining(final IntConsumer action) {
+                while (this.index < to) {
+                    action.accept(values[this.index++]);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param values the values to iterate over
+     * @return an iterator over the values, which reads through to the array
+     */
+    public static PrimitiveIterator.OfLong of(final long... values) {
+        return PrimitiveIterators.of(values, 0, values.length);
+    }
+
+    /**
+     * @param values the array to iterate over
+     * @param from the first index to iterate over, inclusive
+     * @param to the last index to iterate over, exclusive
+     * @return an iterator over the given range of the array, which reads through to the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static PrimitiveIterator.OfLong of(final long[] values, final int from, final int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return new PrimitiveIterator.OfLong() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < to;
+            }
+
+            @Override
+            public long nextLong() {
+                if (this.index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values[this.index++];
+            }
+
+            @Override
+            public void forEachRemaining(final LongConsumer action) {
+                while (this.index < to) {
+                    action.accept(values[this.index++]);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param values the values to iterate over
+     * @return an iterator over the values, which reads through to the array
+     */
+    public static PrimitiveIterator.OfDouble of(final double... values) {
+        return PrimitiveIterators.of(values, 0, values.length);
+    }
+
+    /**
+     * @param values the array to iterate over
+     * @param from the first index to iterate over, inclusive
+     * @param to the last index to iterate over, exclusive
+     * @return an iterator over the given range of the array, which reads through to the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static PrimitiveIterator.OfDouble of(final double[] values, final int from, final int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return new PrimitiveIterator.OfDouble() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < to;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (this.index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values[this.index++];
+            }
+
+            @Override
+            public void forEachRemaining(final DoubleConsumer action) {
+                while (this.index < to) {
+                    action.accept(values[this.index++]);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param values the values to iterate over
+     * @return an iterator over the values, which reads through to the array
+     */
+    public static PrimitiveIterator.OfInt of(final byte... values) {
+        return PrimitiveIterators.of(values, 0, values.length);
+    }
+
+    /**
+     * @param values the array to iterate over
+     * @param from the first index to iterate over, inclusive
+     * @param to the last index to iterate over, exclusive
+     * @return an iterator over the given range of the array, which reads through to the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static PrimitiveIterator.OfInt of(final byte[] values, final int from, final int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return new PrimitiveIterator.OfInt() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values[this.index++];
+            }
+
+            @Override
+            public void forEachRemaining(final IntConsumer action) {
+                while (this.index < to) {
+                    action.accept(values[this.index++]);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param values the values to iterate over
+     * @return an iterator over the values, which reads through to the array
+     */
+    public static PrimitiveIterator.OfInt of(final short... values) {
+        return PrimitiveIterators.of(values, 0, values.length);
+    }
+
+    /**
+     * @param values the array to iterate over
+     * @param from the first index to iterate over, inclusive
+     * @param to the last index to iterate over, exclusive
+     * @return an iterator over the given range of the array, which reads through to the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static PrimitiveIterator.OfInt of(final short[] values, final int from, final int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return new PrimitiveIterator.OfInt() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values[this.index++];
+            }
+
+            @Override
+            public void forEachRemaining(final IntConsumer action) {
+                while (this.index < to) {
+                    action.accept(values[this.index++]);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param values the values to iterate over
+     * @return an iterator over the values, which reads through to the array
+     */
+    public static PrimitiveIterator.OfInt of(final char... values) {
+        return PrimitiveIterators.of(values, 0, values.length);
+    }
+
+    /**
+     * @param values the array to iterate over
+     * @param from the first index to iterate over, inclusive
+     * @param to the last index to iterate over, exclusive
+     * @return an iterator over the given range of the array, which reads through to the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static PrimitiveIterator.OfInt of(final char[] values, final int from, final int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return new PrimitiveIterator.OfInt() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values[this.index++];
+            }
+
+            @Override
+            public void forEachRemaining(final IntConsumer action) {
+                while (this.index < to) {
+                    action.accept(values[this.index++]);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param values the values to iterate over
+     * @return an iterator over the values, which reads through to the array
+     */
+    public static PrimitiveIterator.OfDouble of(final float... values) {
+        return PrimitiveIterators.of(values, 0, values.length);
+    }
+
+    /**
+     * @param values the array to iterate over
+     * @param from the first index to iterate over, inclusive
+     * @param to the last index to iterate over, exclusive
+     * @return an iterator over the given range of the array, which reads through to the array
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static PrimitiveIterator.OfDouble of(final float[] values, final int from, final int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return new PrimitiveIterator.OfDouble() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < to;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (this.index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return values[this.index++];
+            }
+
+            @Override
+            public void forEachRemaining(final DoubleConsumer action) {
+                while (this.index < to) {
+                    action.accept(values[this.index++]);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param s the supplier of elements
+     * @return an infinite iterator whose elements are produced by the supplier on demand
+     */
+    public static PrimitiveIterator.OfInt ints(final IntSupplier s) {
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                return s.getAsInt();
+            }
+        };
+    }
+
+    /**
+     * @param s the supplier of elements
+     * @return an infinite iterator whose elements are produced by the supplier on demand
+     */
+    public static PrimitiveIterator.OfLong longs(final LongSupplier s) {
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public long nextLong() {
+                return s.getAsLong();
+            }
+        };
+    }
+
+    /**
+     * @param s the supplier of elements
+     * @return an infinite iterator whose elements are produced by the supplier on demand
+     */
+    public static PrimitiveIterator.OfDouble doubles(final DoubleSupplier s) {
+        return new PrimitiveIterator.OfDouble() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public double nextDouble() {
+                return s.getAsDouble();
+            }
+        };
+    }
+
+    /**
+     * @param s the supplier of elements
+     * @return an infinite iterator whose elements are produced by the supplier on demand
+     */
+    public static PrimitiveIterator.OfInt bytes(final ByteSupplier s) {
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                return s.get();
+            }
+        };
+    }
+
+    /**
+     * @param s the supplier of elements
+     * @return an infinite iterator whose elements are produced by the supplier on demand
+     */
+    public static PrimitiveIterator.OfInt shorts(final ShortSupplier s) {
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                return s.get();
+            }
+        };
+    }
+
+    /**
+     * @param s the supplier of elements
+     * @return an infinite iterator whose elements are produced by the supplier on demand
+     */
+    public static PrimitiveIterator.OfInt chars(final CharSupplier s) {
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                return s.get();
+            }
+        };
+    }
+
+    /**
+     * @param s the supplier of elements
+     * @return an infinite iterator whose elements are produced by the supplier on demand
+     */
+    public static PrimitiveIterator.OfDouble floats(final FloatSupplier s) {
+        return new PrimitiveIterator.OfDouble() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public double nextDouble() {
+                return s.get();
+            }
+        };
+    }
+}
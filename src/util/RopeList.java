@@ -0,0 +1,825 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import util.number.UInt32;
+
+/**
+ * A list made of shared sublists, called pieces, that are kept in order in a height balanced binary tree. Appending, prepending or
+ * inserting a list, splitting, and concatenating two ropes each take O(log k) time for k pieces and never copy the elements of a piece:
+ * pieces are divided with {@link List#subList(int, int)}. Indexing takes O(log k) time plus the time to index the piece.
+ * <p>
+ * Like {@link PersistentVector}, an instance of this class is a mutable handle to an immutable tree, so {@link #copy()} and
+ * {@link #split(UInt32)} are cheap, and structural changes to one handle are never seen by another. The pieces themselves are not copied,
+ * though: ropes produced by {@link #copy()}, {@link #split(UInt32)}, the <tt>pure*</tt> methods and the like share element storage with
+ * the rope that produced them, so replacing an element with {@link #setOrNull(int, Object)} or {@link #set(UInt32, Object)} writes
+ * through to the piece that holds it and is seen by every rope that contains that piece. A piece must not change size while any rope
+ * contains it. Unlike {@link ConcatenatedList}, all structural mutations are supported.
+ * @param <E> the type of the elements of this list
+ */
+public final class RopeList<E> implements AnnotatedNonNullList<RopeList<E>, E> {
+    @Nullable
+    private Node<E> root;
+
+    /**
+     * A node of the tree, which holds one piece between the pieces of its left subtree and the pieces of its right subtree.
+     */
+    private static final class Node<E> {
+        @Nullable
+        final Node<E> left;
+        final List<E> piece; // Never empty
+        final int pieceSize;
+        @Nullable
+        final Node<E> right;
+        final int size; // The number of elements in this subtree
+        final int height;
+
+        Node(@Nullable final Node<E> left, final List<E> piece, final int pieceSize, @Nullable final Node<E> right) {
+            this.left = left;
+            this.piece = piece;
+            this.pieceSize = pieceSize;
+            this.right = right;
+            this.size = RopeList.size(left) + pieceSize + RopeList.size(right);
+            this.height = Math.max(RopeList.height(left), RopeList.height(right)) + 1;
+        }
+    }
+
+    /**
+     * The result of splitting a tree. Either half may be empty.
+     */
+    private static final class Halves<E> {
+        @Nullable
+        final Node<E> left;
+        @Nullable
+        final Node<E> right;
+
+        Halves(@Nullable final Node<E> left, @Nullable final Node<E> right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Create an empty rope.
+     */
+    public RopeList() {
+        this.root = null;
+    }
+
+    /**
+     * Create a rope of the given pieces in O(k) time. Empty pieces are skipped.
+     * @param pieces the lists to share, in order
+     */
+    @SafeVarargs // Only reads the array
+    public RopeList(final List<E>... pieces) {
+        final List<List<E>> nonEmpty = new ArrayList<>(pieces.length);
+        for (final List<E> piece : pieces) {
+            if (piece == null) {
+                throw new IllegalArgumentException("Expected List, found null"); //$NON-NLS-1$
+            }
+            if (!piece.isEmpty()) {
+                nonEmpty.add(piece);
+            }
+        }
+        this.root = RopeList.build(nonEmpty, 0, nonEmpty.size());
+    }
+
+    private RopeList(@Nullable final Node<E> root) {
+        this.root = root;
+    }
+
+    private static <T> T checked(final T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected element, found null"); //$NON-NLS-1$
+        }
+        return value;
+    }
+
+    private static <E> List<E> checkedPiece(final List<E> piece) {
+        if (piece == null) {
+            throw new IllegalArgumentException("Expected List, found null"); //$NON-NLS-1$
+        }
+        return piece;
+    }
+
+    private int checkedInsertionIndex(final UInt32 index) {
+        final int i = index.intValue();
+        final int size = RopeList.size(this.root);
+        if (i < 0 || i > size) {
+            throw new IndexOutOfBoundsException("Index: " + index.longValue() + ", Size: " + size); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return i;
+    }
+
+    private RopeList<E> replaceWith(final RopeList<E> other) {
+        this.root = other.root;
+        return this;
+    }
+
+    private static int size(@Nullable final Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(@Nullable final Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    // A perfectly balanced tree of the given range of pieces
+    private static <E> @Nullable Node<E> build(final List<List<E>> pieces, final int from, final int to) {
+        if (from >= to) {
+            return null;
+        }
+        final int mid = from + to >>> 1;
+        final List<E> piece = pieces.get(mid);
+        return new Node<>(RopeList.build(pieces, from, mid), piece, piece.size(), RopeList.build(pieces, mid + 1, to));
+    }
+
+    private static <E> Node<E> rotateLeft(final Node<E> node) {
+        final Node<E> right = node.right;
+        return new Node<>(new Node<>(node.left, node.piece, node.pieceSize, right.left), right.piece, right.pieceSize, right.right);
+    }
+
+    private static <E> Node<E> rotateRight(final Node<E> node) {
+        final Node<E> left = node.left;
+        return new Node<>(left.left, left.piece, left.pieceSize, new Node<>(left.right, node.piece, node.pieceSize, node.right));
+    }
+
+    /**
+     * Join two balanced trees with a piece between them in O(|height(left) - height(right)|) time.
+     */
+    private static <E> Node<E> join(@Nullable final Node<E> left, final List<E> piece, final int pieceSize,
+            @Nullable final Node<E> right) {
+        if (RopeList.height(left) > RopeList.height(right) + 1) {
+            return RopeList.joinRight(left, piece, pieceSize, right);
+        }
+        if (RopeList.height(right) > RopeList.height(left) + 1) {
+            return RopeList.joinLeft(left, piece, pieceSize, right);
+        }
+        return new Node<>(left, piece, pieceSize, right);
+    }
+
+    // Join when left is more than one taller than right
+    private static <E> Node<E> joinRight(final Node<E> left, final List<E> piece, final int pieceSize, @Nullable final Node<E> right) {
+        if (RopeList.height(left.right) <= RopeList.height(right) + 1) {
+            final Node<E> joined = new Node<>(left.right, piece, pieceSize, right);
+            if (joined.height <= RopeList.height(left.left) + 1) {
+                return new Node<>(left.left, left.piece, left.pieceSize, joined);
+            }
+            return RopeList.rotateLeft(new Node<>(left.left, left.piece, left.pieceSize, RopeList.rotateRight(joined)));
+        }
+        final Node<E> joined = RopeList.joinRight(left.right, piece, pieceSize, right);
+        final Node<E> ret = new Node<>(left.left, left.piece, left.pieceSize, joined);
+        return joined.height <= RopeList.height(left.left) + 1 ? ret : RopeList.rotateLeft(ret);
+    }
+
+    // Join when right is more than one taller than left
+    private static <E> Node<E> joinLeft(@Nullable final Node<E> left, final List<E> piece, final int pieceSize, final Node<E> right) {
+        if (RopeList.height(right.left) <= RopeList.height(left) + 1) {
+            final Node<E> joined = new Node<>(left, piece, pieceSize, right.left);
+            if (joined.height <= RopeList.height(right.right) + 1) {
+                return new Node<>(joined, right.piece, right.pieceSize, right.right);
+            }
+            return RopeList.rotateRight(new Node<>(RopeList.rotateLeft(joined), right.piece, right.pieceSize, right.right));
+        }
+        final Node<E> joined = RopeList.joinLeft(left, piece, pieceSize, right.left);
+        final Node<E> ret = new Node<>(joined, right.piece, right.pieceSize, right.right);
+        return joined.height <= RopeList.height(right.right) + 1 ? ret : RopeList.rotateRight(ret);
+    }
+
+    /**
+     * Split a tree into the first index elements and the rest, dividing a piece if necessary.
+     */
+    private static <E> Halves<E> split(@Nullable final Node<E> node, final int index) {
+        if (node == null) {
+            return new Halves<>(null, null);
+        }
+        final int leftSize = RopeList.size(node.left);
+        if (index < leftSize) {
+            final Halves<E> halves = RopeList.split(node.left, index);
+            return new Halves<>(halves.left, RopeList.join(halves.right, node.piece, node.pieceSize, node.right));
+        }
+        if (index == leftSize) {
+            return new Halves<>(node.left, RopeList.join(null, node.piece, node.pieceSize, node.right));
+        }
+        final int offset = index - leftSize;
+        if (offset < node.pieceSize) {
+            return new Halves<>(RopeList.join(node.left, node.piece.subList(0, offset), offset, null),
+                    RopeList.join(null, node.piece.subList(offset, node.pieceSize), node.pieceSize - offset, node.right));
+        }
+        if (offset == node.pieceSize) {
+            return new Halves<>(RopeList.join(node.left, node.piece, node.pieceSize, null), node.right);
+        }
+        final Halves<E> halves = RopeList.split(node.right, offset - node.pieceSize);
+        return new Halves<>(RopeList.join(node.left, node.piece, node.pieceSize, halves.left), halves.right);
+    }
+
+    private static <E> @Nullable Node<E> withoutLast(final Node<E> node) {
+        if (node.right == null) {
+            return node.left;
+        }
+        return RopeList.join(node.left, node.piece, node.pieceSize, RopeList.withoutLast(node.right));
+    }
+
+    private static <E> @Nullable Node<E> concat(@Nullable final Node<E> left, @Nullable final Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        Node<E> last = left;
+        while (last.right != null) {
+            last = last.right;
+        }
+        return RopeList.join(RopeList.withoutLast(left), last.piece, last.pieceSize, right);
+    }
+
+    private static <E> void forEachPiece(@Nullable final Node<E> node, final Consumer<? super List<E>> action) {
+        if (node != null) {
+            RopeList.forEachPiece(node.left, action);
+            action.accept(node.piece);
+            RopeList.forEachPiece(node.right, action);
+        }
+    }
+
+    /**
+     * @return a new rope that shares the tree of this rope
+     */
+    public RopeList<E> copy() {
+        return new RopeList<>(this.root);
+    }
+
+    /**
+     * @return the pieces of this rope in order, as of the time of the call
+     */
+    public List<List<E>> pieces() {
+        final List<List<E>> ret = new ArrayList<>();
+        RopeList.forEachPiece(this.root, ret::add);
+        return ret;
+    }
+
+    /**
+     * @return a {@link ConcatenatedList} of the pieces of this rope, as of the time of the call
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ConcatenatedList<E> toConcatenatedList() {
+        return new ConcatenatedList<>(this.pieces().toArray(new List[0]));
+    }
+
+    /**
+     * Add a piece to the end of this rope in O(log k) time without copying it.
+     * @param piece the list to share. Must not change size while it is part of this rope
+     * @return this
+     */
+    public RopeList<E> append(final List<E> piece) {
+        final int pieceSize = RopeList.checkedPiece(piece).size();
+        if (pieceSize != 0) {
+            this.root = RopeList.join(this.root, piece, pieceSize, null);
+        }
+        return this;
+    }
+
+    /**
+     * Add a piece to the start of this rope in O(log k) time without copying it.
+     * @param piece the list to share. Must not change size while it is part of this rope
+     * @return this
+     */
+    public RopeList<E> prepend(final List<E> piece) {
+        final int pieceSize = RopeList.checkedPiece(piece).size();
+        if (pieceSize != 0) {
+            this.root = RopeList.join(null, piece, pieceSize, this.root);
+        }
+        return this;
+    }
+
+    /**
+     * Insert a piece into this rope in O(log k) time without copying it. If the index is inside another piece, that piece is divided into
+     * two {@link List#subList(int, int) sublists}.
+     * @param index the index of this rope that the first element of the piece will have
+     * @param piece the list to share. Must not change size while it is part of this rope
+     * @return this
+     * @throws IndexOutOfBoundsException if index is greater than the size of this rope
+     */
+    public RopeList<E> insertList(final UInt32 index, final List<E> piece) {
+        final int i = this.checkedInsertionIndex(index);
+        final int pieceSize = RopeList.checkedPiece(piece).size();
+        if (pieceSize != 0) {
+            final Halves<E> halves = RopeList.split(this.root, i);
+            this.root = RopeList.join(halves.left, piece, pieceSize, halves.right);
+        }
+        return this;
+    }
+
+    /**
+     * Add the pieces of another rope to the end of this rope in O(log k) time. The other rope is not modified.
+     * @param other the rope whose pieces to share
+     * @return this
+     */
+    public RopeList<E> append(final RopeList<E> other) {
+        this.root = RopeList.concat(this.root, other.root);
+        return this;
+    }
+
+    /**
+     * Split this rope in O(log k) time. This rope is not modified.
+     * @param index the number of elements of this rope to put in the first rope
+     * @return a pair of new ropes, the first of which contains the elements of this rope before index and the second of which contains the
+     * rest
+     * @throws IndexOutOfBoundsException if index is greater than the size of this rope
+     */
+    public Pair<RopeList<E>, RopeList<E>> split(final UInt32 index) {
+        final Halves<E> halves = RopeList.split(this.root, this.checkedInsertionIndex(index));
+        return new Pair<>(new RopeList<>(halves.left), new RopeList<>(halves.right));
+    }
+
+    @Override
+    public UInt32 size() {
+        return UInt32.asUnsigned(RopeList.size(this.root));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.root == null;
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return this.intIndexOf(object) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        final Map<Object, Integer> counts = new HashMap<>();
+        for (final Object o : c) {
+            counts.merge(o, 1, Integer::sum);
+        }
+        final Iterator<E> iter = this.iterator();
+        while (iter.hasNext() && !counts.isEmpty()) {
+            counts.computeIfPresent(iter.next(), (none, count) -> count == 1 ? null : count - 1);
+        }
+        return counts.isEmpty();
+    }
+
+    @SuppressWarnings("unlikely-arg-type")
+    @Override
+    public int intIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        int offset = 0;
+        for (final List<E> piece : this.pieces()) {
+            final int i = piece.indexOf(o);
+            if (i >= 0) {
+                return offset + i;
+            }
+            offset += piece.size();
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unlikely-arg-type")
+    @Override
+    public int intLastIndexOf(@Nullable final Object o) {
+        if (o == null) {
+            return -1;
+        }
+        final List<List<E>> pieces = this.pieces();
+        int end = RopeList.size(this.root);
+        for (int p = pieces.size() - 1; p >= 0; p--) {
+            final List<E> piece = pieces.get(p);
+            end -= piece.size();
+            final int i = piece.lastIndexOf(o);
+            if (i >= 0) {
+                return end + i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Maybe<UInt32> indexOf(final E value) {
+        final int ret = this.intIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<UInt32> lastIndexOf(final E value) {
+        final int ret = this.intLastIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<E> get(final UInt32 index) {
+        return Maybe.maybe(this.getOrNull(index.intValue()));
+    }
+
+    @Override
+    public @Nullable E getOrNull(final int index) {
+        if (index < 0 || index >= RopeList.size(this.root)) {
+            return null;
+        }
+        Node<E> node = this.root;
+        int i = index;
+        while (true) {
+            final int leftSize = RopeList.size(node.left);
+            if (i < leftSize) {
+                node = node.left;
+            } else if (i - leftSize < node.pieceSize) {
+                return node.piece.get(i - leftSize);
+            } else {
+                i -= leftSize + node.pieceSize;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Writes through to the piece that holds the element at the given index, so the change is also seen by every other rope that shares
+     * that piece.
+     */
+    @Override
+    public @Nullable E setOrNull(final int index, final E value) {
+        if (index < 0 || index >= RopeList.size(this.root)) {
+            return null;
+        }
+        RopeList.checked(value);
+        Node<E> node = this.root;
+        int i = index;
+        while (true) {
+            final int leftSize = RopeList.size(node.left);
+            if (i < leftSize) {
+                node = node.left;
+            } else if (i - leftSize < node.pieceSize) {
+                return node.piece.set(i - leftSize, value);
+            } else {
+                i -= leftSize + node.pieceSize;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public int copyInto(final Object[] dest) {
+        final int[] offset = { 0 };
+        RopeList.forEachPiece(this.root, piece -> {
+            final Object[] elements = piece.toArray();
+            System.arraycopy(elements, 0, dest, offset[0], elements.length);
+            offset[0] += elements.length;
+        });
+        return offset[0];
+    }
+
+    /**
+     * Adds a piece of one element. To add many elements, {@link #append(List)} a list of them instead.
+     */
+    @Override
+    public RopeList<E> add(final E value) {
+        return this.append(Arrays.asList(RopeList.checked(value)));
+    }
+
+    /**
+     * Inserts a piece of one element. To insert many elements, {@link #insertList(UInt32, List) insert a list} of them instead.
+     */
+    @Override
+    public RopeList<E> insert(final UInt32 index, final E value) {
+        return this.insertList(index, Arrays.asList(RopeList.checked(value)));
+    }
+
+    /**
+     * Adds a copy of c as one piece.
+     */
+    @Override
+    public RopeList<E> addAll(final Collection<? extends E> c) {
+        if (c == null) {
+            throw new IllegalArgumentException("Expected Collection, found null"); //$NON-NLS-1$
+        }
+        return this.append(new ArrayList<>(c));
+    }
+
+    /**
+     * Inserts a copy of c as one piece.
+     */
+    @Override
+    public RopeList<E> addAll(final UInt32 index, final Collection<? extends E> c) {
+        if (c == null) {
+            throw new IllegalArgumentException("Expected Collection, found null"); //$NON-NLS-1$
+        }
+        return this.insertList(index, new ArrayList<>(c));
+    }
+
+    @Override
+    public Pair<RopeList<E>, Maybe<E>> set(final UInt32 index, final E value) {
+        return new Pair<>(this, Maybe.maybe(this.setOrNull(index.intValue(), value)));
+    }
+
+    @Override
+    public Pair<RopeList<E>, Maybe<E>> remove(final UInt32 index) {
+        final Pair<RopeList<E>, Maybe<E>> ret = this.pureRemove(index);
+        return new Pair<>(this.replaceWith(ret.fst()), ret.snd());
+    }
+
+    @Override
+    public Pair<RopeList<E>, Maybe<E>> remove(final Object o) {
+        final Pair<RopeList<E>, Maybe<E>> ret = this.pureRemove(o);
+        return new Pair<>(this.replaceWith(ret.fst()), ret.snd());
+    }
+
+    private RopeList<E> without(final int index) {
+        final Halves<E> halves = RopeList.split(this.root, index);
+        return new RopeList<>(RopeList.concat(halves.left, RopeList.split(halves.right, 1).right));
+    }
+
+    @Override
+    public Pair<RopeList<E>, Maybe<E>> pureRemove(final UInt32 index) {
+        final E value = this.getOrNull(index.intValue());
+        if (value == null) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        return new Pair<>(this.without(index.intValue()), Maybe.just(value));
+    }
+
+    @Override
+    public Pair<RopeList<E>, Maybe<E>> pureRemove(final Object o) {
+        final int i = this.intIndexOf(o);
+        if (i < 0) {
+            return new Pair<>(this, Maybe.nothing());
+        }
+        return new Pair<>(this.without(i), Maybe.just(this.getOrNull(i)));
+    }
+
+    @Override
+    public RopeList<E> removeAll(final Collection<?> c) {
+        return this.replaceWith(this.pureRemoveAll(c));
+    }
+
+    @Override
+    public RopeList<E> pureRemoveAll(final Collection<?> c) {
+        return this.pureRemoveIf(BulkRemoval.membership(c));
+    }
+
+    @Override
+    public RopeList<E> removeIf(final Predicate<? super E> p) {
+        return this.replaceWith(this.pureRemoveIf(p));
+    }
+
+    @Override
+    public RopeList<E> clear() {
+        this.root = null;
+        return this;
+    }
+
+    /**
+     * Pieces that lose no elements are shared with the returned list.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public RopeList<E> pureRemoveIf(final Predicate<? super E> p) {
+        final Object[] values = this.toArray();
+        final long[] marks = BulkRemoval.mark(0, values.length, i -> p.test((E) values[i]));
+        if (marks == null) {
+            return this.copy();
+        }
+        final List<List<E>> pieces = new ArrayList<>();
+        final int[] offset = { 0 };
+        RopeList.forEachPiece(this.root, piece -> {
+            final int from = offset[0];
+            final int to = from + piece.size();
+            offset[0] = to;
+            if (!BulkRemoval.anyMarked(marks, from, to)) {
+                pieces.add(piece);
+                return;
+            }
+            final Object[] kept = new Object[to - from];
+            final int keptSize = BulkRemoval.copySurvivors(values, 0, marks, from, to, kept, 0);
+            if (keptSize != 0) {
+                pieces.add((List<E>) Arrays.asList(kept).subList(0, keptSize));
+            }
+        });
+        return new RopeList<>(RopeList.build(pieces, 0, pieces.size()));
+    }
+
+    @Override
+    public RopeList<E> pureClear() {
+        return new RopeList<>();
+    }
+
+    @Override
+    public RopeList<E> retainAll(final Collection<?> c) {
+        return this.removeIf(BulkRemoval.membership(c).negate());
+    }
+
+    @Override
+    public RopeList<E> retainIf(final Predicate<? super E> p) {
+        return this.removeIf(p.negate());
+    }
+
+    @Override
+    public RopeList<E> pureRetainIf(final Predicate<? super E> p) {
+        return this.pureRemoveIf(p.negate());
+    }
+
+    /**
+     * Chunks are passed as in {@link ConcatenatedList#forEachChunk(UInt32, UInt32, int, Consumer)}.
+     */
+    @Override
+    public void forEachChunk(final UInt32 fromIdx, final UInt32 toIdx, final int chunkSize, final Consumer<? super List<E>> action) {
+        this.toConcatenatedList().forEachChunk(fromIdx, toIdx, chunkSize, action);
+    }
+
+    /**
+     * The returned iterator covers the pieces of this rope at the time of the call, regardless of later changes to this rope.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final Deque<Node<E>> path = new ArrayDeque<>();
+        for (Node<E> node = this.root; node != null; node = node.left) {
+            path.push(node);
+        }
+        return new Iterator<>() {
+            private Iterator<E> current = Iterators.empty();
+
+            @Override
+            public boolean hasNext() {
+                while (!this.current.hasNext()) {
+                    if (path.isEmpty()) {
+                        return false;
+                    }
+                    final Node<E> node = path.pop();
+                    for (Node<E> child = node.right; child != null; child = child.left) {
+                        path.push(child);
+                    }
+                    this.current = node.piece.iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public E next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return this.current.next();
+            }
+        };
+    }
+
+    @Override
+    public ListIterator<E> listIterator(final UInt32 startIndex) {
+        final int start = startIndex.intValue();
+        return new ListIterator<>() {
+            private int cursor = start < 0 || start > RopeList.size(RopeList.this.root) ? RopeList.size(RopeList.this.root) : start;
+            private int lastReturned = -1;
+            @Nullable
+            private List<E> piece;
+            private int pieceStart;
+            private int pieceEnd;
+
+            private E elementAt(final int index) {
+                if (this.piece == null || index < this.pieceStart || index >= this.pieceEnd) {
+                    Node<E> node = RopeList.this.root;
+                    int i = index;
+                    while (true) {
+                        final int leftSize = RopeList.size(node.left);
+                        if (i < leftSize) {
+                            node = node.left;
+                        } else if (i - leftSize < node.pieceSize) {
+                            break;
+                        } else {
+                            i -= leftSize + node.pieceSize;
+                            node = node.right;
+                        }
+                    }
+                    this.piece = node.piece;
+                    this.pieceStart = index - (i - RopeList.size(node.left));
+                    this.pieceEnd = this.pieceStart + node.pieceSize;
+                }
+                return this.piece.get(index - this.pieceStart);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < RopeList.size(RopeList.this.root);
+            }
+
+            @Override
+            public @NonNull E next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = this.cursor++;
+                return this.elementAt(this.lastReturned);
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return this.cursor > 0;
+            }
+
+            @Override
+            public @NonNull E previous() {
+                if (!this.hasPrevious()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = --this.cursor;
+                return this.elementAt(this.lastReturned);
+            }
+
+            @Override
+            public int nextIndex() {
+                return this.cursor;
+            }
+
+            @Override
+            public int previousIndex() {
+                return this.cursor - 1;
+            }
+
+            @Override
+            public void remove() {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                RopeList.this.remove(UInt32.asUnsigned(this.lastReturned));
+                this.cursor = this.lastReturned;
+                this.lastReturned = -1;
+                this.piece = null;
+            }
+
+            @Override
+            public void set(@NonNull final E e) {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                RopeList.this.set(UInt32.asUnsigned(this.lastReturned), e);
+            }
+
+            @Override
+            public void add(@NonNull final E e) {
+                RopeList.this.insert(UInt32.asUnsigned(this.cursor++), e);
+                this.lastReturned = -1;
+                this.piece = null;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RopeList)) {
+            return false;
+        }
+        final RopeList<?> other = (RopeList<?>) o;
+        if (RopeList.size(this.root) != RopeList.size(other.root)) {
+            return false;
+        }
+        if (this.root == other.root) {
+            return true;
+        }
+        final Iterator<E> iter = this.iterator();
+        final Iterator<?> otherIter = other.iterator();
+        while (iter.hasNext()) {
+            if (!iter.next().equals(otherIter.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int ret = 1;
+        final Iterator<E> iter = this.iterator();
+        while (iter.hasNext()) {
+            ret = 31 * ret + iter.next().hashCode();
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner ret = new StringJoiner(", ", "[", "]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        final Iterator<E> iter = this.iterator();
+        while (iter.hasNext()) {
+            ret.add(iter.next().toString());
+        }
+        return ret.toString();
+    }
+}
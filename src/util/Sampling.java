@@ -0,0 +1,184 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Batch and without-replacement random sampling. Every method takes the {@link RandomGenerator} to draw from, so callers on different
+ * threads can avoid contention by passing {@link #threadLocal()} or their own {@link java.util.SplittableRandom#split() split}
+ * {@link java.util.SplittableRandom SplittableRandom} instead of sharing a {@link java.util.Random}. For weighted sampling, see
+ * {@link AliasTable}.
+ */
+public final class Sampling {
+    private Sampling() {
+        throw new UnsupportedOperationException("Can't instantiate Sampling"); //$NON-NLS-1$
+    }
+
+    /**
+     * @return the random number generator of the current thread. Must not be passed to other threads
+     */
+    public static RandomGenerator threadLocal() {
+        return ThreadLocalRandom.current();
+    }
+
+    /**
+     * @param bound the exclusive upper bound of the returned indices. Must be positive
+     * @param count the number of indices to draw
+     * @param rng the random number generator to use
+     * @return an array of <tt>count</tt> independent uniformly distributed indices in [0, bound)
+     */
+    public static int[] uniformIndices(final int bound, final int count, final RandomGenerator rng) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Expected positive bound, found " + bound); //$NON-NLS-1$
+        }
+        final int[] ret = new int[count];
+        for (int i = 0; i < count; i++) {
+            ret[i] = rng.nextInt(bound);
+        }
+        return ret;
+    }
+
+    /**
+     * @param xs the list to draw elements from. Should be {@link java.util.RandomAccess}
+     * @param count the number of elements to draw
+     * @param rng the random number generator to use
+     * @return a list of <tt>count</tt> elements of xs drawn uniformly with replacement
+     */
+    public static <T> List<T> uniform(final List<T> xs, final int count, final RandomGenerator rng) {
+        final List<T> ret = new ArrayList<>(count);
+        for (final int i : Sampling.uniformIndices(xs.size(), count, rng)) {
+            ret.add(xs.get(i));
+        }
+        return ret;
+    }
+
+    /**
+     * Draw distinct indices with Robert Floyd's algorithm, which takes O(count) time and space regardless of bound. When count is a large
+     * fraction of bound, a partial Fisher-Yates shuffle of all indices is used instead.
+     * @param bound the exclusive upper bound of the returned indices
+     * @param count the number of indices to draw. Must be no greater than bound
+     * @param rng the random number generator to use
+     * @return an array of <tt>count</tt> distinct indices in [0, bound) in random order, where every such array is equally likely
+     */
+    public static int[] distinctIndices(final int bound, final int count, final RandomGenerator rng) {
+        if (count < 0 || count > bound) {
+            throw new IllegalArgumentException("Can't draw " + count + " distinct indices below " + bound); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        if (count > bound >>> 2) {
+            final int[] all = new int[bound];
+            for (int i = 0; i < bound; i++) {
+                all[i] = i;
+            }
+            for (int i = 0; i < count; i++) {
+                Sampling.swap(all, i, i + rng.nextInt(bound - i));
+            }
+            return Arrays.copyOf(all, count);
+        }
+        final int[] ret = new int[count];
+        final IntHashSet chosen = new IntHashSet(count);
+        int i = 0;
+        for (int j = bound - count; j < bound; j++) {
+            final int t = rng.nextInt(j + 1);
+            if (chosen.add(t)) {
+                ret[i++] = t;
+            } else {
+                chosen.add(j);
+                ret[i++] = j;
+            }
+        }
+        // Floyd's algorithm picks a uniformly random set, but not a uniformly random order
+        for (int k = count - 1; k > 0; k--) {
+            Sampling.swap(ret, k, rng.nextInt(k + 1));
+        }
+        return ret;
+    }
+
+    /**
+     * @param xs the list to draw elements from. Should be {@link java.util.RandomAccess}
+     * @param count the number of elements to draw. Must be no greater than the size of xs
+     * @param rng the random number generator to use
+     * @return a list of the elements at <tt>count</tt> distinct indices of xs, drawn uniformly without replacement
+     */
+    public static <T> List<T> distinct(final List<T> xs, final int count, final RandomGenerator rng) {
+        final List<T> ret = new ArrayList<>(count);
+        for (final int i : Sampling.distinctIndices(xs.size(), count, rng)) {
+            ret.add(xs.get(i));
+        }
+        return ret;
+    }
+
+    /**
+     * Draw elements without replacement from a source of unknown length in a single pass, using Li's Algorithm L. Only O(count) elements
+     * are kept and the number of random draws grows with the logarithm of the length of the source rather than with its length.
+     * @param source the elements to draw from
+     * @param count the number of elements to draw
+     * @param rng the random number generator to use
+     * @return a list of <tt>count</tt> elements of source drawn uniformly without replacement, or all of the elements of source in order
+     * if it has no more than <tt>count</tt> elements
+     */
+    public static <T> List<T> reservoir(final Iterator<? extends T> source, final int count, final RandomGenerator rng) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Expected non-negative count, found " + count); //$NON-NLS-1$
+        }
+        final List<T> ret = new ArrayList<>(count);
+        while (ret.size() < count && source.hasNext()) {
+            ret.add(source.next());
+        }
+        if (count == 0 || !source.hasNext()) {
+            return ret;
+        }
+        // 1 - nextDouble() is in (0, 1], so its logarithm is finite
+        double w = Math.exp(Math.log(1 - rng.nextDouble()) / count);
+        while (true) {
+            long skip = (long) Math.floor(Math.log(1 - rng.nextDouble()) / Math.log(1 - w));
+            for (; skip > 0 && source.hasNext(); skip--) {
+                source.next();
+            }
+            if (!source.hasNext()) {
+                return ret;
+            }
+            ret.set(rng.nextInt(count), source.next());
+            w *= Math.exp(Math.log(1 - rng.nextDouble()) / count);
+        }
+    }
+
+    private static void swap(final int[] xs, final int i, final int j) {
+        final int tmp = xs[i];
+        xs[i] = xs[j];
+        xs[j] = tmp;
+    }
+
+    /**
+     * A minimal open addressing set of non-negative ints.
+     */
+    private static final class IntHashSet {
+        private final int[] table;
+
+        IntHashSet(final int expected) {
+            this.table = new int[Integer.highestOneBit(Math.max(expected, 1) * 2 - 1) << 1];
+            Arrays.fill(this.table, -1);
+        }
+
+        /**
+         * @param value the value to add. Must be non-negative
+         * @return whether the value was not already present
+         */
+        boolean add(final int value) {
+            final int mask = this.table.length - 1;
+            final int mixed = value * 0x9E37_79B9;
+            for (int i = (mixed ^ mixed >>> 16) & mask;; i = i + 1 & mask) {
+                if (this.table[i] == value) {
+                    return false;
+                }
+                if (this.table[i] < 0) {
+                    this.table[i] = value;
+                    return true;
+                }
+            }
+        }
+    }
+}
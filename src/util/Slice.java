@@ -5,8 +5,10 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import util.number.UInt32;
@@ -17,6 +19,8 @@ import util.number.UInt32;
  * @param <T> the type of the elements of the list that this is a view of
  */
 public class Slice<T> implements AnnotatedNonNullList<Slice<T>, T> {
+    private static final int COPY_CHUNK_SIZE = 1 << 10;
+
     private final AnnotatedNonNullList<?, T> base;
     private final UInt32 fromIdx;
     private final UInt32 toIdx;
@@ -85,6 +89,17 @@ public class Slice<T> implements AnnotatedNonNullList<Slice<T>, T> {
         return this.base.get(baseIdx.snd());
     }
 
+    @Override
+    public int copyInto(final Object[] dest) {
+        final int[] offset = { 0 };
+        this.forEachChunk(Slice.COPY_CHUNK_SIZE, chunk -> {
+            final Object[] elements = chunk.toArray();
+            System.arraycopy(elements, 0, dest, offset[0], elements.length);
+            offset[0] += elements.length;
+        });
+        return offset[0];
+    }
+
     @Override
     public Slice<T> add(@NonNull final T value) {
         throw new UnsupportedOperationException("Can't mutate size of slice"); //$NON-NLS-1$
@@ -189,6 +204,15 @@ public class Slice<T> implements AnnotatedNonNullList<Slice<T>, T> {
         throw new UnsupportedOperationException("Can't get slice without base list"); //$NON-NLS-1$
     }
 
+    @Override
+    public void forEachChunk(final UInt32 fromIdx, final UInt32 toIdx, final int chunkSize, final Consumer<? super List<T>> action) {
+        final UInt32 size = this.size();
+        final UInt32 from = size.lessThan(fromIdx) ? size : fromIdx;
+        final UInt32 to = size.lessThan(toIdx) ? size : toIdx;
+        // Neither sum can overflow because from, to <= this.size() and fromIdx + this.size() <= base.size()
+        this.base.forEachChunk(this.fromIdx.plus(from).snd(), this.fromIdx.plus(to).snd(), chunkSize, action);
+    }
+
     @Override
     public Iterator<T> iterator() {
         final Iterator<T> iter = this.base.iterator();
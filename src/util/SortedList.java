@@ -0,0 +1,527 @@
+package util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import util.number.UInt32;
+
+/**
+ * An array-backed list that is kept sorted by a comparator. {@link #add(Object)} inserts each element after the elements that compare equal
+ * to it, so equal elements stay in the order they were added. The methods that place an element at a given index, including
+ * {@link #insert(UInt32, Object)} and {@link #set(UInt32, Object)}, throw {@link IllegalArgumentException} instead of unsorting this list.
+ * <p>
+ * Searching for an element takes O(log n) comparisons. {@link #contains(Object)} and the <tt>indexOf</tt> methods only check the elements
+ * that compare equal to the argument, so they assume that the comparator is consistent with {@link Object#equals(Object)}.
+ * @param <T> the type of the elements of this list
+ */
+public final class SortedList<T> implements AnnotatedNonNullList<SortedList<T>, T> {
+    private final Comparator<? super T> comparator;
+    private NonNullArrayList<T> list; // Sorted by comparator
+
+    /**
+     * Create an empty list.
+     * @param comparator the order to keep this list in
+     */
+    public SortedList(final Comparator<? super T> comparator) {
+        this(new NonNullArrayList<>(), comparator);
+    }
+
+    /**
+     * Create a list containing the given elements.
+     * @param c the elements of this list, in any order
+     * @param comparator the order to keep this list in
+     * @throws IllegalArgumentException if c is null or contains null
+     */
+    public SortedList(final Collection<? extends T> c, final Comparator<? super T> comparator) {
+        this(new NonNullArrayList<T>(c), comparator);
+        this.list.sort(comparator);
+    }
+
+    private SortedList(final NonNullArrayList<T> list, final Comparator<? super T> comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("Expected Comparator, found null"); //$NON-NLS-1$
+        }
+        this.list = list;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Take ownership of a list without sorting it.
+     * @param sorted the elements of the returned list. Must be sorted by comparator and not be used by the caller afterwards
+     * @param comparator the order to keep the returned list in
+     * @return a list backed by the given list
+     */
+    static <T> SortedList<T> adopt(final NonNullArrayList<T> sorted, final Comparator<? super T> comparator) {
+        return new SortedList<>(sorted, comparator);
+    }
+
+    /**
+     * @return the order that this list is kept in
+     */
+    public Comparator<? super T> comparator() {
+        return this.comparator;
+    }
+
+    /**
+     * Equivalent to {@link #intBinarySearch(Object, Comparator) intBinarySearch(key, comparator())}.
+     * @param key the value to search for
+     * @return the least index of an element of this list that compares equal to key if there is one, <tt>-(insertion point) - 1</tt>
+     *         otherwise
+     */
+    public int intBinarySearch(final T key) {
+        return this.intBinarySearch(key, this.comparator);
+    }
+
+    /**
+     * Equivalent to {@link #binarySearch(Object, Comparator) binarySearch(key, comparator())}.
+     * @param key the value to search for
+     * @return the least index of an element of this list that compares equal to key if there is one, nothing otherwise
+     */
+    public Maybe<UInt32> binarySearch(final T key) {
+        return this.binarySearch(key, this.comparator);
+    }
+
+    /**
+     * @param key the value to search for
+     * @return the least index of this list whose element is not less than key, or the size of this list if there is no such index
+     */
+    public int intLowerBound(final T key) {
+        return this.intLowerBound(key, this.comparator);
+    }
+
+    /**
+     * @param key the value to search for
+     * @return the least index of this list whose element is greater than key, or the size of this list if there is no such index
+     */
+    public int intUpperBound(final T key) {
+        return this.intUpperBound(key, this.comparator);
+    }
+
+    /**
+     * @param key the value to search for
+     * @return the least index of this list whose element is not less than key, or the size of this list if there is no such index
+     */
+    public UInt32 lowerBound(final T key) {
+        return this.lowerBound(key, this.comparator);
+    }
+
+    /**
+     * @param key the value to search for
+     * @return the least index of this list whose element is greater than key, or the size of this list if there is no such index
+     */
+    public UInt32 upperBound(final T key) {
+        return this.upperBound(key, this.comparator);
+    }
+
+    /**
+     * @param before the index of the element that value would follow, or -1 if there is none
+     * @param value the value to place
+     * @param after the index of the element that value would precede, or the size of this list if there is none
+     * @return whether placing value between the given elements keeps this list sorted
+     */
+    private boolean fits(final int before, final T value, final int after) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected element, found null"); //$NON-NLS-1$
+        }
+        final T prev = this.list.getOrNull(before);
+        final T next = this.list.getOrNull(after);
+        return (prev == null || this.comparator.compare(prev, value) <= 0) && (next == null || this.comparator.compare(value, next) <= 0);
+    }
+
+    private static IllegalArgumentException unsorting(final int index) {
+        return new IllegalArgumentException("Expected element that keeps list sorted at index " + index); //$NON-NLS-1$
+    }
+
+    @SuppressWarnings("unchecked")
+    private int find(@Nullable final Object o, final boolean last) {
+        if (o == null) {
+            return -1;
+        }
+        final T key;
+        final int from;
+        final int to;
+        try {
+            key = (T) o;
+            from = this.intLowerBound(key);
+            to = this.intUpperBound(key);
+        } catch (final ClassCastException e) {
+            return -1;
+        }
+        if (last) {
+            for (int i = to - 1; i >= from; i--) {
+                if (o.equals(this.list.getOrNull(i))) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                if (o.equals(this.list.getOrNull(i))) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public UInt32 size() {
+        return this.list.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.list.isEmpty();
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return this.find(object, false) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        for (final Object o : c) {
+            if (!this.contains(o)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int intIndexOf(@Nullable final Object o) {
+        return this.find(o, false);
+    }
+
+    @Override
+    public int intLastIndexOf(@Nullable final Object o) {
+        return this.find(o, true);
+    }
+
+    @Override
+    public Maybe<UInt32> indexOf(final T value) {
+        final int ret = this.intIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<UInt32> lastIndexOf(final T value) {
+        final int ret = this.intLastIndexOf(value);
+        return ret < 0 ? Maybe.nothing() : Maybe.just(UInt32.asUnsigned(ret));
+    }
+
+    @Override
+    public Maybe<T> get(final UInt32 index) {
+        return this.list.get(index);
+    }
+
+    @Override
+    public @Nullable T getOrNull(final int index) {
+        return this.list.getOrNull(index);
+    }
+
+    @Override
+    public int copyInto(final Object[] dest) {
+        return this.list.copyInto(dest);
+    }
+
+    @Override
+    public NonNullArrayList<T> materialize() {
+        return this.list.copy();
+    }
+
+    @Override
+    public void forEachChunk(final UInt32 fromIdx, final UInt32 toIdx, final int chunkSize, final Consumer<? super List<T>> action) {
+        this.list.forEachChunk(fromIdx, toIdx, chunkSize, action);
+    }
+
+    /**
+     * @throws IllegalArgumentException if value doesn't compare between the elements before and after index
+     */
+    @Override
+    public @Nullable T setOrNull(final int index, final T value) {
+        if (index < 0 || index >= this.list.size().intValue()) {
+            return null;
+        }
+        if (!this.fits(index - 1, value, index + 1)) {
+            throw SortedList.unsorting(index);
+        }
+        return this.list.setOrNull(index, value);
+    }
+
+    /**
+     * @throws IllegalArgumentException if value doesn't compare between the elements before and after index
+     */
+    @Override
+    public Pair<SortedList<T>, Maybe<T>> set(final UInt32 index, final T value) {
+        return new Pair<>(this, Maybe.maybe(this.setOrNull(index.intValue(), value)));
+    }
+
+    /**
+     * Insert value after every element of this list that is not greater than it.
+     */
+    @Override
+    public SortedList<T> add(final T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Expected element, found null"); //$NON-NLS-1$
+        }
+        this.list.insert(UInt32.asUnsigned(this.intUpperBound(value)), value);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if value doesn't compare between the elements before and at index
+     */
+    @Override
+    public SortedList<T> insert(final UInt32 index, final T value) {
+        final int i = index.intValue();
+        if (i >= 0 && i <= this.list.size().intValue() && !this.fits(i - 1, value, i)) {
+            throw SortedList.unsorting(i);
+        }
+        this.list.insert(index, value);
+        return this;
+    }
+
+    /**
+     * Sort the elements of c and merge them into this list in O(n + m log m) time for n elements in this list and m elements in c. Each
+     * element of c goes after the elements of this list that compare equal to it.
+     */
+    @Override
+    public SortedList<T> addAll(final Collection<? extends T> c) {
+        final NonNullArrayList<T> added = new NonNullArrayList<T>(c).sort(this.comparator);
+        final int size = this.list.size().intValue();
+        final int addedSize = added.size().intValue();
+        if (addedSize == 0) {
+            return this;
+        }
+        final Object[] merged = new Object[size + addedSize];
+        int i = 0;
+        int j = 0;
+        int dest = 0;
+        while (i < size && j < addedSize) {
+            final T next = this.list.getOrNull(i);
+            final T nextAdded = added.getOrNull(j);
+            if (this.comparator.compare(nextAdded, next) < 0) {
+                merged[dest++] = nextAdded;
+                j++;
+            } else {
+                merged[dest++] = next;
+                i++;
+            }
+        }
+        for (; i < size; i++) {
+            merged[dest++] = this.list.getOrNull(i);
+        }
+        for (; j < addedSize; j++) {
+            merged[dest++] = added.getOrNull(j);
+        }
+        this.list = NonNullArrayList.adopt(merged);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if c, in its iteration order, doesn't fit between the elements before and at index
+     */
+    @Override
+    public SortedList<T> addAll(final UInt32 index, final Collection<? extends T> c) {
+        final NonNullArrayList<T> added = new NonNullArrayList<>(c);
+        final int i = index.intValue();
+        final int addedSize = added.size().intValue();
+        if (i >= 0 && i <= this.list.size().intValue() && addedSize != 0) {
+            T prev = this.list.getOrNull(i - 1);
+            for (int j = 0; j < addedSize; j++) {
+                final T next = added.getOrNull(j);
+                if (prev != null && this.comparator.compare(prev, next) > 0) {
+                    throw SortedList.unsorting(i + j);
+                }
+                prev = next;
+            }
+            if (!this.fits(i - 1, prev, i)) {
+                throw SortedList.unsorting(i + addedSize - 1);
+            }
+        }
+        this.list.addAll(index, added.asUnannotatedList());
+        return this;
+    }
+
+    @Override
+    public Pair<SortedList<T>, Maybe<T>> remove(final UInt32 index) {
+        return new Pair<>(this, this.list.remove(index).snd());
+    }
+
+    @Override
+    public Pair<SortedList<T>, Maybe<T>> remove(final Object o) {
+        final int i = this.intIndexOf(o);
+        return new Pair<>(this, i < 0 ? Maybe.nothing() : this.list.remove(UInt32.asUnsigned(i)).snd());
+    }
+
+    @Override
+    public Pair<SortedList<T>, Maybe<T>> pureRemove(final UInt32 index) {
+        final Pair<NonNullArrayList<T>, Maybe<T>> ret = this.list.pureRemove(index);
+        return new Pair<>(new SortedList<>(ret.fst(), this.comparator), ret.snd());
+    }
+
+    @Override
+    public Pair<SortedList<T>, Maybe<T>> pureRemove(final Object o) {
+        final int i = this.intIndexOf(o);
+        return i < 0 ? new Pair<>(this, Maybe.nothing()) : this.pureRemove(UInt32.asUnsigned(i));
+    }
+
+    @Override
+    public SortedList<T> removeAll(final Collection<?> c) {
+        this.list.removeAll(c);
+        return this;
+    }
+
+    @Override
+    public SortedList<T> pureRemoveAll(final Collection<?> c) {
+        return new SortedList<>(this.list.pureRemoveAll(c), this.comparator);
+    }
+
+    @Override
+    public SortedList<T> removeIf(final Predicate<? super T> p) {
+        this.list.removeIf(p);
+        return this;
+    }
+
+    @Override
+    public SortedList<T> clear() {
+        this.list.clear();
+        return this;
+    }
+
+    @Override
+    public SortedList<T> pureRemoveIf(final Predicate<? super T> p) {
+        return new SortedList<>(this.list.pureRemoveIf(p), this.comparator);
+    }
+
+    @Override
+    public SortedList<T> pureClear() {
+        return new SortedList<>(this.comparator);
+    }
+
+    @Override
+    public SortedList<T> retainAll(final Collection<?> c) {
+        this.list.retainAll(c);
+        return this;
+    }
+
+    @Override
+    public SortedList<T> retainIf(final Predicate<? super T> p) {
+        this.list.retainIf(p);
+        return this;
+    }
+
+    @Override
+    public SortedList<T> pureRetainIf(final Predicate<? super T> p) {
+        return new SortedList<>(this.list.pureRetainIf(p), this.comparator);
+    }
+
+    /**
+     * Has no effect if comparator is the comparator of this list.
+     * @throws UnsupportedOperationException if comparator is any other comparator
+     */
+    @Override
+    public SortedList<T> sort(final Comparator<? super T> comparator) {
+        if (comparator != this.comparator) {
+            throw new UnsupportedOperationException("Can't reorder sorted list"); //$NON-NLS-1$
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.list.iterator();
+    }
+
+    /**
+     * The returned iterator throws {@link IllegalArgumentException} from {@link ListIterator#set(Object)} and
+     * {@link ListIterator#add(Object)} if the element wouldn't keep this list sorted.
+     */
+    @Override
+    public ListIterator<T> listIterator(final UInt32 startIndex) {
+        final ListIterator<T> liter = this.list.listIterator(startIndex);
+        return new ListIterator<>() {
+            private int lastReturned = -1;
+
+            @Override
+            public boolean hasNext() {
+                return liter.hasNext();
+            }
+
+            @Override
+            public @NonNull T next() {
+                this.lastReturned = liter.nextIndex();
+                return liter.next();
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return liter.hasPrevious();
+            }
+
+            @Override
+            public @NonNull T previous() {
+                this.lastReturned = liter.previousIndex();
+                return liter.previous();
+            }
+
+            @Override
+            public int nextIndex() {
+                return liter.nextIndex();
+            }
+
+            @Override
+            public int previousIndex() {
+                return liter.previousIndex();
+            }
+
+            @Override
+            public void remove() {
+                liter.remove();
+                this.lastReturned = -1;
+            }
+
+            @Override
+            public void set(@NonNull final T e) {
+                if (this.lastReturned >= 0 && !SortedList.this.fits(this.lastReturned - 1, e, this.lastReturned + 1)) {
+                    throw SortedList.unsorting(this.lastReturned);
+                }
+                liter.set(e);
+            }
+
+            @Override
+            public void add(@NonNull final T e) {
+                final int i = liter.nextIndex();
+                if (!SortedList.this.fits(i - 1, e, i)) {
+                    throw SortedList.unsorting(i);
+                }
+                liter.add(e);
+                this.lastReturned = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+        return this == o || o instanceof SortedList && this.list.equals(((SortedList<?>) o).list);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.list.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.list.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Sorting algorithms shared by the list implementations.
+ */
+final class Sorting {
+    private Sorting() {
+        throw new UnsupportedOperationException("Can't instantiate utility class"); //$NON-NLS-1$
+    }
+
+    /**
+     * Stably sort a range of an array in place with {@link Arrays#parallelSort(Object[], int, int, Comparator)}, which sorts long ranges
+     * with a merge sort on the common fork-join pool.
+     * @param array the array to sort
+     * @param from the first index of the range to sort, inclusive
+     * @param to the last index of the range to sort, exclusive
+     * @param comparator the order to sort by
+     * @param <T> the type of the elements of the array
+     */
+    static <T> void parallelSort(final T[] array, final int from, final int to, final Comparator<? super T> comparator) {
+        Arrays.parallelSort(array, from, to, comparator);
+    }
+
+    /**
+     * @param list the list to search. Must be sorted by comparator
+     * @param key the value to search for
+     * @param comparator the order that the list is sorted by
+     * @param strict whether to skip elements equal to key
+     * @return the least index of the list whose element is not less than key, or greater than key if strict, or the size of the list if
+     *         there is no such index
+     */
+    static <T> int bound(final AnnotatedNonNullList<?, T> list, final T key, final Comparator<? super T> comparator, final boolean strict) {
+        int low = 0;
+        int high = list.size().intValue();
+        while (low < high) {
+            final int mid = low + high >>> 1;
+            final int cmp = comparator.compare(list.getOrNull(mid), key);
+            if (cmp < 0 || strict && cmp == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -7,16 +7,34 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.RandomAccess;
 
 import util.number.UInt32;
 
-final class WrappedAnnotatedNonNullList<T> implements List<T> {
+class WrappedAnnotatedNonNullList<T> implements List<T> {
     private final AnnotatedNonNullList<?, T> base;
 
     WrappedAnnotatedNonNullList(final AnnotatedNonNullList<?, T> base) {
         this.base = base;
     }
 
+    /**
+     * @param base the list to wrap
+     * @return a {@link List} view of the given list which implements {@link RandomAccess} iff the given list does
+     */
+    static <T> List<T> wrap(final AnnotatedNonNullList<?, T> base) {
+        if (base instanceof RandomAccess) {
+            return new RandomAccessList<>(base);
+        }
+        return new WrappedAnnotatedNonNullList<>(base);
+    }
+
+    private static final class RandomAccessList<T> extends WrappedAnnotatedNonNullList<T> implements RandomAccess {
+        RandomAccessList(final AnnotatedNonNullList<?, T> base) {
+            super(base);
+        }
+    }
+
     @Override
     public int size() {
         return this.base.size().intValue();
@@ -42,7 +60,9 @@ final class WrappedAnnotatedNonNullList<T> implements List<T> {
 
     @Override
     public Object[] toArray() {
-        return this.base.toArray();
+        final Object[] ret = new Object[this.size()];
+        this.base.copyInto(ret);
+        return ret;
     }
 
     @Override
@@ -50,16 +70,14 @@ final class WrappedAnnotatedNonNullList<T> implements List<T> {
         if (a == null) {
             throw new IllegalArgumentException("Expected array, found null"); //$NON-NLS-1$
         }
+        final int size = this.size();
         @SuppressWarnings("unchecked")
-        final A[] ret = this.base.toArray(len -> (A[]) Array.newInstance(a.getClass(), len));
-        if (a.length < ret.length) {
-            return ret;
-        }
-        System.arraycopy(ret, 0, a, 0, ret.length);
-        if (ret.length != a.length) {
-            a[ret.length] = null;
+        final A[] ret = a.length < size ? (A[]) Array.newInstance(a.getClass().getComponentType(), size) : a;
+        this.base.copyInto(ret);
+        if (size < ret.length) {
+            ret[size] = null;
         }
-        return a;
+        return ret;
     }
 
     @Override
@@ -129,12 +147,12 @@ final class WrappedAnnotatedNonNullList<T> implements List<T> {
 
     @Override
     public @Nullable T get(final int index) {
-        return this.base.get(UInt32.asUnsigned(index)).fromMaybeNullable(null);
+        return this.base.getOrNull(index);
     }
 
     @Override
     public @Nullable T set(final int index, final T element) {
-        return this.base.set(UInt32.asUnsigned(index), element).snd().fromMaybeNullable(null);
+        return this.base.setOrNull(index, element);
     }
 
     @Override
@@ -147,36 +165,14 @@ final class WrappedAnnotatedNonNullList<T> implements List<T> {
         return this.base.remove(UInt32.asUnsigned(index)).snd().fromMaybeNullable(null);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public int indexOf(final Object o) {
-        return Maybe.maybe(o)
-                .bind(_var1 -> {
-                    try {
-                        return Maybe.just((T) _var1);
-                    } catch (final ClassCastException ex) {
-                        return Maybe.nothing();
-                    }
-                })
-                .bind(this.base::indexOf)
-                .map(UInt32::intValue)
-                .fromMaybe(-1);
+        return this.base.intIndexOf(o);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public int lastIndexOf(final Object o) {
-        return Maybe.maybe(o)
-                .bind(_var1 -> {
-                    try {
-                        return Maybe.just((T) o);
-                    } catch (final ClassCastException ex) {
-                        return Maybe.nothing();
-                    }
-                })
-                .bind(this.base::lastIndexOf)
-                .map(UInt32::intValue)
-                .fromMaybe(-1);
+        return this.base.intLastIndexOf(o);
     }
 
     @Override
@@ -186,7 +182,7 @@ final class WrappedAnnotatedNonNullList<T> implements List<T> {
 
     @Override
     public ListIterator<T> listIterator(final int index) {
-        return this.base.listIterator(UInt32.ZERO);
+        return this.base.listIterator(UInt32.asUnsigned(index));
     }
 
     @Override
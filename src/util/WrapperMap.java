@@ -11,40 +11,327 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 /**
  * This map uses another map as its default mappings. That is, if this map was created with a map
  * <code>{"A": 3, "B": 4}</code> and was subsequently called with <code>this.put("A", 5)</code>,
- * this map looks like <code>{"A": 5, "B": 4}</code> and <code>this.remove("A")</code> will return
- * it to <code>{"A": 3, "B": 4}</code>. Changes to the backing map will be reflected in this map
- * except where such changes are hidden by calls to {@link #put(Object, Object) this.put(K, V)}.
+ * this map looks like <code>{"A": 5, "B": 4}</code>, <code>this.remove("B")</code> hides the
+ * mapping of the backing map, so that it looks like <code>{"A": 5}</code>, and
+ * <code>this.rollback()</code> will return it to <code>{"A": 3, "B": 4}</code>. Changes to the
+ * backing map will be reflected in this map except where such changes are hidden by calls to
+ * {@link #put(Object, Object) this.put(K, V)} or {@link #remove(Object) this.remove(Object)}.
+ * The changes made to this map can be inspected with {@link #diff()} and written to the backing
+ * map with {@link #commit()}, and {@link #fork()} copies them in constant time. A
+ * {@link PersistentHashMap} makes a backing map that can be shared cheaply in the same way, and
+ * {@link #freeze()} merges the changes into a {@link PerfectHashMap} that is cheap to read.
+ * <p>
+ * This map keeps a Bloom filter of the keys that it has changed, so looking up a key that it
+ * hasn't changed only costs a lookup in the backing map and a couple of bit tests, however many
+ * changes have been made.
  * @param <K> the key type
  * @param <V> the value type
  */
 public class WrapperMap<K, V> implements Map<K, V> {
+    private static final long[] EMPTY_SUMMARY = new long[0];
+    // The number of bits of the summary per changed key, which makes about one in seventy lookups of unchanged keys a false positive
+    private static final int BITS_PER_KEY = 16;
+
+    private final Map<K, V> source;
     private final Map<K, V> back;
-    private final Map<K, V> others = new HashMap<>();
+    private final PersistentHashMap<K, V> others;
+    private PersistentHashMap<Object, Boolean> hidden; // The keys removed from this map. Never shares a key with others
+    private int shadowed = 0; // The number of keys of others that are also keys of back
+    private int masked = 0; // The number of keys of hidden that are also keys of back
+    private int backSize; // The size of back when shadowed and masked were last counted
+    private final int[] commits; // The number of commits made by this map and the maps forked from the same map, shared between them
+    private int commitsCounted; // The value of commits[0] when shadowed and masked were last counted
+    // A Bloom filter of the keys of others and hidden, which may also report keys that are no longer changed. Empty iff nothing is changed
+    private long[] summary = WrapperMap.EMPTY_SUMMARY;
+    private int summaryKeys = 0; // The number of keys added to summary since it was last rebuilt
+    private boolean summaryShared = false; // Whether a fork may read summary, so it must be copied before it is modified
 
     /**
-     * @param back the mappings that this map can't remove
+     * @param back the mappings that this map starts with. This map only modifies back in {@link #commit()}
      */
+    @SuppressWarnings("unchecked")
     public WrapperMap(final Map<? extends K, ? extends V> back) {
+        this.source = (Map<K, V>) back;
         this.back = Collections.unmodifiableMap(back);
+        this.others = new PersistentHashMap<>();
+        this.hidden = new PersistentHashMap<>();
+        this.backSize = this.back.size();
+        this.commits = new int[1];
+    }
+
+    private WrapperMap(final WrapperMap<K, V> other) {
+        this.source = other.source;
+        this.back = other.back;
+        this.others = other.others.copy();
+        this.hidden = other.hidden.copy();
+        this.shadowed = other.shadowed;
+        this.masked = other.masked;
+        this.backSize = other.backSize;
+        this.commits = other.commits;
+        this.commitsCounted = other.commitsCounted;
+        this.summary = other.summary;
+        this.summaryKeys = other.summaryKeys;
+        this.summaryShared = true;
+        other.summaryShared = true;
+    }
+
+    /**
+     * Create a map with the same backing map and the same changes as this map. The changes are held in {@link PersistentHashMap}s, so this
+     * takes constant time however many changes have been made, and changes made to either map afterwards are not visible to the other.
+     * @return a new map that looks like this map
+     */
+    public WrapperMap<K, V> fork() {
+        return new WrapperMap<>(this);
+    }
+
+    /**
+     * Merge the backing map and the changes made to this map into an immutable map that finds every key with one probe. Neither this map
+     * nor the backing map is modified, and later changes to either are not visible in the returned map.
+     * @return a {@link PerfectHashMap} with the mappings of this map
+     */
+    public PerfectHashMap<K, V> freeze() {
+        return new PerfectHashMap<>(this);
+    }
+
+    /**
+     * Count the keys of this map that are mapped both by the backing map and by this map again, and the keys of the backing map that have
+     * been removed from this map. The counts are kept up to date as this map is modified and are recounted automatically when the size of
+     * the backing map changes or a map forked from the same map commits, so this method only needs to be called after keys of the backing
+     * map have been replaced in some other way without changing its size. Takes time proportional to the number of changes made to this
+     * map.
+     */
+    public void recount() {
+        int count = 0;
+        for (final K key : this.others.keySet()) {
+            if (this.back.containsKey(key)) {
+                count++;
+            }
+        }
+        this.shadowed = count;
+        count = 0;
+        for (final Object key : this.hidden.keySet()) {
+            if (this.back.containsKey(key)) {
+                count++;
+            }
+        }
+        this.masked = count;
+        this.markCounted();
+    }
+
+    private void markCounted() {
+        this.backSize = this.back.size();
+        this.commitsCounted = this.commits[0];
     }
 
+    private static int summaryHash(final Object key) {
+        final int h = key.hashCode() * 0x9e3779b9;
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * @return false if this map hasn't changed the mapping of key, or true if it might have
+     */
+    private boolean mayBeChanged(final Object key) {
+        final long[] bits = this.summary;
+        if (bits.length == 0) {
+            return false;
+        }
+        final int hash = WrapperMap.summaryHash(key);
+        final int mask = (bits.length << 6) - 1;
+        final int bit1 = hash & mask;
+        final int bit2 = Integer.rotateLeft(hash, 16) & mask;
+        return (bits[bit1 >>> 6] & 1L << bit1) != 0 && (bits[bit2 >>> 6] & 1L << bit2) != 0;
+    }
+
+    private void summarize(final Object key) {
+        final int hash = WrapperMap.summaryHash(key);
+        final int mask = (this.summary.length << 6) - 1;
+        final int bit1 = hash & mask;
+        final int bit2 = Integer.rotateLeft(hash, 16) & mask;
+        this.summary[bit1 >>> 6] |= 1L << bit1;
+        this.summary[bit2 >>> 6] |= 1L << bit2;
+    }
+
+    // Must be called after the key has been added to others or hidden
+    private void addToSummary(final Object key) {
+        if (this.summaryKeys >= this.summary.length << 6 >>> 4) {
+            this.rebuildSummary();
+            return;
+        }
+        if (this.summaryShared) {
+            this.summary = this.summary.clone();
+            this.summaryShared = false;
+        }
+        this.summarize(key);
+        this.summaryKeys++;
+    }
+
+    // Reverted keys are dropped from the summary here, which is why it is rebuilt instead of grown
+    private void rebuildSummary() {
+        final int keys = this.others.size() + this.hidden.size();
+        if (keys == 0) {
+            this.summary = WrapperMap.EMPTY_SUMMARY;
+        } else {
+            // Leaving room for as many keys again means that rebuilding takes amortized constant time per change
+            final long bits = Math.min(1L << 31, Math.max(64L, Long.highestOneBit((long) keys * WrapperMap.BITS_PER_KEY * 4 - 1)));
+            this.summary = new long[(int) (bits >>> 6)];
+            for (final K key : this.others.keySet()) {
+                this.summarize(key);
+            }
+            for (final Object key : this.hidden.keySet()) {
+                this.summarize(key);
+            }
+        }
+        this.summaryKeys = keys;
+        this.summaryShared = false;
+    }
+
+    private boolean isChanged(final Object key) {
+        return this.mayBeChanged(key) && (this.others.containsKey(key) || this.hidden.containsKey(key));
+    }
+
+    private void checkCounts() {
+        if (this.back.size() != this.backSize || this.commits[0] != this.commitsCounted) {
+            this.recount();
+        }
+    }
+
+    private void putOverlay(final K key, final V value) {
+        this.checkCounts();
+        final boolean wasHidden = this.hidden.remove(key) != null;
+        if (this.others.put(key, value) == null) {
+            if (this.back.containsKey(key)) {
+                if (wasHidden) {
+                    this.masked--;
+                }
+                this.shadowed++;
+            }
+            if (!wasHidden) {
+                this.addToSummary(key);
+            }
+        }
+    }
+
+    private void hide(final Object key) {
+        this.checkCounts();
+        final boolean wasPut = this.others.remove(key) != null;
+        if (this.back.containsKey(key)) {
+            if (wasPut) {
+                this.shadowed--;
+            }
+            if (this.hidden.put(key, Boolean.TRUE) == null) {
+                this.masked++;
+                if (!wasPut) {
+                    this.addToSummary(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Discard the change made to the mapping of key by this map, if any, so that key has its value in the backing map again.
+     * @param key the key to revert
+     * @return whether this map had changed the mapping of key
+     */
+    public boolean revert(@Nullable final Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Expected Key, found null"); //$NON-NLS-1$
+        }
+        this.checkCounts();
+        if (this.others.remove(key) != null) {
+            if (this.back.containsKey(key)) {
+                this.shadowed--;
+            }
+            return true;
+        }
+        if (this.hidden.remove(key) != null) {
+            if (this.back.containsKey(key)) {
+                this.masked--;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Discard every change made to this map, so that it has the same mappings as the backing map again.
+     */
+    public void rollback() {
+        this.others.clear();
+        this.hidden.clear();
+        this.shadowed = 0;
+        this.masked = 0;
+        this.markCounted();
+        this.summary = WrapperMap.EMPTY_SUMMARY;
+        this.summaryKeys = 0;
+        this.summaryShared = false;
+    }
+
+    /**
+     * Write the changes made to this map to the backing map and then discard them, which leaves the mappings of this map as they were.
+     * Takes time proportional to the number of changes, however large the backing map is.
+     * @throws UnsupportedOperationException if the backing map can't be modified
+     * @throws ClassCastException if the backing map can't hold some key or value of this map
+     */
+    public void commit() {
+        for (final Object key : this.hidden.keySet()) {
+            this.source.remove(key);
+        }
+        this.source.putAll(this.others);
+        this.commits[0]++;
+        this.rollback();
+    }
+
+    /**
+     * @return the changes made to this map, which map each key that has been put into this map to its value in this map and each key of
+     *         the backing map that has been removed from this map to nothing. Takes time proportional to the number of changes
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K, Maybe<V>> diff() {
+        final Map<K, Maybe<V>> ret = new HashMap<>();
+        for (final Entry<K, V> entry : this.others.entrySet()) {
+            ret.put(entry.getKey(), Maybe.just(entry.getValue()));
+        }
+        for (final Object key : this.hidden.keySet()) {
+            if (this.back.containsKey(key)) {
+                ret.put((K) key, Maybe.nothing());
+            }
+        }
+        return Collections.unmodifiableMap(ret);
+    }
+
+    private boolean removeIf(final Predicate<? super Entry<K, V>> p) {
+        boolean modified = false;
+        final Iterator<Entry<K, V>> iter = this.entrySet().iterator();
+        while (iter.hasNext()) {
+            if (p.test(iter.next())) {
+                iter.remove();
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Takes constant time unless the size of the backing map has changed since it was last called.
+     */
     @Override
     public int size() {
-        final HashSet<K> keys = new HashSet<>(this.back.keySet());
-        keys.addAll(this.others.keySet());
-        return keys.size();
+        this.checkCounts();
+        return this.back.size() + this.others.size() - this.shadowed - this.masked;
     }
 
     @Override
     public boolean isEmpty() {
-        return this.back.isEmpty() && this.others.isEmpty();
+        return this.size() == 0;
     }
 
     @SuppressWarnings("unlikely-arg-type")
@@ -53,7 +340,10 @@ public class WrapperMap<K, V> implements Map<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Expected Key, found null"); //$NON-NLS-1$
         }
-        return this.back.containsKey(key) || this.others.containsKey(key);
+        if (!this.mayBeChanged(key)) {
+            return this.back.containsKey(key);
+        }
+        return this.others.containsKey(key) || this.back.containsKey(key) && !this.hidden.containsKey(key);
     }
 
     @SuppressWarnings("unlikely-arg-type")
@@ -62,7 +352,18 @@ public class WrapperMap<K, V> implements Map<K, V> {
         if (value == null) {
             throw new IllegalArgumentException("Expected Value, found null"); //$NON-NLS-1$
         }
-        return this.back.containsValue(value) || this.others.containsValue(value);
+        if (this.others.containsValue(value)) {
+            return true;
+        }
+        if (this.others.isEmpty() && this.hidden.isEmpty()) {
+            return this.back.containsValue(value);
+        }
+        for (final Entry<K, V> entry : this.back.entrySet()) {
+            if (value.equals(entry.getValue()) && !this.isChanged(entry.getKey())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @SuppressWarnings("unlikely-arg-type")
@@ -71,7 +372,14 @@ public class WrapperMap<K, V> implements Map<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Expected Key, found null"); //$NON-NLS-1$
         }
-        return (this.others.containsKey(key) ? this.others : this.back).get(key);
+        if (!this.mayBeChanged(key)) {
+            return this.back.get(key);
+        }
+        final V ret = this.others.get(key);
+        if (ret != null || this.hidden.containsKey(key)) {
+            return ret;
+        }
+        return this.back.get(key);
     }
 
     @Override
@@ -83,10 +391,13 @@ public class WrapperMap<K, V> implements Map<K, V> {
             throw new IllegalArgumentException("Expected Value, found null"); //$NON-NLS-1$
         }
         final V ret = this.get(key);
-        this.others.put(key, value);
+        this.putOverlay(key, value);
         return ret;
     }
 
+    /**
+     * Remove the mapping for key from this map, hiding the mapping of the backing map for it if there is one.
+     */
     @SuppressWarnings("unlikely-arg-type")
     @Override
     public V remove(@Nullable final Object key) {
@@ -94,18 +405,122 @@ public class WrapperMap<K, V> implements Map<K, V> {
             throw new IllegalArgumentException("Expected Key, found null"); //$NON-NLS-1$
         }
         final V ret = this.get(key);
-        this.others.remove(key);
+        this.hide(key);
         return ret;
     }
 
     @Override
     public void putAll(final Map<? extends K, ? extends V> m) {
-        this.others.putAll(m);
+        for (final Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            this.put(entry.getKey(), entry.getValue());
+        }
     }
 
+    /**
+     * Remove every mapping from this map, hiding every mapping of the backing map. Mappings added to the backing map later are not hidden.
+     * Takes time proportional to the size of the backing map, unlike {@link #rollback()}.
+     */
     @Override
     public void clear() {
         this.others.clear();
+        final PersistentHashMap.Builder<Object, Boolean> builder = PersistentHashMap.builder();
+        for (final K key : this.back.keySet()) {
+            builder.put(key, Boolean.TRUE);
+        }
+        this.hidden = builder.build();
+        this.shadowed = 0;
+        this.masked = this.hidden.size();
+        this.markCounted();
+        this.rebuildSummary();
+    }
+
+    // Collection.toArray can't be implemented with the copy constructors of collections, which call it
+    private static <E> List<E> toList(final Collection<E> c) {
+        final List<E> ret = new ArrayList<>(c.size());
+        c.forEach(ret::add);
+        return ret;
+    }
+
+    /**
+     * An iterator over the mappings of this map that doesn't copy either map. The mappings of the backing map that haven't been removed
+     * from this map are visited in its order, with the values of this map in place of the values that it hides, and then the keys that
+     * only this map maps are visited in the order of the map that holds them. Removing a mapping through this iterator has the same effect
+     * as {@link WrapperMap#remove(Object)}.
+     * @param <R> the type of the elements of this iterator
+     */
+    private abstract class MergedIterator<R> implements Iterator<R> {
+        private final Iterator<Entry<K, V>> backIter = WrapperMap.this.back.entrySet().iterator();
+        @Nullable
+        private Entry<K, V> pending = null; // The next entry of back that hasn't been removed from this map
+        @Nullable
+        private Iterator<Entry<K, V>> othersIter = null; // Created once backIter is exhausted
+        @Nullable
+        private Entry<K, V> pendingOther = null; // The next entry of othersIter whose key back doesn't map
+        @Nullable
+        private K lastKey = null;
+
+        MergedIterator() {
+            WrapperMap.this.checkCounts();
+        }
+
+        abstract R result(K key, V value);
+
+        // Looking ahead in the backing map is safe because remove doesn't go through backIter
+        private boolean advanceBack() {
+            while (this.pending == null && this.backIter.hasNext()) {
+                final Entry<K, V> entry = this.backIter.next();
+                if (!WrapperMap.this.mayBeChanged(entry.getKey()) || !WrapperMap.this.hidden.containsKey(entry.getKey())) {
+                    this.pending = entry;
+                }
+            }
+            return this.pending != null;
+        }
+
+        // Looking ahead in others is safe because its iterator walks the trie that others had when the iterator was created
+        private boolean advanceOthers() {
+            if (this.othersIter == null) {
+                this.othersIter = WrapperMap.this.others.entrySet().iterator();
+            }
+            while (this.pendingOther == null && this.othersIter.hasNext()) {
+                final Entry<K, V> entry = this.othersIter.next();
+                if (!WrapperMap.this.back.containsKey(entry.getKey())) {
+                    this.pendingOther = entry;
+                }
+            }
+            return this.pendingOther != null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.othersIter == null && this.advanceBack() || this.advanceOthers();
+        }
+
+        @Override
+        public R next() {
+            if (this.othersIter == null && this.advanceBack()) {
+                final Entry<K, V> entry = this.pending;
+                this.pending = null;
+                final V value = WrapperMap.this.mayBeChanged(entry.getKey()) ? WrapperMap.this.others.get(entry.getKey()) : null;
+                this.lastKey = entry.getKey();
+                return this.result(entry.getKey(), value != null ? value : entry.getValue());
+            }
+            if (!this.advanceOthers()) {
+                throw new NoSuchElementException();
+            }
+            final Entry<K, V> entry = this.pendingOther;
+            this.pendingOther = null;
+            this.lastKey = entry.getKey();
+            return this.result(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastKey == null) {
+                throw new IllegalStateException();
+            }
+            WrapperMap.this.hide(this.lastKey);
+            this.lastKey = null;
+        }
     }
 
     @Override
@@ -129,28 +544,24 @@ public class WrapperMap<K, V> implements Map<K, V> {
                 return WrapperMap.this.containsKey(o);
             }
 
-            private Set<K> uselessKeys() {
-                final Set<K> ret = new HashSet<>(backLocal.keySet());
-                ret.addAll(othersLocal.keySet());
-                return ret;
-            }
-
             @Override
             public Iterator<K> iterator() {
-                final Set<K> backKeys = new HashSet<>(backLocal.keySet());
-                final Set<K> othersKeys = othersLocal.keySet();
-                backKeys.removeAll(othersKeys);
-                return Iterators.concat(backKeys.iterator(), othersKeys.iterator());
+                return WrapperMap.this.new MergedIterator<>() {
+                    @Override
+                    K result(final K key, final V value) {
+                        return key;
+                    }
+                };
             }
 
             @Override
             public Object[] toArray() {
-                return this.uselessKeys().toArray();
+                return WrapperMap.toList(this).toArray();
             }
 
             @Override
             public <T> T[] toArray(final @Nullable T[] a) {
-                return this.uselessKeys().toArray(a);
+                return WrapperMap.toList(this).toArray(a);
             }
 
             @Override
@@ -158,16 +569,26 @@ public class WrapperMap<K, V> implements Map<K, V> {
                 return othersLocal.keySet().add(e);
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean remove(@Nullable final Object o) {
-                return othersLocal.keySet().remove(o);
+                if (!WrapperMap.this.containsKey(o)) {
+                    return false;
+                }
+                WrapperMap.this.hide(o);
+                return true;
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean containsAll(@Nullable final Collection<?> c) {
-                return this.uselessKeys().containsAll(c);
+                if (c == null) {
+                    throw new NullPointerException();
+                }
+                for (final Object o : c) {
+                    if (!WrapperMap.this.containsKey(o)) {
+                        return false;
+                    }
+                }
+                return true;
             }
 
             @Override
@@ -175,28 +596,25 @@ public class WrapperMap<K, V> implements Map<K, V> {
                 return othersLocal.keySet().addAll(c);
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean retainAll(@Nullable final Collection<?> c) {
-                return othersLocal.keySet().retainAll(c);
+                return WrapperMap.this.removeIf(entry -> !c.contains(entry.getKey()));
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean removeAll(@Nullable final Collection<?> c) {
-                return othersLocal.keySet().removeAll(c);
+                return WrapperMap.this.removeIf(entry -> c.contains(entry.getKey()));
             }
 
             @Override
             public void clear() {
-                othersLocal.keySet().clear();
+                WrapperMap.this.clear();
             }
         };
     }
 
     @Override
     public Collection<V> values() {
-        final Map<K, V> backLocal = this.back;
         final Map<K, V> othersLocal = this.others;
         return new Collection<>() {
             @Override
@@ -217,28 +635,17 @@ public class WrapperMap<K, V> implements Map<K, V> {
 
             @Override
             public Iterator<V> iterator() {
-                final Iterator<Entry<K, V>> iter = WrapperMap.this.entrySet().iterator();
-                return new Iterator<>() {
-                    @Override
-                    public boolean hasNext() {
-                        return iter.hasNext();
-                    }
-
+                return WrapperMap.this.new MergedIterator<>() {
                     @Override
-                    public V next() {
-                        return iter.next().getValue();
-                    }
-
-                    @Override
-                    public void remove() {
-                        iter.remove();
+                    V result(final K key, final V value) {
+                        return value;
                     }
                 };
             }
 
             @Override
             public Object[] toArray() {
-                return WrapperMap.this.entrySet().stream().map(Entry::getValue).toArray();
+                return WrapperMap.toList(this).toArray();
             }
 
             @SuppressWarnings("unchecked")
@@ -264,16 +671,24 @@ public class WrapperMap<K, V> implements Map<K, V> {
                 return othersLocal.values().add(e);
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean remove(@Nullable final Object o) {
-                return othersLocal.values().remove(o);
+                final Iterator<V> iter = this.iterator();
+                while (iter.hasNext()) {
+                    if (iter.next().equals(o)) {
+                        iter.remove();
+                        return true;
+                    }
+                }
+                return false;
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean containsAll(@Nullable final Collection<?> c) {
-                return WrapperMap.this.entrySet().stream().map(Entry::getValue).collect(Collectors.toList()).containsAll(c);
+                if (c == null) {
+                    throw new NullPointerException();
+                }
+                return new HashSet<>(WrapperMap.toList(this)).containsAll(c);
             }
 
             @Override
@@ -286,37 +701,23 @@ public class WrapperMap<K, V> implements Map<K, V> {
                 if (c == null) {
                     throw new NullPointerException();
                 }
-                boolean modified = false;
-                for (final Object o : c) {
-                    final Optional<Entry<K, V>> maybeKVPair = othersLocal.entrySet().stream().filter(e -> e.getValue() == o).findFirst();
-                    if (!maybeKVPair.isPresent()) {
-                        continue;
-                    }
-                    final Entry<K, V> kvPair = maybeKVPair.get();
-                    if (backLocal.get(kvPair.getKey()) != othersLocal.get(kvPair.getKey())) {
-                        othersLocal.remove(kvPair.getKey());
-                        modified = true;
-                    }
-                }
-                return modified;
+                return WrapperMap.this.removeIf(entry -> c.contains(entry.getValue()));
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean retainAll(@Nullable final Collection<?> c) {
-                return othersLocal.values().retainAll(c);
+                return WrapperMap.this.removeIf(entry -> !c.contains(entry.getValue()));
             }
 
             @Override
             public void clear() {
-                othersLocal.values().clear();
+                WrapperMap.this.clear();
             }
         };
     }
 
     @Override
     public Set<Entry<K, V>> entrySet() {
-        final Map<K, V> backLocal = this.back;
         final Map<K, V> othersLocal = this.others;
         return new Set<>() {
             @Override
@@ -329,34 +730,23 @@ public class WrapperMap<K, V> implements Map<K, V> {
                 return WrapperMap.this.isEmpty();
             }
 
-            @SuppressWarnings("unchecked")
             @Override
             public boolean contains(@Nullable final Object o) {
-                if (!(o instanceof Entry)) {
+                if (!(o instanceof Entry) || ((Entry<?, ?>) o).getKey() == null) {
                     return false;
                 }
-                final Entry<K, V> e = (Entry<K, V>) o;
-                return (othersLocal.containsKey(e.getKey()) ? othersLocal : backLocal).entrySet().contains(e);
+                final Entry<?, ?> e = (Entry<?, ?>) o;
+                return WrapperMap.this.containsKey(e.getKey()) && Objects.equals(WrapperMap.this.get(e.getKey()), e.getValue());
             }
 
             @Override
             public Iterator<Entry<K, V>> iterator() {
-                final List<Entry<K, V>> entries = new ArrayList<>();
-                {
-                    for (final Entry<K, V> entry : backLocal.entrySet()) {
-                        entries.add(new WrapperEntry(entry.getKey(), entry.getValue()));
-                    }
-                    outer: for (final Entry<K, V> otherEntry : othersLocal.entrySet()) {
-                        for (final Entry<K, V> entry : entries) {
-                            if (entry.getKey().equals(otherEntry.getKey())) {
-                                entry.setValue(otherEntry.getValue());
-                                continue outer;
-                            }
-                        }
-                        entries.add(new WrapperEntry(otherEntry.getKey(), otherEntry.getValue()));
+                return WrapperMap.this.new MergedIterator<>() {
+                    @Override
+                    Entry<K, V> result(final K key, final V value) {
+                        return WrapperMap.this.new WrapperEntry(key, value);
                     }
-                }
-                return entries.iterator();
+                };
             }
 
             @Override
@@ -387,20 +777,22 @@ public class WrapperMap<K, V> implements Map<K, V> {
                 return othersLocal.entrySet().add(e);
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean remove(@Nullable final Object o) {
-                return othersLocal.entrySet().remove(o);
+                if (!this.contains(o)) {
+                    return false;
+                }
+                WrapperMap.this.hide(((Entry<?, ?>) o).getKey());
+                return true;
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean containsAll(@Nullable final Collection<?> c) {
                 if (c == null) {
                     throw new NullPointerException();
                 }
                 for (final Object o : c) {
-                    if (!backLocal.entrySet().contains(o) && !othersLocal.entrySet().contains(o)) {
+                    if (!this.contains(o)) {
                         return false;
                     }
                 }
@@ -412,21 +804,19 @@ public class WrapperMap<K, V> implements Map<K, V> {
                 return othersLocal.entrySet().addAll(c);
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean retainAll(@Nullable final Collection<?> c) {
-                return othersLocal.entrySet().retainAll(c);
+                return WrapperMap.this.removeIf(entry -> !c.contains(entry));
             }
 
-            @SuppressWarnings("unlikely-arg-type")
             @Override
             public boolean removeAll(@Nullable final Collection<?> c) {
-                return othersLocal.entrySet().removeAll(c);
+                return WrapperMap.this.removeIf(c::contains);
             }
 
             @Override
             public void clear() {
-                othersLocal.entrySet().clear();
+                WrapperMap.this.clear();
             }
         };
     }
@@ -0,0 +1,20 @@
+package util.function;
+
+/**
+ * A predicate on bytes.
+ */
+@FunctionalInterface
+public interface BytePredicate {
+    /**
+     * @param value the value to test
+     * @return whether the value matches this predicate
+     */
+    boolean test(byte value);
+
+    /**
+     * @return the predicate that matches exactly those values that this predicate doesn't match
+     */
+    default BytePredicate negate() {
+        return value -> !this.test(value);
+    }
+}
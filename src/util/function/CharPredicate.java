@@ -0,0 +1,20 @@
+package util.function;
+
+/**
+ * A predicate on chars.
+ */
+@FunctionalInterface
+public interface CharPredicate {
+    /**
+     * @param value the value to test
+     * @return whether the value matches this predicate
+     */
+    boolean test(char value);
+
+    /**
+     * @return the predicate that matches exactly those values that this predicate doesn't match
+     */
+    default CharPredicate negate() {
+        return value -> !this.test(value);
+    }
+}
@@ -0,0 +1,16 @@
+package util.function;
+
+/**
+ * A consumer that may throw an object of type X.
+ * @param <T> the input type
+ * @param <X> the exception type
+ */
+@FunctionalInterface
+public interface ExConsumer<T, X extends Throwable> {
+    /**
+     * Like {@linkplain java.util.function.Consumer#accept(Object)} but can throw <tt>X</tt>
+     * @param t the argument
+     * @throws X
+     */
+    void accept(T t) throws X;
+}
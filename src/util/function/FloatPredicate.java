@@ -0,0 +1,20 @@
+package util.function;
+
+/**
+ * A predicate on floats.
+ */
+@FunctionalInterface
+public interface FloatPredicate {
+    /**
+     * @param value the value to test
+     * @return whether the value matches this predicate
+     */
+    boolean test(float value);
+
+    /**
+     * @return the predicate that matches exactly those values that this predicate doesn't match
+     */
+    default FloatPredicate negate() {
+        return value -> !this.test(value);
+    }
+}
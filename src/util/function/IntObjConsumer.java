@@ -0,0 +1,14 @@
+package util.function;
+
+/**
+ * An operation on an int and an object, such as a key and its value.
+ * @param <T> the type of the object
+ */
+@FunctionalInterface
+public interface IntObjConsumer<T> {
+    /**
+     * @param key the int
+     * @param value the object
+     */
+    void accept(int key, T value);
+}
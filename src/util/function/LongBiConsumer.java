@@ -0,0 +1,13 @@
+package util.function;
+
+/**
+ * An operation on two longs, such as a key and its value.
+ */
+@FunctionalInterface
+public interface LongBiConsumer {
+    /**
+     * @param key the first long
+     * @param value the second long
+     */
+    void accept(long key, long value);
+}
@@ -0,0 +1,14 @@
+package util.function;
+
+/**
+ * An operation on a long and an object, such as a key and its value.
+ * @param <T> the type of the object
+ */
+@FunctionalInterface
+public interface LongObjConsumer<T> {
+    /**
+     * @param key the long
+     * @param value the object
+     */
+    void accept(long key, T value);
+}
@@ -0,0 +1,20 @@
+package util.function;
+
+/**
+ * A predicate on shorts.
+ */
+@FunctionalInterface
+public interface ShortPredicate {
+    /**
+     * @param value the value to test
+     * @return whether the value matches this predicate
+     */
+    boolean test(short value);
+
+    /**
+     * @return the predicate that matches exactly those values that this predicate doesn't match
+     */
+    default ShortPredicate negate() {
+        return value -> !this.test(value);
+    }
+}
@@ -32,7 +32,7 @@ public final class UInt32 extends Number implements Comparable<UInt32> {
      * @return the UInt32 represented by the same sequence of bits as the given value
      */
     public static UInt32 asUnsigned(final int value) {
-        if ((value & 0xFFFF_FF00) != 0) {
+        if (value < UInt32.MIN_SIGNED || UInt32.MAX_SIGNED < value) {
             return new UInt32(value);
         }
         return UInt32.cache[value - UInt32.MIN_SIGNED];